@@ -31,6 +31,7 @@ import ftc.evlib.hardware.servos.ServoControl;
 import ftc.evlib.hardware.servos.ServoName;
 import ftc.evlib.hardware.servos.Servos;
 import ftc.evlib.statemachine.EVStateMachineBuilder;
+import ftc.evlib.vision.framegrabber.FrameGovernor;
 import ftc.evlib.vision.framegrabber.FrameGrabber;
 import ftc.evlib.vision.processors.ImageProcessor;
 import ftc.evlib.vision.processors.ImageProcessorResult;
@@ -146,6 +147,26 @@ public class Fake {
             return false;
         }
 
+        @Override
+        public boolean isPooled() {
+            return false;
+        }
+
+        @Override
+        public boolean isDisplayEnabled() {
+            return true;
+        }
+
+        @Override
+        public int getMatAllocations() {
+            return 0;
+        }
+
+        @Override
+        public FrameGovernor getGovernor() {
+            return null;
+        }
+
         @Override
         public ImageProcessor getImageProcessor() {
             return null;
@@ -171,6 +192,21 @@ public class Fake {
 
         }
 
+        @Override
+        public void setPooled(boolean pooled) {
+
+        }
+
+        @Override
+        public void setDisplayEnabled(boolean displayEnabled) {
+
+        }
+
+        @Override
+        public void setGovernor(FrameGovernor governor) {
+
+        }
+
         @Override
         public void setImageProcessor(ImageProcessor imageProcessor) {
 
@@ -12,6 +12,7 @@ import ftc.electronvolts.util.units.AngularVelocity;
 import ftc.electronvolts.util.units.Distance;
 import ftc.electronvolts.util.units.Time;
 import ftc.evlib.hardware.sensors.DistanceSensor;
+import ftc.evlib.hardware.sensors.HardwareSnapshot;
 import ftc.evlib.hardware.sensors.LineSensorArray;
 
 import static ftc.evlib.driverstation.Telem.telemetry;
@@ -126,7 +127,7 @@ public class LineUpControl extends XYRControl {
 
         //-------- GYRO --------//
         //get the gyro heading and convert it to a vector
-        double gyroHeadingDegrees = gyro.getHeading();
+        double gyroHeadingDegrees = HardwareSnapshot.getHeading(gyro);
         Vector2D gyroVector = new Vector2D(1, Angle.fromDegrees(gyroHeadingDegrees));
 
         //find the "signed angular separation", the magnitude and direction of the error
@@ -1,8 +1,11 @@
 package ftc.evlib.hardware.control;
 
+import com.qualcomm.robotcore.hardware.GyroSensor;
+
 import ftc.electronvolts.util.Vector2D;
 import ftc.electronvolts.util.units.Velocity;
 import ftc.evlib.hardware.motors.MecanumMotors;
+import ftc.evlib.hardware.sensors.HardwareSnapshot;
 
 /**
  * This file was made by the electronVolts, FTC team 7393
@@ -38,6 +41,16 @@ public class MecanumControl {
      */
     private boolean translationWorked = true, rotationWorked = false;
 
+    /**
+     * the commanded velocities and gyro headings from the last few seconds
+     */
+    private final MotionHistory motionHistory = new MotionHistory();
+
+    /**
+     * the gyro to record the heading from, or null to record a heading of 0
+     */
+    private GyroSensor gyro = null;
+
     /**
      * create a MecanumControl that is not moving
      *
@@ -77,6 +90,20 @@ public class MecanumControl {
         return mecanumMotors.getMaxRobotSpeed();
     }
 
+    /**
+     * @param gyro the gyro to record the heading from in the motion history, or null to record a heading of 0
+     */
+    public void setGyro(GyroSensor gyro) {
+        this.gyro = gyro;
+    }
+
+    /**
+     * @return the commanded velocities and gyro headings from the last few seconds
+     */
+    public MotionHistory getMotionHistory() {
+        return motionHistory;
+    }
+
     /**
      * @param rotationControl the controller that determines the robot's rotation
      */
@@ -171,6 +198,10 @@ public class MecanumControl {
                 velocityR
         );
 
+        //remember the motion so old camera results can be moved forward to now
+        double headingRadians = gyro == null ? 0 : Math.toRadians(HardwareSnapshot.getHeading(gyro));
+        motionHistory.record(System.currentTimeMillis(), headingRadians, velocityX, velocityY, mecanumMotors.getMaxRobotSpeed().metersPerMillisecond());
+
         mecanumMotors.mecanumDrive();
         mecanumMotors.update();
     }
@@ -0,0 +1,149 @@
+package ftc.evlib.hardware.control;
+
+/**
+ * This file was made by the electronVolts, FTC team 7393
+ * Date Created: 10/18/26
+ * <p>
+ * Remembers how the robot moved over the last few seconds
+ * <p>
+ * Each sample is the time, the gyro heading, and the commanded velocity, which is assumed to last until the next sample.
+ * The velocity is integrated into a position on the field, so the motion between any two recent times can be found.
+ * This is used to move an old camera result forward to the current time.
+ *
+ * @see MecanumControl#getMotionHistory()
+ * @see TranslationControls#cameraTracking(ftc.evlib.vision.framegrabber.FrameGrabber, ftc.evlib.vision.processors.ImageProcessor, MotionHistory)
+ */
+public class MotionHistory {
+    /**
+     * The motion of the robot between two times, relative to where the robot was facing at the first time
+     */
+    public static class Motion {
+        /**
+         * The distance moved forward (the direction of a translation angle of 0) in meters
+         */
+        public final double forward;
+        /**
+         * The distance moved to the side (the direction of a translation angle of 90 degrees) in meters
+         */
+        public final double sideways;
+        /**
+         * The change in heading in radians
+         */
+        public final double rotation;
+
+        Motion(double forward, double sideways, double rotation) {
+            this.forward = forward;
+            this.sideways = sideways;
+            this.rotation = rotation;
+        }
+    }
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final long[] times;
+    private final double[] xs, ys, headings;
+    private int next = 0, size = 0;
+
+    //the velocity in meters per millisecond in the robot's frame from the last sample
+    private double velocityX = 0, velocityY = 0;
+
+    public MotionHistory() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the number of samples to keep
+     */
+    public MotionHistory(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("capacity must be at least 2");
+        }
+        times = new long[capacity];
+        xs = new double[capacity];
+        ys = new double[capacity];
+        headings = new double[capacity];
+    }
+
+    /**
+     * Add a sample
+     *
+     * @param time                 the time in milliseconds
+     * @param headingRadians       the heading from the gyro, or 0 if there is no gyro
+     * @param velocityX            the commanded velocity toward the front from -1 to 1
+     * @param velocityY            the commanded velocity toward the side from -1 to 1
+     * @param metersPerMillisecond the speed of the robot at a velocity of 1
+     */
+    public synchronized void record(long time, double headingRadians, double velocityX, double velocityY, double metersPerMillisecond) {
+        double x = 0, y = 0;
+        if (size > 0) {
+            int last = (next + times.length - 1) % times.length;
+            long dt = time - times[last];
+            if (dt < 0) return;
+
+            //move by the last velocity, turned from the robot's frame to the field's frame
+            double heading = headings[last];
+            x = xs[last] + (this.velocityX * Math.cos(heading) - this.velocityY * Math.sin(heading)) * dt;
+            y = ys[last] + (this.velocityX * Math.sin(heading) + this.velocityY * Math.cos(heading)) * dt;
+        }
+
+        times[next] = time;
+        xs[next] = x;
+        ys[next] = y;
+        headings[next] = headingRadians;
+        next = (next + 1) % times.length;
+        if (size < times.length) size++;
+
+        this.velocityX = velocityX * metersPerMillisecond;
+        this.velocityY = velocityY * metersPerMillisecond;
+    }
+
+    /**
+     * Find how the robot moved from a time until the last sample
+     *
+     * @param time the time in milliseconds, usually when a camera frame was taken
+     * @return the motion, or null if there are no samples or the time is older than the history
+     */
+    public synchronized Motion getMotionSince(long time) {
+        if (size == 0) return null;
+        int oldest = (next + times.length - size) % times.length;
+        int newest = (next + times.length - 1) % times.length;
+        if (time < times[oldest]) return null;
+        if (time >= times[newest]) return new Motion(0, 0, 0);
+
+        //find the samples around the time and interpolate between them
+        int i = newest;
+        int before = (i + times.length - 1) % times.length;
+        while (times[before] > time) {
+            i = before;
+            before = (i + times.length - 1) % times.length;
+        }
+        double fraction = (double) (time - times[before]) / Math.max(1, times[i] - times[before]);
+        double x = xs[before] + fraction * (xs[i] - xs[before]);
+        double y = ys[before] + fraction * (ys[i] - ys[before]);
+        double heading = headings[before] + fraction * angleDifference(headings[i], headings[before]);
+
+        //turn the field motion into the robot's frame at the time
+        double dx = xs[newest] - x;
+        double dy = ys[newest] - y;
+        double forward = dx * Math.cos(heading) + dy * Math.sin(heading);
+        double sideways = -dx * Math.sin(heading) + dy * Math.cos(heading);
+        return new Motion(forward, sideways, angleDifference(headings[newest], heading));
+    }
+
+    /**
+     * @return a - b wrapped to be between -pi and pi
+     */
+    private static double angleDifference(double a, double b) {
+        double difference = (a - b) % (2 * Math.PI);
+        if (difference > Math.PI) difference -= 2 * Math.PI;
+        if (difference < -Math.PI) difference += 2 * Math.PI;
+        return difference;
+    }
+
+    public synchronized void clear() {
+        next = 0;
+        size = 0;
+        velocityX = 0;
+        velocityY = 0;
+    }
+}
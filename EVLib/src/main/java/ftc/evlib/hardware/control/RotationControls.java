@@ -5,6 +5,7 @@ import com.qualcomm.robotcore.hardware.GyroSensor;
 import ftc.electronvolts.util.InputExtractor;
 import ftc.electronvolts.util.Vector2D;
 import ftc.electronvolts.util.units.Angle;
+import ftc.evlib.hardware.sensors.HardwareSnapshot;
 
 import static ftc.evlib.driverstation.Telem.telemetry;
 
@@ -106,7 +107,7 @@ public class RotationControls {
             public boolean act() {
 
                 //get the gyro heading and convert it to a vector
-                gyroHeading = gyro.getHeading();
+                gyroHeading = HardwareSnapshot.getHeading(gyro);
                 Vector2D gyroVector = new Vector2D(1, Angle.fromDegrees(gyroHeading));
 
                 //find the "signed angular separation", the magnitude and direction of the error
@@ -222,7 +223,7 @@ public class RotationControls {
                 }
                 //if the driver's input is 0, use the gyro control
                 if (velocityR == 0) {
-                    double gyroHeading = gyro.getHeading(); //get the gyro heading
+                    double gyroHeading = HardwareSnapshot.getHeading(gyro); //get the gyro heading
 
                     //if the driver input just dropped to 0
                     if (mode == TeleOpGyroMode.DRIVER) {
@@ -3,6 +3,7 @@ package ftc.evlib.hardware.control;
 import ftc.electronvolts.util.InputExtractor;
 import ftc.electronvolts.util.Vector2D;
 import ftc.electronvolts.util.units.Angle;
+import ftc.electronvolts.util.units.Distance;
 import ftc.evlib.hardware.sensors.DoubleLineSensor;
 import ftc.evlib.hardware.sensors.LineSensorArray;
 import ftc.evlib.vision.framegrabber.FrameGrabber;
@@ -21,6 +22,11 @@ import ftc.evlib.vision.processors.Location;
  */
 
 public class TranslationControls {
+    /**
+     * How long cameraTracking keeps predicting from the last result before it gives up
+     */
+    private static final long MAX_RESULT_AGE_MILLIS = 500;
+
     /**
      * No movement
      */
@@ -270,6 +276,18 @@ public class TranslationControls {
         return cameraTracking(frameGrabber, imageProcessor, Angle.fromDegrees(90), 0, 0.2);
     }
 
+    /**
+     * Line up with the beacon, moving each result forward to now with the robot's motion since the frame was taken
+     *
+     * @param frameGrabber   the source of the frames
+     * @param imageProcessor finds the object
+     * @param motionHistory  the robot's recent motion (from MecanumControl.getMotionHistory())
+     * @return the created TranslationControl
+     */
+    public static TranslationControl cameraTracking(FrameGrabber frameGrabber, ImageProcessor<? extends Location> imageProcessor, MotionHistory motionHistory) {
+        return cameraTracking(frameGrabber, imageProcessor, Angle.fromDegrees(90), 0, 0.2, motionHistory, null);
+    }
+
     /**
      * Line up with the beacon
      *
@@ -279,7 +297,27 @@ public class TranslationControls {
      * @param targetWidth     how wide the beacon should be in the image
      * @return the created TranslationControl
      */
-    public static TranslationControl cameraTracking(final FrameGrabber frameGrabber, ImageProcessor<? extends Location> imageProcessor, final Angle cameraViewAngle, final double targetX, final double targetWidth) {
+    public static TranslationControl cameraTracking(FrameGrabber frameGrabber, ImageProcessor<? extends Location> imageProcessor, Angle cameraViewAngle, double targetX, double targetWidth) {
+        return cameraTracking(frameGrabber, imageProcessor, cameraViewAngle, targetX, targetWidth, null, null);
+    }
+
+    /**
+     * Line up with the beacon
+     * <p>
+     * If a motion history is given, the location from each result is moved forward from the time the frame was taken
+     * to now, and the prediction is updated every loop between results.
+     * The change in heading is always used. The translation is only used if the physical width of the object is given,
+     * since it is needed to find the distance to the object.
+     *
+     * @param frameGrabber        the source of the frames
+     * @param cameraViewAngle     how wide the camera angle is
+     * @param targetX             where the beacon should be in the image
+     * @param targetWidth         how wide the beacon should be in the image
+     * @param motionHistory       the robot's recent motion (from MecanumControl.getMotionHistory()), or null to use the results as they are
+     * @param targetPhysicalWidth the real width of the object that the Location's width measures, or null if it is not known
+     * @return the created TranslationControl
+     */
+    public static TranslationControl cameraTracking(final FrameGrabber frameGrabber, ImageProcessor<? extends Location> imageProcessor, final Angle cameraViewAngle, final double targetX, final double targetWidth, final MotionHistory motionHistory, final Distance targetPhysicalWidth) {
 
         frameGrabber.setImageProcessor(imageProcessor);
         frameGrabber.grabContinuousFrames();
@@ -288,23 +326,54 @@ public class TranslationControls {
             private double velocity;
             private Angle direction;
 
+            //the last location as fractions of the image width, and the time its frame was taken
+            private double lastX, lastWidth;
+            private long lastTime = -1;
+
             @Override
             public boolean act() {
-
                 if (frameGrabber.isResultReady()) {
                     ImageProcessorResult imageProcessorResult = frameGrabber.getResult();
                     Location location = (Location) imageProcessorResult.getResult();
+                    //the object was not found
+                    if (location == null) {
+                        lastTime = -1;
+                        return false;
+                    }
                     double imageWidth = imageProcessorResult.getFrame().width();
 //                    double x = beaconPositionResult.getMidpoint().x / imageWidth;
 //                    double width = beaconPositionResult.getWidth() / imageWidth;
-                    double x = location.getX() / imageWidth;
-                    double width = location.getWidth() / imageWidth;
-                    velocity = targetWidth - width;
-                    direction = Angle.fromDegrees(cameraViewAngle.degrees() * (x - 0.5 - targetX));
-                    return true;
-                } else {
+                    lastX = location.getX() / imageWidth;
+                    lastWidth = location.getWidth() / imageWidth;
+                    lastTime = imageProcessorResult.getStartTime();
+                } else if (motionHistory == null || lastTime < 0 || System.currentTimeMillis() - lastTime > MAX_RESULT_AGE_MILLIS) {
                     return false;
                 }
+
+                double x = lastX;
+                double width = lastWidth;
+                MotionHistory.Motion motion = motionHistory == null ? null : motionHistory.getMotionSince(lastTime);
+                if (motion != null) {
+                    double viewAngle = cameraViewAngle.radians();
+                    double bearing = viewAngle * (x - 0.5);
+                    if (targetPhysicalWidth != null && width > 0) {
+                        //find where the object was relative to the robot, and move it by the robot's motion
+                        double physicalWidth = targetPhysicalWidth.meters();
+                        double distance = physicalWidth / (2 * Math.tan(width * viewAngle / 2));
+                        double objectX = distance * Math.cos(bearing) - motion.forward;
+                        double objectY = distance * Math.sin(bearing) - motion.sideways;
+                        bearing = Math.atan2(objectY, objectX);
+                        distance = Math.hypot(objectX, objectY);
+                        width = 2 * Math.atan(physicalWidth / (2 * distance)) / viewAngle;
+                    }
+                    //turning the robot turns the object the other way in the image
+                    bearing -= motion.rotation;
+                    x = bearing / viewAngle + 0.5;
+                }
+
+                velocity = targetWidth - width;
+                direction = Angle.fromDegrees(cameraViewAngle.degrees() * (x - 0.5 - targetX));
+                return true;
             }
 
             @Override
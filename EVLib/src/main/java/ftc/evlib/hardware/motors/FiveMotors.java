@@ -13,15 +13,28 @@ import ftc.electronvolts.util.units.Velocity;
  * @see NMotors
  */
 public class FiveMotors extends NMotors {
+    //the values passed to run, reused so that running the motors does not allocate
+    private final double[] buffer = new double[5];
+
     public FiveMotors(Motor motor1, Motor motor2, Motor motor3, Motor motor4, Motor motor5, boolean useSpeedMode, Velocity maxRobotSpeed) {
         super(ImmutableList.of(motor1, motor2, motor3, motor4, motor5), useSpeedMode, maxRobotSpeed);
     }
 
     public void runMotorsNormalized(double value1, double value2, double value3, double value4, double value5) {
-        runNormalized(ImmutableList.of(value1, value2, value3, value4, value5));
+        buffer[0] = value1;
+        buffer[1] = value2;
+        buffer[2] = value3;
+        buffer[3] = value4;
+        buffer[4] = value5;
+        runNormalized(buffer);
     }
 
     public void runMotors(double value1, double value2, double value3, double value4, double value5) {
-        run(ImmutableList.of(value1, value2, value3, value4, value5));
+        buffer[0] = value1;
+        buffer[1] = value2;
+        buffer[2] = value3;
+        buffer[3] = value4;
+        buffer[4] = value5;
+        run(buffer);
     }
 }
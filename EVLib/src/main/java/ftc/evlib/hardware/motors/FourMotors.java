@@ -13,15 +13,26 @@ import ftc.electronvolts.util.units.Velocity;
  * @see NMotors
  */
 public class FourMotors extends NMotors {
+    //the values passed to run, reused so that running the motors does not allocate
+    private final double[] buffer = new double[4];
+
     public FourMotors(Motor frontLeftMotor, Motor frontRightMotor, Motor backLeftMotor, Motor backRightMotor, boolean useSpeedMode, Velocity maxRobotSpeed) {
         super(ImmutableList.of(frontLeftMotor, frontRightMotor, backLeftMotor, backRightMotor), useSpeedMode, maxRobotSpeed);
     }
 
     public void runMotorsNormalized(double flValue, double frValue, double blValue, double brValue) {
-        runNormalized(ImmutableList.of(flValue, frValue, blValue, brValue));
+        buffer[0] = flValue;
+        buffer[1] = frValue;
+        buffer[2] = blValue;
+        buffer[3] = brValue;
+        runNormalized(buffer);
     }
 
     public void runMotors(double flValue, double frValue, double blValue, double brValue) {
-        run(ImmutableList.of(flValue, frValue, blValue, brValue));
+        buffer[0] = flValue;
+        buffer[1] = frValue;
+        buffer[2] = blValue;
+        buffer[3] = brValue;
+        run(buffer);
     }
 }
@@ -1,10 +1,5 @@
 package ftc.evlib.hardware.motors;
 
-import com.google.common.collect.ImmutableList;
-
-import java.util.ArrayList;
-import java.util.List;
-
 import ftc.electronvolts.util.Utility;
 import ftc.electronvolts.util.units.Angle;
 import ftc.electronvolts.util.units.Velocity;
@@ -35,6 +30,17 @@ public class MecanumMotors extends FourMotors {
     //the drive mode
     private MecanumDriveMode driveMode = MecanumDriveMode.NORMALIZED;
 
+    //the buffers used by mecanumDriveTranslationNormalized, reused every loop
+    private final double[] translationValues = new double[4];
+    private final double[] rotationValues = new double[4];
+    private final double[] valuesScaled = new double[4];
+
+    //the telemetry keys for valuesScaled, so no strings are built every loop
+    private static final String[] VALUES_SCALED_KEYS = {"valuesScaled(0)", "valuesScaled(1)", "valuesScaled(2)", "valuesScaled(3)"};
+
+    //whether or not to show the values from mecanumDriveTranslationNormalized on the telemetry (off by default, since it boxes every value every loop)
+    private boolean telemetryEnabled = false;
+
     /**
      * @param frontLeftMotor  the front left motor
      * @param frontRightMotor the front right motor
@@ -54,6 +60,13 @@ public class MecanumMotors extends FourMotors {
         driveMode = mode;
     }
 
+    /**
+     * @param telemetryEnabled whether or not to show the drive mode, scale factor, and scaled values on the telemetry
+     */
+    public void setTelemetryEnabled(boolean telemetryEnabled) {
+        this.telemetryEnabled = telemetryEnabled;
+    }
+
     /**
      * Update the motor powers
      */
@@ -87,17 +100,15 @@ public class MecanumMotors extends FourMotors {
      */
     private void mecanumDriveTranslationNormalized() {
         //calculate motor powers
-        List<Double> translationValues = ImmutableList.of(
-                velocityX + velocityY,
-                velocityX - velocityY,
-                velocityX - velocityY,
-                velocityX + velocityY);
-
-        List<Double> rotationValues = ImmutableList.of(
-                -velocityR,
-                velocityR,
-                -velocityR,
-                velocityR);
+        translationValues[0] = velocityX + velocityY;
+        translationValues[1] = velocityX - velocityY;
+        translationValues[2] = velocityX - velocityY;
+        translationValues[3] = velocityX + velocityY;
+
+        rotationValues[0] = -velocityR;
+        rotationValues[1] = velocityR;
+        rotationValues[2] = -velocityR;
+        rotationValues[3] = velocityR;
 
         double scaleFactor = 1;
         double tmpScale = 1;
@@ -107,23 +118,26 @@ public class MecanumMotors extends FourMotors {
         // to find scaleFactor that ensures -1 <= MotorX <= 1 and 0 < scaleFactor <= 1
 
         for (int i = 0; i < 4; i++) {
-            if (Math.abs(translationValues.get(i) + rotationValues.get(i)) > 1) {
-                tmpScale = (1 - rotationValues.get(i)) / translationValues.get(i);
-            } else if (translationValues.get(i) + rotationValues.get(i) < -1) {
-                tmpScale = (rotationValues.get(i) - 1) / translationValues.get(i);
+            if (Math.abs(translationValues[i] + rotationValues[i]) > 1) {
+                tmpScale = (1 - rotationValues[i]) / translationValues[i];
+            } else if (translationValues[i] + rotationValues[i] < -1) {
+                tmpScale = (rotationValues[i] - 1) / translationValues[i];
             }
             if (tmpScale < scaleFactor) {
                 scaleFactor = tmpScale;
             }
         }
 
-        telemetry.addData("driveMode", driveMode.toString());
-        telemetry.addData("scaleFactor", scaleFactor);
-
-        List<Double> valuesScaled = new ArrayList<>();
         for (int i = 0; i < 4; i++) {
-            valuesScaled.add(translationValues.get(i) * scaleFactor + rotationValues.get(i));
-            telemetry.addData("valuesScaled(" + i + ")", valuesScaled.get(i));
+            valuesScaled[i] = translationValues[i] * scaleFactor + rotationValues[i];
+        }
+
+        if (telemetryEnabled) {
+            telemetry.addData("driveMode", driveMode.toString());
+            telemetry.addData("scaleFactor", scaleFactor);
+            for (int i = 0; i < 4; i++) {
+                telemetry.addData(VALUES_SCALED_KEYS[i], valuesScaled[i]);
+            }
         }
 
         run(valuesScaled);
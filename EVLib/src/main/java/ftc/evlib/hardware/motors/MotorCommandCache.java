@@ -0,0 +1,184 @@
+package ftc.evlib.hardware.motors;
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+import com.qualcomm.robotcore.hardware.DcMotorSimple;
+
+/**
+ * This file was made by the electronVolts, FTC team 7393
+ * Date Created: 10/18/26
+ * <p>
+ * Remembers what was last written to a motor so that the same value is not sent again every loop
+ * <p>
+ * Every write to a motor is a round trip to the motor controller, and most loops command the same thing as the last one.
+ * The mode, target position, and power are staged by the set methods and sent by flush(), once per loop,
+ * and only the ones that changed (the power by more than POWER_EPSILON) are written.
+ * A power of exactly 0 is always written if the last power was not exactly 0, so a motor can always be fully stopped.
+ *
+ * @see Motors
+ */
+public class MotorCommandCache {
+    /**
+     * The smallest change in power that is sent to the motor controller
+     * The controllers only have about 1/100 resolution, so smaller changes do nothing
+     */
+    public static final double POWER_EPSILON = 0.001;
+
+    //the totals for all the motors
+    private static long totalWritesIssued = 0, totalWritesSuppressed = 0;
+
+    private final DcMotorSimple motor;
+    private final DcMotor dcMotor;
+
+    //the values that will be sent by the next flush (primitives so that nothing is boxed every loop)
+    private DcMotor.RunMode mode = null;
+    private int targetPosition = 0;
+    private boolean hasTargetPosition = false;
+    private double power = 0;
+
+    //the values the motor controller is known to have
+    private DcMotor.RunMode lastMode = null;
+    private int lastTargetPosition = 0;
+    private double lastPower = 0;
+    private boolean targetPositionKnown = false, powerKnown = false;
+
+    private long writesIssued = 0, writesSuppressed = 0;
+
+    /**
+     * @param motor the motor or continuous rotation servo to write to (mode and target position are only written to a DcMotor)
+     */
+    public MotorCommandCache(DcMotorSimple motor) {
+        this.motor = motor;
+        if (motor instanceof DcMotor) {
+            dcMotor = (DcMotor) motor;
+        } else {
+            dcMotor = null;
+        }
+    }
+
+    /**
+     * @param mode the mode to send on the next flush
+     */
+    public void setMode(DcMotor.RunMode mode) {
+        if (dcMotor == null) {
+            throw new IllegalStateException("The mode can only be set on a DcMotor");
+        }
+        this.mode = mode;
+    }
+
+    /**
+     * @param targetPosition the target position to send on the next flush
+     */
+    public void setTargetPosition(int targetPosition) {
+        if (dcMotor == null) {
+            throw new IllegalStateException("The target position can only be set on a DcMotor");
+        }
+        this.targetPosition = targetPosition;
+        hasTargetPosition = true;
+    }
+
+    /**
+     * @param power the power to send on the next flush
+     */
+    public void setPower(double power) {
+        this.power = power;
+    }
+
+    /**
+     * Send the staged commands that are different from what the motor controller has
+     * The mode is sent first, then the target position, then the power.
+     */
+    public void flush() {
+        if (mode != null) {
+            if (mode != lastMode) {
+                dcMotor.setMode(mode);
+                //read the mode back so a failed write is retried next loop
+                lastMode = dcMotor.getMode();
+                issued();
+            } else {
+                suppressed();
+            }
+        }
+
+        if (hasTargetPosition) {
+            if (!targetPositionKnown || targetPosition != lastTargetPosition) {
+                dcMotor.setTargetPosition(targetPosition);
+                lastTargetPosition = targetPosition;
+                targetPositionKnown = true;
+                issued();
+            } else {
+                suppressed();
+            }
+        }
+
+        //the mode and target position have to be staged again before the next flush
+        mode = null;
+        hasTargetPosition = false;
+
+        if (!powerKnown || powerChanged(lastPower, power)) {
+            motor.setPower(power);
+            lastPower = power;
+            powerKnown = true;
+            issued();
+        } else {
+            suppressed();
+        }
+    }
+
+    private static boolean powerChanged(double lastPower, double power) {
+        if (power == 0) return lastPower != 0;
+        return Math.abs(power - lastPower) > POWER_EPSILON;
+    }
+
+    /**
+     * Forget what the motor controller has, so everything is sent on the next flush
+     * Call this after writing to the motor without going through this class.
+     */
+    public void invalidate() {
+        lastMode = null;
+        targetPositionKnown = false;
+        powerKnown = false;
+    }
+
+    private void issued() {
+        writesIssued++;
+        totalWritesIssued++;
+    }
+
+    private void suppressed() {
+        writesSuppressed++;
+        totalWritesSuppressed++;
+    }
+
+    /**
+     * @return the number of writes sent to this motor
+     */
+    public long getWritesIssued() {
+        return writesIssued;
+    }
+
+    /**
+     * @return the number of writes to this motor that were skipped because the value had not changed
+     */
+    public long getWritesSuppressed() {
+        return writesSuppressed;
+    }
+
+    /**
+     * @return the number of writes sent to all the motors
+     */
+    public static long getTotalWritesIssued() {
+        return totalWritesIssued;
+    }
+
+    /**
+     * @return the number of writes to all the motors that were skipped because the value had not changed
+     */
+    public static long getTotalWritesSuppressed() {
+        return totalWritesSuppressed;
+    }
+
+    public static void resetTotals() {
+        totalWritesIssued = 0;
+        totalWritesSuppressed = 0;
+    }
+}
@@ -0,0 +1,274 @@
+package ftc.evlib.hardware.motors;
+
+import android.util.Log;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This file was made by the electronVolts, FTC team 7393
+ * Date Created: 10/18/26
+ * <p>
+ * Applies settings to motors and waits for the motor controllers to report them, with a limit on how long it waits
+ * <p>
+ * Each motor has a Sequence of Steps that have to be done in order, such as setting the mode and then the direction.
+ * All the motors are configured at the same time: every round writes the current step of every motor,
+ * checks them all, and only waits (once) if one of them is not done, so one slow controller does not hold up the others.
+ * A step that is not done is written again next round, up to maxAttempts times.
+ * The wait between rounds starts at initialBackoffMillis and doubles up to maxBackoffMillis while nothing finishes.
+ * After timeoutMillis, the motors that are not done are given up on and logged.
+ *
+ * @see Motors
+ */
+public class MotorConfigurator {
+    private static final String TAG = "MotorConfigurator";
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 10;
+    public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 2;
+    public static final long DEFAULT_MAX_BACKOFF_MILLIS = 50;
+    public static final long DEFAULT_TIMEOUT_MILLIS = 1000;
+
+    /**
+     * One setting that is written and then read back
+     */
+    public interface Step {
+        /**
+         * Send the setting to the motor controller
+         */
+        void write();
+
+        /**
+         * @return whether or not the motor controller reports the setting
+         */
+        boolean isDone();
+    }
+
+    /**
+     * The steps for one motor, done in order
+     * It is also a Stopper, so a stop sequence can be added to a Stoppers object,
+     * which runs all the sequences it has at the same time.
+     */
+    public static class Sequence implements Stopper {
+        private final String name;
+        private final List<Step> steps = new ArrayList<>();
+
+        //the progress through the steps during run()
+        private int step, attempts;
+
+        /**
+         * @param name the name of the motor to use in the log
+         */
+        public Sequence(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @param step the step to add to the end
+         * @return this object, so calls can be chained
+         */
+        public Sequence add(Step step) {
+            steps.add(step);
+            return this;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Run this sequence by itself with the default limits
+         */
+        @Override
+        public void stop() {
+            new MotorConfigurator().run(ImmutableList.of(this));
+        }
+    }
+
+    private final int maxAttempts;
+    private final long initialBackoffMillis, maxBackoffMillis, timeoutMillis;
+
+    private final List<Sequence> pending = new ArrayList<>();
+    private final Map<String, Long> latencies = new LinkedHashMap<>();
+
+    /**
+     * Create a MotorConfigurator with the default limits
+     */
+    public MotorConfigurator() {
+        this(DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_BACKOFF_MILLIS, DEFAULT_MAX_BACKOFF_MILLIS, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param maxAttempts          the number of times a step is written before the motor is given up on
+     * @param initialBackoffMillis the time to wait after writing before reading back
+     * @param maxBackoffMillis     the longest time to wait between rounds
+     * @param timeoutMillis        the time after which all the motors that are not done are given up on
+     */
+    public MotorConfigurator(int maxAttempts, long initialBackoffMillis, long maxBackoffMillis, long timeoutMillis) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+        if (initialBackoffMillis < 0 || maxBackoffMillis < initialBackoffMillis) {
+            throw new IllegalArgumentException("The backoff must be at least 0 and initialBackoffMillis must not be more than maxBackoffMillis");
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Add a sequence to be run by the next call to configure()
+     *
+     * @param sequence the sequence to add
+     */
+    public void add(Sequence sequence) {
+        pending.add(sequence);
+    }
+
+    /**
+     * Run all the sequences that were added, at the same time
+     *
+     * @return true if all of them finished
+     */
+    public boolean configure() {
+        List<Sequence> sequences = new ArrayList<>(pending);
+        pending.clear();
+        return run(sequences);
+    }
+
+    /**
+     * Run some sequences at the same time
+     *
+     * @param sequences the sequences to run
+     * @return true if all of them finished
+     */
+    public boolean run(Collection<Sequence> sequences) {
+        long start = System.nanoTime();
+        long backoff = initialBackoffMillis;
+
+        List<Sequence> active = new ArrayList<>();
+        for (Sequence sequence : sequences) {
+            sequence.step = 0;
+            sequence.attempts = 0;
+            if (sequence.steps.isEmpty()) {
+                latencies.put(sequence.name, 0L);
+            } else {
+                active.add(sequence);
+            }
+        }
+
+        boolean allDone = true;
+        while (!active.isEmpty()) {
+            //write the current step of every motor before waiting for any of them
+            for (Sequence sequence : active) {
+                sequence.steps.get(sequence.step).write();
+                sequence.attempts++;
+            }
+
+            //the controllers often report the setting right away, so only wait if one of them does not
+            boolean progress = advance(active, start);
+            if (isWaiting(active)) {
+                if (!sleep(backoff)) {
+                    for (Sequence sequence : active) {
+                        giveUp(sequence, "because the thread was interrupted");
+                    }
+                    allDone = false;
+                    break;
+                }
+                progress |= advance(active, start);
+            }
+
+            for (int i = active.size() - 1; i >= 0; i--) {
+                Sequence sequence = active.get(i);
+                if (sequence.attempts >= maxAttempts) {
+                    giveUp(sequence, "after " + maxAttempts + " attempts");
+                    active.remove(i);
+                    allDone = false;
+                }
+            }
+
+            if (!active.isEmpty() && (System.nanoTime() - start) / 1000000 > timeoutMillis) {
+                for (Sequence sequence : active) {
+                    giveUp(sequence, "after " + timeoutMillis + " ms");
+                }
+                active.clear();
+                allDone = false;
+            }
+
+            //wait longer only if the controllers are not keeping up
+            if (progress) {
+                backoff = initialBackoffMillis;
+            } else {
+                backoff = Math.min(Math.max(1, backoff * 2), maxBackoffMillis);
+            }
+        }
+        return allDone;
+    }
+
+    /**
+     * Move every sequence whose current step is done to its next step, and remove the ones that are finished
+     * A step that has not been written yet can also be done if the controller already has that setting.
+     *
+     * @return whether or not any sequence moved forward
+     */
+    private boolean advance(List<Sequence> active, long start) {
+        boolean progress = false;
+        for (int i = active.size() - 1; i >= 0; i--) {
+            Sequence sequence = active.get(i);
+            if (sequence.steps.get(sequence.step).isDone()) {
+                progress = true;
+                sequence.step++;
+                sequence.attempts = 0;
+                if (sequence.step >= sequence.steps.size()) {
+                    long latency = (System.nanoTime() - start) / 1000000;
+                    latencies.put(sequence.name, latency);
+                    Log.i(TAG, sequence.name + " configured in " + latency + " ms");
+                    active.remove(i);
+                }
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * @return whether or not any sequence has a step that was written but is not done yet
+     */
+    private static boolean isWaiting(List<Sequence> active) {
+        for (Sequence sequence : active) {
+            if (sequence.attempts > 0) return true;
+        }
+        return false;
+    }
+
+    private void giveUp(Sequence sequence, String reason) {
+        latencies.put(sequence.name, -1L);
+        Log.w(TAG, sequence.name + " gave up on step " + (sequence.step + 1) + " of " + sequence.steps.size() + " " + reason);
+    }
+
+    /**
+     * @return false if the thread was interrupted
+     */
+    private static boolean sleep(long millis) {
+        if (millis <= 0) return true;
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * @return the time in milliseconds each motor took to finish, or -1 if it was given up on, by name
+     */
+    public Map<String, Long> getLatencies() {
+        return Collections.unmodifiableMap(latencies);
+    }
+}
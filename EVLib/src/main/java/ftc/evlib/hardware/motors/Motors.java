@@ -10,6 +10,7 @@ import java.util.List;
 
 import ftc.electronvolts.util.Function;
 import ftc.electronvolts.util.Utility;
+import ftc.evlib.hardware.sensors.HardwareSnapshot;
 
 /**
  * This file was made by the electronVolts, FTC team 7393
@@ -127,19 +128,16 @@ public class Motors {
     }
 
     /**
-     * Initialize a dcMotor by setting parameters and checking that they were set properly
+     * Add the steps to initialize a dcMotor to a sequence
      *
+     * @param sequence the sequence to add the steps to
      * @param dcMotor  the motor to initialize
      * @param reversed whether or not the motor direction should be reversed
      * @param brake    whether to brake or float when stopping
      * @param runMode  what mode to start the motor in
+     * @return the sequence
      */
-    private static void dcMotorInit(DcMotor dcMotor, boolean reversed, boolean brake, DcMotor.RunMode runMode) {
-        //reset the encoder position to zero
-        do {
-            dcMotor.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
-        } while (dcMotor.getMode() != DcMotor.RunMode.STOP_AND_RESET_ENCODER);
-
+    private static MotorConfigurator.Sequence dcMotorInit(MotorConfigurator.Sequence sequence, DcMotor dcMotor, boolean reversed, boolean brake, DcMotor.RunMode runMode) {
         //determine the motor's direction as a Direction object
         DcMotor.Direction direction;
         if (reversed) {
@@ -148,16 +146,6 @@ public class Motors {
             direction = DcMotorSimple.Direction.FORWARD;
         }
 
-        //set the motor's direction
-        do {
-            dcMotor.setDirection(direction);
-        } while (dcMotor.getDirection() != direction);
-
-        //set the motor's mode
-        do {
-            dcMotor.setMode(runMode);
-        } while (dcMotor.getMode() != runMode);
-
         //determine the ZeroPowerBehavior
         DcMotor.ZeroPowerBehavior zeroPowerBehavior;
         if (brake) {
@@ -166,10 +154,107 @@ public class Motors {
             zeroPowerBehavior = DcMotor.ZeroPowerBehavior.FLOAT;
         }
 
-        //set the motor's ZeroPowerBehavior
-        do {
-            dcMotor.setZeroPowerBehavior(zeroPowerBehavior);
-        } while (dcMotor.getZeroPowerBehavior() != zeroPowerBehavior);
+        //reset the encoder position to zero, then set the direction, mode, and ZeroPowerBehavior
+        return sequence
+                .add(modeStep(dcMotor, DcMotor.RunMode.STOP_AND_RESET_ENCODER))
+                .add(directionStep(dcMotor, direction))
+                .add(modeStep(dcMotor, runMode))
+                .add(zeroPowerBehaviorStep(dcMotor, zeroPowerBehavior));
+    }
+
+    private static MotorConfigurator.Step modeStep(final DcMotor dcMotor, final DcMotor.RunMode runMode) {
+        return new MotorConfigurator.Step() {
+            @Override
+            public void write() {
+                dcMotor.setMode(runMode);
+            }
+
+            @Override
+            public boolean isDone() {
+                return dcMotor.getMode() == runMode;
+            }
+        };
+    }
+
+    private static MotorConfigurator.Step directionStep(final DcMotorSimple motor, final DcMotorSimple.Direction direction) {
+        return new MotorConfigurator.Step() {
+            @Override
+            public void write() {
+                motor.setDirection(direction);
+            }
+
+            @Override
+            public boolean isDone() {
+                return motor.getDirection() == direction;
+            }
+        };
+    }
+
+    private static MotorConfigurator.Step zeroPowerBehaviorStep(final DcMotor dcMotor, final DcMotor.ZeroPowerBehavior zeroPowerBehavior) {
+        return new MotorConfigurator.Step() {
+            @Override
+            public void write() {
+                dcMotor.setZeroPowerBehavior(zeroPowerBehavior);
+            }
+
+            @Override
+            public boolean isDone() {
+                return dcMotor.getZeroPowerBehavior() == zeroPowerBehavior;
+            }
+        };
+    }
+
+    private static MotorConfigurator.Step maxSpeedStep(final DcMotor dcMotor, final int maxEncoderTicksPerSecond) {
+        return new MotorConfigurator.Step() {
+            @Override
+            public void write() {
+                dcMotor.setMaxSpeed(maxEncoderTicksPerSecond);
+            }
+
+            @Override
+            public boolean isDone() {
+                return dcMotor.getMaxSpeed() == maxEncoderTicksPerSecond;
+            }
+        };
+    }
+
+    /**
+     * A step that sets the power to 0 and then forgets the commands the cache remembers, since they were bypassed
+     */
+    private static MotorConfigurator.Step stopStep(final DcMotor dcMotor, final MotorCommandCache commands) {
+        return new MotorConfigurator.Step() {
+            @Override
+            public void write() {
+                dcMotor.setPower(0);
+                commands.invalidate();
+            }
+
+            @Override
+            public boolean isDone() {
+                return dcMotor.getPower() == 0;
+            }
+        };
+    }
+
+    /**
+     * @return the name of a motor to use in the log if it did not come from the hardware map
+     */
+    private static String dcMotorName(DcMotor dcMotor) {
+        return "DcMotor on port " + dcMotor.getPortNumber();
+    }
+
+    /**
+     * Run a MotorConfigurator that has one motor's settings in it
+     * The motor would otherwise be left with unknown settings, such as the wrong direction or no brake.
+     *
+     * @param configurator the MotorConfigurator with the settings added
+     * @param name         the name of the motor for the error message
+     * @throws IllegalStateException if the motor controller does not report the settings in time
+     */
+    private static void configure(MotorConfigurator configurator, String name) {
+        if (!configurator.configure()) {
+            throw new IllegalStateException("The settings of " + name + " could not be applied (see the MotorConfigurator log)");
+        }
     }
 
     /**
@@ -181,9 +266,29 @@ public class Motors {
      * @param brake                    true if the motor should brake when stopped
      * @param stoppers                 the Stoppers object to add the motor to
      * @return the created MotorEnc
+     * @throws IllegalStateException if the motor controller does not report the settings in time
      */
     public static Motor withoutEncoder(HardwareMap hardwareMap, String dcMotorName, boolean reversed, boolean brake, Stoppers stoppers) {
-        return withoutEncoder(hardwareMap.dcMotor.get(dcMotorName), reversed, brake, stoppers);
+        MotorConfigurator configurator = new MotorConfigurator();
+        Motor motor = withoutEncoder(hardwareMap, dcMotorName, reversed, brake, stoppers, configurator);
+        configure(configurator, dcMotorName);
+        return motor;
+    }
+
+    /**
+     * Create a Motor from the hardware map and add its initialization to a MotorConfigurator
+     * The motor must not be used until configure() is called on the MotorConfigurator.
+     *
+     * @param hardwareMap              the hardwareMap from the opmode
+     * @param dcMotorName              the name of the DcMotor in the hardwareMap
+     * @param reversed                 true if the motor's direction should be reversed
+     * @param brake                    true if the motor should brake when stopped
+     * @param stoppers                 the Stoppers object to add the motor to
+     * @param configurator             the MotorConfigurator that initializes all the motors at the same time
+     * @return the created MotorEnc
+     */
+    public static Motor withoutEncoder(HardwareMap hardwareMap, String dcMotorName, boolean reversed, boolean brake, Stoppers stoppers, MotorConfigurator configurator) {
+        return withoutEncoder(dcMotorName, hardwareMap.dcMotor.get(dcMotorName), reversed, brake, stoppers, configurator);
     }
 
     /**
@@ -194,19 +299,23 @@ public class Motors {
      * @param brake                    true if the motor should brake when stopped
      * @param stoppers                 the Stoppers object to add the motor to
      * @return the created MotorEnc
+     * @throws IllegalStateException if the motor controller does not report the settings in time
      */
-    public static Motor withoutEncoder(final DcMotor dcMotor, boolean reversed, boolean brake, Stoppers stoppers) {
+    public static Motor withoutEncoder(DcMotor dcMotor, boolean reversed, boolean brake, Stoppers stoppers) {
+        MotorConfigurator configurator = new MotorConfigurator();
+        Motor motor = withoutEncoder(dcMotorName(dcMotor), dcMotor, reversed, brake, stoppers, configurator);
+        configure(configurator, dcMotorName(dcMotor));
+        return motor;
+    }
+
+    private static Motor withoutEncoder(String name, final DcMotor dcMotor, boolean reversed, boolean brake, Stoppers stoppers, MotorConfigurator configurator) {
         //initialize the motor with no encoder
-        dcMotorInit(dcMotor, reversed, brake, DcMotor.RunMode.RUN_WITHOUT_ENCODER);
+        configurator.add(dcMotorInit(new MotorConfigurator.Sequence(name), dcMotor, reversed, brake, DcMotor.RunMode.RUN_WITHOUT_ENCODER));
 
-        stoppers.add(new Stopper() {
-            @Override
-            public void stop() {
-                do {
-                    dcMotor.setPower(0);
-                } while (dcMotor.getPower() != 0);
-            }
-        });
+        final MotorCommandCache commands = new MotorCommandCache(dcMotor);
+
+        stoppers.add(new MotorConfigurator.Sequence(name)
+                .add(stopStep(dcMotor, commands)));
 
         return new Motor() {
             private double power = 0;
@@ -223,7 +332,8 @@ public class Motors {
 
             @Override
             public void update() {
-                dcMotor.setPower(Utility.motorLimit(power));
+                commands.setPower(Utility.motorLimit(power));
+                commands.flush();
             }
         };
     }
@@ -276,9 +386,30 @@ public class Motors {
      * @param brake                    true if the motor should brake when stopped
      * @param stoppers                 the Stoppers object to add the motor to
      * @return the created MotorEnc
+     * @throws IllegalStateException if the motor controller does not report the settings in time
      */
     public static MotorEnc withEncoder(HardwareMap hardwareMap, String dcMotorName, int maxEncoderTicksPerSecond, boolean reversed, boolean brake, Stoppers stoppers) {
-        return withEncoder(hardwareMap.dcMotor.get(dcMotorName), maxEncoderTicksPerSecond, reversed, brake, stoppers);
+        MotorConfigurator configurator = new MotorConfigurator();
+        MotorEnc motorEnc = withEncoder(hardwareMap, dcMotorName, maxEncoderTicksPerSecond, reversed, brake, stoppers, configurator);
+        configure(configurator, dcMotorName);
+        return motorEnc;
+    }
+
+    /**
+     * Create a MotorEnc from the hardware map and add its initialization to a MotorConfigurator
+     * The motor must not be used until configure() is called on the MotorConfigurator.
+     *
+     * @param hardwareMap              the hardwareMap from the opmode
+     * @param dcMotorName              the name of the DcMotor in the hardwareMap
+     * @param maxEncoderTicksPerSecond the encoder ticks per second at max power
+     * @param reversed                 true if the motor's direction should be reversed
+     * @param brake                    true if the motor should brake when stopped
+     * @param stoppers                 the Stoppers object to add the motor to
+     * @param configurator             the MotorConfigurator that initializes all the motors at the same time
+     * @return the created MotorEnc
+     */
+    public static MotorEnc withEncoder(HardwareMap hardwareMap, String dcMotorName, int maxEncoderTicksPerSecond, boolean reversed, boolean brake, Stoppers stoppers, MotorConfigurator configurator) {
+        return withEncoder(dcMotorName, hardwareMap.dcMotor.get(dcMotorName), maxEncoderTicksPerSecond, reversed, brake, stoppers, configurator);
     }
 
     /**
@@ -290,30 +421,29 @@ public class Motors {
      * @param brake                    true if the motor should brake when stopped
      * @param stoppers                 the Stoppers object to add the motor to
      * @return the created MotorEnc
+     * @throws IllegalStateException if the motor controller does not report the settings in time
      */
-    public static MotorEnc withEncoder(final DcMotor dcMotor, int maxEncoderTicksPerSecond, boolean reversed, boolean brake, Stoppers stoppers) {
+    public static MotorEnc withEncoder(DcMotor dcMotor, int maxEncoderTicksPerSecond, boolean reversed, boolean brake, Stoppers stoppers) {
+        MotorConfigurator configurator = new MotorConfigurator();
+        MotorEnc motorEnc = withEncoder(dcMotorName(dcMotor), dcMotor, maxEncoderTicksPerSecond, reversed, brake, stoppers, configurator);
+        configure(configurator, dcMotorName(dcMotor));
+        return motorEnc;
+    }
+
+    private static MotorEnc withEncoder(String name, final DcMotor dcMotor, int maxEncoderTicksPerSecond, boolean reversed, boolean brake, Stoppers stoppers, MotorConfigurator configurator) {
         final Motor.Mode initMode = Motor.Mode.SPEED;
-        dcMotorInit(dcMotor, reversed, brake, motorModeToDcMotorRunMode(initMode)); //start with speed mode
+        configurator.add(dcMotorInit(new MotorConfigurator.Sequence(name), dcMotor, reversed, brake, motorModeToDcMotorRunMode(initMode)) //start with speed mode
+                .add(maxSpeedStep(dcMotor, maxEncoderTicksPerSecond)));
 
-        do {
-            dcMotor.setMaxSpeed(maxEncoderTicksPerSecond);
-        } while (dcMotor.getMaxSpeed() != maxEncoderTicksPerSecond);
+        final MotorCommandCache commands = new MotorCommandCache(dcMotor);
 
-        stoppers.add(new Stopper() {
-            @Override
-            public void stop() {
-                do {
-                    dcMotor.setMode(DcMotor.RunMode.RUN_WITHOUT_ENCODER);
-                } while (dcMotor.getMode() != DcMotor.RunMode.RUN_WITHOUT_ENCODER);
-                do {
-                    dcMotor.setPower(0);
-                } while (dcMotor.getPower() != 0);
-            }
-        });
+        stoppers.add(new MotorConfigurator.Sequence(name)
+                .add(modeStep(dcMotor, DcMotor.RunMode.RUN_WITHOUT_ENCODER))
+                .add(stopStep(dcMotor, commands)));
 
         return new MotorEnc() {
-            private int encoderZero = 0, encoderPosition = 0;
-            private Mode mode = initMode, lastMode = initMode;
+            private int encoderZero = 0;
+            private Mode mode = initMode;
             private double power = 0;
             private int encoderTarget = 0;
 
@@ -338,12 +468,13 @@ public class Motors {
 
             @Override
             public void resetEncoder() {
-                encoderZero = encoderPosition;
+                //the encoder is read once per loop by the HardwareSnapshot
+                encoderZero = HardwareSnapshot.getEncoderPosition(dcMotor);
             }
 
             @Override
             public int getEncoderPosition() {
-                return encoderPosition - encoderZero;
+                return HardwareSnapshot.getEncoderPosition(dcMotor) - encoderZero;
             }
 
             @Override
@@ -353,23 +484,126 @@ public class Motors {
 
             @Override
             public void update() {
-                encoderPosition = dcMotor.getCurrentPosition();
-
-                if (mode != lastMode) {
-                    dcMotor.setMode(motorModeToDcMotorRunMode(mode));
-                    lastMode = dcMotorRunModeToMotorMode(dcMotor.getMode());
-                }
-
+                //only the commands that changed are sent
+                commands.setMode(motorModeToDcMotorRunMode(mode));
                 switch (mode) {
                     case POWER:
                         break;
                     case SPEED:
                         break;
                     case POSITION:
-                        dcMotor.setTargetPosition(encoderTarget);
+                        commands.setTargetPosition(encoderTarget);
                         break;
                 }
-                dcMotor.setPower(Utility.motorLimit(power));
+                commands.setPower(Utility.motorLimit(power));
+                commands.flush();
+            }
+        };
+    }
+
+    /**
+     * Create a MotorEnc from the hardware map that controls its speed and position on the phone
+     *
+     * @param hardwareMap  the hardwareMap from the opmode
+     * @param dcMotorName  the name of the DcMotor in the hardwareMap
+     * @param reversed     true if the motor's direction should be reversed
+     * @param brake        true if the motor should brake when stopped
+     * @param stoppers     the Stoppers object to add the motor to
+     * @param control      the speed and position control (each motor needs its own)
+     * @return the created MotorEnc
+     * @throws IllegalStateException if the motor controller does not report the settings in time
+     */
+    public static MotorEnc withSoftwareControl(HardwareMap hardwareMap, String dcMotorName, boolean reversed, boolean brake, Stoppers stoppers, SoftwareMotorControl control) {
+        MotorConfigurator configurator = new MotorConfigurator();
+        MotorEnc motorEnc = withSoftwareControl(hardwareMap, dcMotorName, reversed, brake, stoppers, configurator, control);
+        configure(configurator, dcMotorName);
+        return motorEnc;
+    }
+
+    /**
+     * Create a MotorEnc from the hardware map that controls its speed and position on the phone,
+     * and add its initialization to a MotorConfigurator
+     * The motor must not be used until configure() is called on the MotorConfigurator.
+     *
+     * @param hardwareMap  the hardwareMap from the opmode
+     * @param dcMotorName  the name of the DcMotor in the hardwareMap
+     * @param reversed     true if the motor's direction should be reversed
+     * @param brake        true if the motor should brake when stopped
+     * @param stoppers     the Stoppers object to add the motor to
+     * @param configurator the MotorConfigurator that initializes all the motors at the same time
+     * @param control      the speed and position control (each motor needs its own)
+     * @return the created MotorEnc
+     */
+    public static MotorEnc withSoftwareControl(HardwareMap hardwareMap, String dcMotorName, boolean reversed, boolean brake, Stoppers stoppers, MotorConfigurator configurator, SoftwareMotorControl control) {
+        return withSoftwareControl(dcMotorName, hardwareMap.dcMotor.get(dcMotorName), reversed, brake, stoppers, configurator, control);
+    }
+
+    /**
+     * Create a MotorEnc from a DcMotor that controls its speed and position on the phone
+     *
+     * @param dcMotor  the DcMotor to be wrapped
+     * @param reversed true if the motor's direction should be reversed
+     * @param brake    true if the motor should brake when stopped
+     * @param stoppers the Stoppers object to add the motor to
+     * @param control  the speed and position control (each motor needs its own)
+     * @return the created MotorEnc
+     * @throws IllegalStateException if the motor controller does not report the settings in time
+     */
+    public static MotorEnc withSoftwareControl(DcMotor dcMotor, boolean reversed, boolean brake, Stoppers stoppers, SoftwareMotorControl control) {
+        MotorConfigurator configurator = new MotorConfigurator();
+        MotorEnc motorEnc = withSoftwareControl(dcMotorName(dcMotor), dcMotor, reversed, brake, stoppers, configurator, control);
+        configure(configurator, dcMotorName(dcMotor));
+        return motorEnc;
+    }
+
+    private static MotorEnc withSoftwareControl(String name, final DcMotor dcMotor, boolean reversed, boolean brake, Stoppers stoppers, MotorConfigurator configurator, final SoftwareMotorControl control) {
+        //the motor controller only ever runs the motor in power mode
+        configurator.add(dcMotorInit(new MotorConfigurator.Sequence(name), dcMotor, reversed, brake, DcMotor.RunMode.RUN_WITHOUT_ENCODER));
+
+        final MotorCommandCache commands = new MotorCommandCache(dcMotor);
+
+        stoppers.add(new MotorConfigurator.Sequence(name)
+                .add(stopStep(dcMotor, commands)));
+
+        return new MotorEnc() {
+            private int encoderZero = 0;
+
+            @Override
+            public void setPower(double power) {
+                control.setPower(power);
+            }
+
+            @Override
+            public void setSpeed(double speed) {
+                control.setSpeed(speed);
+            }
+
+            @Override
+            public void setPosition(int encoderTarget, double maxCorrectionPower) {
+                //the control uses the raw encoder position
+                control.setPosition(encoderTarget + encoderZero, maxCorrectionPower);
+            }
+
+            @Override
+            public void resetEncoder() {
+                encoderZero = HardwareSnapshot.getEncoderPosition(dcMotor);
+            }
+
+            @Override
+            public int getEncoderPosition() {
+                return HardwareSnapshot.getEncoderPosition(dcMotor) - encoderZero;
+            }
+
+            @Override
+            public Mode getMode() {
+                return control.getMode();
+            }
+
+            @Override
+            public void update() {
+                double power = control.update(System.nanoTime(), HardwareSnapshot.getEncoderPosition(dcMotor));
+                commands.setPower(Utility.motorLimit(power));
+                commands.flush();
             }
         };
     }
@@ -380,6 +614,7 @@ public class Motors {
      * @param crServo  the servo to be wrapped as a motor
      * @param reversed true if the servo should be reversed
      * @return the Motor wrapper class
+     * @throws IllegalStateException if the servo controller does not report the direction in time
      */
     public static Motor continuousServo(final CRServo crServo, boolean reversed) {
         DcMotorSimple.Direction direction;
@@ -389,9 +624,12 @@ public class Motors {
             direction = DcMotorSimple.Direction.FORWARD;
         }
 
-        do {
-            crServo.setDirection(direction);
-        } while (crServo.getDirection() != direction);
+        String name = "CRServo on port " + crServo.getPortNumber();
+        MotorConfigurator configurator = new MotorConfigurator();
+        configurator.add(new MotorConfigurator.Sequence(name).add(directionStep(crServo, direction)));
+        configure(configurator, name);
+
+        final MotorCommandCache commands = new MotorCommandCache(crServo);
 
         return new Motor() {
             private double power = 0;
@@ -408,7 +646,8 @@ public class Motors {
 
             @Override
             public void update() {
-                crServo.setPower(power);
+                commands.setPower(power);
+                commands.flush();
             }
         };
     }
@@ -1,7 +1,5 @@
 package ftc.evlib.hardware.motors;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 import ftc.electronvolts.util.Utility;
@@ -12,7 +10,8 @@ import ftc.electronvolts.util.units.Velocity;
  * Date Created: 9/12/16
  * <p/>
  * A general controller for a collection of N motors.
- * Knows how to run the motors given a list of Doubles.
+ * Knows how to run the motors given an array or a list of Doubles.
+ * The array methods do not allocate, so they are the ones to call every loop.
  * Can normalize the powers/speeds before running if requested.
  * Subclasses can have fixed numbers of motors
  *
@@ -47,6 +46,11 @@ public class NMotors {
     private final double[] values;
     private final int[] encoders;
 
+    /**
+     * the buffer that the normalized values and the values from lists are put in
+     */
+    private final double[] scratch;
+
     /**
      * @param motors        the list of motors
      * @param useSpeedMode  true if encoder-regulated speed mode is desired
@@ -66,6 +70,7 @@ public class NMotors {
         this.maxRobotSpeed = maxRobotSpeed.abs();
         values = new double[motors.size()];
         encoders = new int[motors.size()];
+        scratch = new double[motors.size()];
     }
 
     /**
@@ -87,14 +92,20 @@ public class NMotors {
      * @param values the powers/speeds to be scaled and then run
      */
     public void runNormalized(List<Double> values) {
-        if (values.size() != motors.size()) {
-            throw new IllegalArgumentException("Argument 'values' must have the same length as the number of motors.");
-        }
+        runNormalized(copyToScratch(values));
+    }
 
-        //if the inputs are too high, scale them
-        double highest = 0;
+    /**
+     * scale all the motor values if any one power is above the maximum of 1
+     * does not allocate or modify the array
+     *
+     * @param values the powers/speeds to be scaled and then run
+     */
+    public void runNormalized(double[] values) {
+        checkLength(values.length);
 
         //find the magnitude of the number with the highest magnitude
+        double highest = 0;
         for (double n : values) {
             if (Math.abs(n) > highest) {
                 highest = Math.abs(n);
@@ -105,13 +116,12 @@ public class NMotors {
             highest = 1;
         }
 
-        //rescale the values by the highest value
-        List<Double> valuesScaled = new ArrayList<>();
-        for (double power : values) {
-            valuesScaled.add(power / highest);
+        //rescale the values by the highest value (values may be the scratch buffer itself)
+        for (int i = 0; i < values.length; i++) {
+            scratch[i] = values[i] / highest;
         }
 
-        run(valuesScaled);
+        run(scratch);
     }
 
     /**
@@ -120,13 +130,21 @@ public class NMotors {
      * @param values the raw values to send to the motors
      */
     public void run(List<Double> values) {
-        if (values.size() != motors.size()) {
-            throw new IllegalArgumentException("Argument 'values' must have the same length as the number of motors.");
-        }
+        run(copyToScratch(values));
+    }
+
+    /**
+     * run the motors with raw power/speed
+     * does not allocate or modify the array
+     *
+     * @param values the raw values to send to the motors
+     */
+    public void run(double[] values) {
+        checkLength(values.length);
 
         //set the motor powers/speeds of each motor
-        for (int i = 0; i < motors.size(); i++) {
-            Double value = Utility.motorLimit(values.get(i));
+        for (int i = 0; i < values.length; i++) {
+            double value = Utility.motorLimit(values[i]);
             if (useSpeedMode) {
                 MotorEnc motorEnc = ((MotorEnc) motors.get(i));
                 motorEnc.setSpeed(value);
@@ -138,6 +156,33 @@ public class NMotors {
         }
     }
 
+    /**
+     * unbox a list of values into the scratch buffer
+     *
+     * @param values the list of values
+     * @return the scratch buffer
+     */
+    private double[] copyToScratch(List<Double> values) {
+        checkLength(values.size());
+        for (int i = 0; i < scratch.length; i++) {
+            scratch[i] = values.get(i);
+        }
+        return scratch;
+    }
+
+    private void checkLength(int length) {
+        if (length != motors.size()) {
+            throw new IllegalArgumentException("Argument 'values' must have the same length as the number of motors.");
+        }
+    }
+
+    /**
+     * @return the number of motors
+     */
+    public int getNumMotors() {
+        return scratch.length;
+    }
+
     /**
      * @param i the index of the motor to read the value from
      * @return the values most recently sent to the motors
@@ -158,8 +203,11 @@ public class NMotors {
      * stop all the motors
      */
     public void stop() {
-        //create a list of the same length as motors filled with zeroes
-        run(new ArrayList<>(Collections.nCopies(motors.size(), 0.0)));
+        //fill the scratch buffer with zeroes
+        for (int i = 0; i < scratch.length; i++) {
+            scratch[i] = 0;
+        }
+        run(scratch);
     }
 
     /**
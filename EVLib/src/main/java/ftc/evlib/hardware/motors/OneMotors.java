@@ -13,15 +13,20 @@ import ftc.electronvolts.util.units.Velocity;
  * @see NMotors
  */
 public class OneMotors extends NMotors {
+    //the values passed to run, reused so that running the motors does not allocate
+    private final double[] buffer = new double[1];
+
     public OneMotors(Motor motor, boolean useSpeedMode, Velocity maxRobotSpeed) {
         super(ImmutableList.of(motor), useSpeedMode, maxRobotSpeed);
     }
 
     public void runMotorsNormalized(double value) {
-        runNormalized(ImmutableList.of(value));
+        buffer[0] = value;
+        runNormalized(buffer);
     }
 
     public void runMotors(double value) {
-        run(ImmutableList.of(value));
+        buffer[0] = value;
+        run(buffer);
     }
 }
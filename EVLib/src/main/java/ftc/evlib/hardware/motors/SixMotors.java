@@ -13,15 +13,30 @@ import ftc.electronvolts.util.units.Velocity;
  * @see NMotors
  */
 public class SixMotors extends NMotors {
+    //the values passed to run, reused so that running the motors does not allocate
+    private final double[] buffer = new double[6];
+
     public SixMotors(Motor frontLeftMotor, Motor frontRightMotor, Motor middleLeftMotor, Motor middleRightMotor, Motor backLeftMotor, Motor backRightMotor, boolean useSpeedMode, Velocity maxRobotSpeed) {
         super(ImmutableList.of(frontLeftMotor, frontRightMotor, middleLeftMotor, middleRightMotor, backLeftMotor, backRightMotor), useSpeedMode, maxRobotSpeed);
     }
 
     public void runMotorsNormalized(double flValue, double frValue, double mlValue, double mrValue, double blValue, double brValue) {
-        runNormalized(ImmutableList.of(flValue, frValue, mlValue, mrValue, blValue, brValue));
+        buffer[0] = flValue;
+        buffer[1] = frValue;
+        buffer[2] = mlValue;
+        buffer[3] = mrValue;
+        buffer[4] = blValue;
+        buffer[5] = brValue;
+        runNormalized(buffer);
     }
 
     public void runMotors(double flValue, double frValue, double mlValue, double mrValue, double blValue, double brValue) {
-        run(ImmutableList.of(flValue, frValue, mlValue, mrValue, blValue, brValue));
+        buffer[0] = flValue;
+        buffer[1] = frValue;
+        buffer[2] = mlValue;
+        buffer[3] = mrValue;
+        buffer[4] = blValue;
+        buffer[5] = brValue;
+        run(buffer);
     }
 }
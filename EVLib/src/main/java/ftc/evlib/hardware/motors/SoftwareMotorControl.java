@@ -0,0 +1,349 @@
+package ftc.evlib.hardware.motors;
+
+/**
+ * This file was made by the electronVolts, FTC team 7393
+ * Date Created: 10/18/26
+ * <p>
+ * Controls the speed or position of a motor on the phone instead of on the motor controller
+ * <p>
+ * The motor is run in power mode, and every update() turns the encoder position into a power.
+ * This avoids the slow loop on the motor controller and the delay when its mode is changed.
+ * The power is the feed-forward (kStatic, kV, and kA) for where the motor should be, plus a PID on the error:
+ * <ul>
+ * <li>in speed mode, the target speed is ramped by maxAcceleration and the PID corrects the speed</li>
+ * <li>in position mode, a trapezoidal motion profile moves toward the target and the PID corrects the position</li>
+ * </ul>
+ * A maxAcceleration of 0 turns the ramp and the profile off.
+ * A new output is computed at most once per period, and the measured time step is used,
+ * so the gains do not depend on how fast the op mode loops.
+ * All the state is primitive, so update() does not allocate.
+ * <p>
+ * Speeds are in encoder ticks per second and accelerations are in encoder ticks per second squared.
+ *
+ * @see Motors#withSoftwareControl(com.qualcomm.robotcore.hardware.HardwareMap, String, boolean, boolean, Stoppers, SoftwareMotorControl)
+ */
+public class SoftwareMotorControl {
+    public static final long DEFAULT_PERIOD_MILLIS = 10;
+
+    /**
+     * The fraction of each new speed measurement used to update the filtered speed
+     */
+    private static final double SPEED_FILTER = 0.5;
+
+    /**
+     * The PID gains for one loop
+     */
+    public static class Gains {
+        public final double kP, kI, kD;
+
+        public Gains(double kP, double kI, double kD) {
+            this.kP = kP;
+            this.kI = kI;
+            this.kD = kD;
+        }
+    }
+
+    /**
+     * The power needed to move the motor at a speed and acceleration without any correction
+     * power = kStatic * sign(speed) + kV * speed + kA * acceleration
+     */
+    public static class FeedForward {
+        public final double kStatic, kV, kA;
+
+        /**
+         * @param kStatic the power needed to overcome friction
+         * @param kV      the power per encoder tick per second
+         * @param kA      the power per encoder tick per second squared
+         */
+        public FeedForward(double kStatic, double kV, double kA) {
+            this.kStatic = kStatic;
+            this.kV = kV;
+            this.kA = kA;
+        }
+
+        /**
+         * @param maxTicksPerSecond the speed of the motor at a power of 1
+         * @return a FeedForward for a motor whose speed is proportional to its power
+         */
+        public static FeedForward fromMaxSpeed(double maxTicksPerSecond) {
+            return new FeedForward(0, 1 / maxTicksPerSecond, 0);
+        }
+    }
+
+    private final double maxTicksPerSecond, maxAcceleration;
+    private final Gains speedGains, positionGains;
+    private final FeedForward feedForward;
+    private final long periodNanos;
+
+    //the command
+    private Motor.Mode mode = Motor.Mode.POWER;
+    private double power = 0, targetSpeed = 0, maxPower = 1;
+    private int targetPosition = 0;
+    private boolean modeChanged = false;
+
+    //the measurements
+    private boolean started = false;
+    private long lastTime = 0;
+    private int position = 0;
+    private double speed = 0;
+
+    //where the motor should be now
+    private double setpointPosition = 0, setpointSpeed = 0, setpointAcceleration = 0;
+
+    //the PID state
+    private double integral = 0, lastError = 0;
+
+    private double output = 0;
+
+    /**
+     * @param maxTicksPerSecond the encoder ticks per second at a power of 1
+     * @param maxAcceleration   the max acceleration in encoder ticks per second squared (0 for none)
+     * @param speedGains        the PID gains for speed mode (the error is in ticks per second)
+     * @param positionGains     the PID gains for position mode (the error is in ticks)
+     * @param feedForward       the feed-forward for both modes
+     */
+    public SoftwareMotorControl(double maxTicksPerSecond, double maxAcceleration, Gains speedGains, Gains positionGains, FeedForward feedForward) {
+        this(maxTicksPerSecond, maxAcceleration, speedGains, positionGains, feedForward, DEFAULT_PERIOD_MILLIS);
+    }
+
+    /**
+     * @param maxTicksPerSecond the encoder ticks per second at a power of 1
+     * @param maxAcceleration   the max acceleration in encoder ticks per second squared (0 for none)
+     * @param speedGains        the PID gains for speed mode (the error is in ticks per second)
+     * @param positionGains     the PID gains for position mode (the error is in ticks)
+     * @param feedForward       the feed-forward for both modes
+     * @param periodMillis      the shortest time between new outputs
+     */
+    public SoftwareMotorControl(double maxTicksPerSecond, double maxAcceleration, Gains speedGains, Gains positionGains, FeedForward feedForward, long periodMillis) {
+        if (maxTicksPerSecond <= 0) {
+            throw new IllegalArgumentException("maxTicksPerSecond must be positive");
+        }
+        if (maxAcceleration < 0) {
+            throw new IllegalArgumentException("maxAcceleration must not be negative");
+        }
+        this.maxTicksPerSecond = maxTicksPerSecond;
+        this.maxAcceleration = maxAcceleration;
+        this.speedGains = speedGains;
+        this.positionGains = positionGains;
+        this.feedForward = feedForward;
+        this.periodNanos = periodMillis * 1000000;
+    }
+
+    /**
+     * @param power the power to run the motor at with no control
+     */
+    public void setPower(double power) {
+        setMode(Motor.Mode.POWER);
+        this.power = power;
+    }
+
+    /**
+     * @param speed the fraction of the max speed to run at, from -1 to 1
+     */
+    public void setSpeed(double speed) {
+        setMode(Motor.Mode.SPEED);
+        targetSpeed = Math.max(-1, Math.min(1, speed)) * maxTicksPerSecond;
+    }
+
+    /**
+     * @param targetPosition the encoder position to turn to
+     * @param maxPower       the max power to use, which is also the fraction of the max speed of the motion profile
+     */
+    public void setPosition(int targetPosition, double maxPower) {
+        setMode(Motor.Mode.POSITION);
+        this.targetPosition = targetPosition;
+        this.maxPower = Math.min(1, Math.abs(maxPower));
+    }
+
+    private void setMode(Motor.Mode mode) {
+        if (mode != this.mode) {
+            this.mode = mode;
+            modeChanged = true;
+        }
+    }
+
+    /**
+     * Compute the power to send to the motor
+     *
+     * @param nanoTime        the time from System.nanoTime()
+     * @param encoderPosition the encoder position
+     * @return the power
+     */
+    public double update(long nanoTime, int encoderPosition) {
+        if (!started) {
+            started = true;
+            lastTime = nanoTime;
+            position = encoderPosition;
+            speed = 0;
+            resetSetpoint();
+            output = mode == Motor.Mode.POWER ? power : 0;
+            return output;
+        }
+
+        long elapsed = nanoTime - lastTime;
+        if (elapsed < periodNanos && !modeChanged) {
+            //between periods, hold the output unless there is no control to hold
+            if (mode == Motor.Mode.POWER) output = power;
+            return output;
+        }
+        double dt = elapsed / 1e9;
+        if (dt <= 0) return output;
+
+        //measure the speed
+        double measuredSpeed = (encoderPosition - position) / dt;
+        speed += SPEED_FILTER * (measuredSpeed - speed);
+        position = encoderPosition;
+        lastTime = nanoTime;
+
+        if (modeChanged) {
+            modeChanged = false;
+            resetSetpoint();
+        }
+
+        switch (mode) {
+            case SPEED:
+                stepSpeedSetpoint(dt);
+                output = control(setpointSpeed - speed, dt, speedGains, 1);
+                break;
+            case POSITION:
+                stepPositionSetpoint(dt);
+                output = control(setpointPosition - position, dt, positionGains, maxPower);
+                break;
+            default:
+                output = power;
+                break;
+        }
+        return output;
+    }
+
+    /**
+     * Start the setpoint from where the motor is, so changing modes does not jerk the motor
+     */
+    private void resetSetpoint() {
+        setpointPosition = position;
+        setpointSpeed = speed;
+        setpointAcceleration = 0;
+        integral = 0;
+        lastError = 0;
+    }
+
+    /**
+     * Ramp the setpoint speed toward the target speed
+     */
+    private void stepSpeedSetpoint(double dt) {
+        double newSpeed = targetSpeed;
+        if (maxAcceleration > 0) {
+            double maxChange = maxAcceleration * dt;
+            newSpeed = setpointSpeed + Math.max(-maxChange, Math.min(maxChange, targetSpeed - setpointSpeed));
+        }
+        setpointAcceleration = (newSpeed - setpointSpeed) / dt;
+        setpointSpeed = newSpeed;
+        setpointPosition = position;
+    }
+
+    /**
+     * Move the setpoint along a trapezoidal profile toward the target position
+     * The profile is recomputed every step from where the setpoint is, so the target can change at any time.
+     */
+    private void stepPositionSetpoint(double dt) {
+        if (maxAcceleration <= 0) {
+            setpointPosition = targetPosition;
+            setpointSpeed = 0;
+            setpointAcceleration = 0;
+            return;
+        }
+
+        double remaining = targetPosition - setpointPosition;
+        double maxSpeed = maxPower * maxTicksPerSecond;
+
+        //the fastest speed that can still stop at the target
+        double stoppingSpeed = Math.signum(remaining) * Math.sqrt(2 * maxAcceleration * Math.abs(remaining));
+        double desiredSpeed = Math.max(-maxSpeed, Math.min(maxSpeed, stoppingSpeed));
+
+        double maxChange = maxAcceleration * dt;
+        double newSpeed = setpointSpeed + Math.max(-maxChange, Math.min(maxChange, desiredSpeed - setpointSpeed));
+        setpointPosition += (setpointSpeed + newSpeed) / 2 * dt;
+
+        //stop at the target instead of going past it
+        if (Math.signum(targetPosition - setpointPosition) != Math.signum(remaining)) {
+            setpointPosition = targetPosition;
+            newSpeed = 0;
+        }
+
+        setpointAcceleration = (newSpeed - setpointSpeed) / dt;
+        setpointSpeed = newSpeed;
+    }
+
+    /**
+     * @param error    the error for the PID
+     * @param dt       the time step in seconds
+     * @param gains    the PID gains
+     * @param maxPower the limit on the output
+     * @return the feed-forward plus the PID correction
+     */
+    private double control(double error, double dt, Gains gains, double maxPower) {
+        double feedForwardPower = feedForward.kStatic * Math.signum(setpointSpeed)
+                + feedForward.kV * setpointSpeed
+                + feedForward.kA * setpointAcceleration;
+
+        double derivative = (error - lastError) / dt;
+        lastError = error;
+
+        double unlimited = feedForwardPower + gains.kP * error + gains.kI * (integral + error * dt) + gains.kD * derivative;
+
+        //only integrate when the output is not saturated, so the integral does not wind up
+        if (Math.abs(unlimited) < maxPower) {
+            integral += error * dt;
+        }
+        return Math.max(-maxPower, Math.min(maxPower, unlimited));
+    }
+
+    public Motor.Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return the last power computed by update()
+     */
+    public double getOutput() {
+        return output;
+    }
+
+    /**
+     * @return the filtered speed in encoder ticks per second
+     */
+    public double getSpeed() {
+        return speed;
+    }
+
+    /**
+     * @return the position the motion profile is at
+     */
+    public double getSetpointPosition() {
+        return setpointPosition;
+    }
+
+    /**
+     * @return the speed the motor should be at in encoder ticks per second
+     */
+    public double getSetpointSpeed() {
+        return setpointSpeed;
+    }
+
+    /**
+     * @param tolerance the max distance from the target in encoder ticks
+     * @return whether or not the motion profile has finished and the motor is within the tolerance of the target
+     */
+    public boolean isAtTarget(int tolerance) {
+        return mode == Motor.Mode.POSITION && setpointPosition == targetPosition && Math.abs(targetPosition - position) <= tolerance;
+    }
+
+    /**
+     * Forget the measurements, so the next update() starts over (for example after the encoder is reset)
+     */
+    public void reset() {
+        started = false;
+        modeChanged = false;
+        output = 0;
+    }
+}
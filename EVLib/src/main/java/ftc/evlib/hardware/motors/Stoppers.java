@@ -50,10 +50,17 @@ public class Stoppers {
 
     /**
      * Loop through all the stoppers and stop each one
+     * The motor stop sequences are run at the same time, so one slow motor controller does not hold up the others
      */
     public void stop() {
+        List<MotorConfigurator.Sequence> sequences = new ArrayList<>();
         for (Stopper stopper : stoppers) {
-            stopper.stop();
+            if (stopper instanceof MotorConfigurator.Sequence) {
+                sequences.add((MotorConfigurator.Sequence) stopper);
+            } else {
+                stopper.stop();
+            }
         }
+        new MotorConfigurator().run(sequences);
     }
 }
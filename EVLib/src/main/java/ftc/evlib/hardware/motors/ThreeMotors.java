@@ -13,15 +13,24 @@ import ftc.electronvolts.util.units.Velocity;
  * @see NMotors
  */
 public class ThreeMotors extends NMotors {
+    //the values passed to run, reused so that running the motors does not allocate
+    private final double[] buffer = new double[3];
+
     public ThreeMotors(Motor motor1, Motor motor2, Motor motor3, boolean useSpeedMode, Velocity maxRobotSpeed) {
         super(ImmutableList.of(motor1, motor2, motor3), useSpeedMode, maxRobotSpeed);
     }
 
     public void runMotorsNormalized(double value1, double value2, double value3) {
-        runNormalized(ImmutableList.of(value1, value2, value3));
+        buffer[0] = value1;
+        buffer[1] = value2;
+        buffer[2] = value3;
+        runNormalized(buffer);
     }
 
     public void runMotors(double value1, double value2, double value3) {
-        run(ImmutableList.of(value1, value2, value3));
+        buffer[0] = value1;
+        buffer[1] = value2;
+        buffer[2] = value3;
+        run(buffer);
     }
 }
@@ -13,15 +13,22 @@ import ftc.electronvolts.util.units.Velocity;
  * @see NMotors
  */
 public class TwoMotors extends NMotors {
+    //the values passed to run, reused so that running the motors does not allocate
+    private final double[] buffer = new double[2];
+
     public TwoMotors(Motor leftMotor, Motor rightMotor, boolean useSpeedMode, Velocity maxRobotSpeed) {
         super(ImmutableList.of(leftMotor, rightMotor), useSpeedMode, maxRobotSpeed);
     }
 
     public void runMotorsNormalized(double leftValue, double rightValue) {
-        runNormalized(ImmutableList.of(leftValue, rightValue));
+        buffer[0] = leftValue;
+        buffer[1] = rightValue;
+        runNormalized(buffer);
     }
 
     public void runMotors(double leftValue, double rightValue) {
-        run(ImmutableList.of(leftValue, rightValue));
+        buffer[0] = leftValue;
+        buffer[1] = rightValue;
+        run(buffer);
     }
 }
@@ -0,0 +1,270 @@
+package ftc.evlib.hardware.sensors;
+
+import com.qualcomm.robotcore.hardware.AnalogInput;
+import com.qualcomm.robotcore.hardware.DcMotor;
+import com.qualcomm.robotcore.hardware.DigitalChannel;
+import com.qualcomm.robotcore.hardware.GyroSensor;
+import com.qualcomm.robotcore.hardware.TouchSensor;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This file was made by the electronVolts, FTC team 7393
+ * Date Created: 10/18/26
+ * <p>
+ * Reads the encoders and sensors once per loop and gives the same values to everything that asks during that loop
+ * <p>
+ * Every read is a transaction with a controller, and the same encoder or gyro is often read
+ * several times per loop by the motors, the controls, and the end conditions.
+ * Each device is added the first time it is read, and from then on refresh() reads the ones that were asked for
+ * in the last loop in one pass, with the devices on the same motor controller read back to back.
+ * A device that was not asked for in the last loop (such as a sensor only used by a state that is done)
+ * is not read by refresh(), but is read the next time it is asked for.
+ * The get methods return the value from this loop, so all the reads in a loop agree with each other.
+ * <p>
+ * AbstractOp calls clear() before the RobotCfg is created and when it stops, and refresh() at the start of every loop.
+ * The cached values are only used by the thread that called refresh(), and only until MAX_REFRESH_AGE_NANOS
+ * after it. Otherwise (for example in an op mode that does not extend AbstractOp, or in a LinearOpMode)
+ * the get methods read the hardware every time, so a value from an earlier op mode is never returned.
+ *
+ * @see ftc.evlib.opmodes.AbstractOp
+ */
+public class HardwareSnapshot {
+    /**
+     * One value that is read from the hardware
+     */
+    private static abstract class Reading {
+        //the loop the value was read in
+        private long loop = -1;
+        //the last loop the value was asked for
+        private long lastRequested = 0;
+
+        abstract void read();
+    }
+
+    private static abstract class IntReading extends Reading {
+        private int value;
+
+        abstract int readHardware();
+
+        @Override
+        void read() {
+            value = readHardware();
+        }
+    }
+
+    private static abstract class DoubleReading extends Reading {
+        private double value;
+
+        abstract double readHardware();
+
+        @Override
+        void read() {
+            value = readHardware();
+        }
+    }
+
+    private static abstract class BooleanReading extends Reading {
+        private boolean value;
+
+        abstract boolean readHardware();
+
+        @Override
+        void read() {
+            value = readHardware();
+        }
+    }
+
+    //the readings grouped by the controller they are read from
+    private static final Map<Object, List<Reading>> readingsByController = new LinkedHashMap<>();
+    //the reading for each device, so a device is only read once
+    private static final Map<Object, Reading> readingsByDevice = new IdentityHashMap<>();
+
+    /**
+     * How long after a refresh() its values are used, in nanoseconds (much longer than a loop)
+     */
+    public static final long MAX_REFRESH_AGE_NANOS = 500000000L;
+
+    //the number of times refresh() has been called (0 means the values are read every time)
+    private static long loop = 0;
+    //the thread that called refresh() and when, so the cache is not used by anything else or after it stops
+    private static Thread refreshThread = null;
+    private static long lastRefreshNanos = 0;
+
+    /**
+     * Read every device that was asked for in the last loop, one controller at a time
+     */
+    public static void refresh() {
+        loop++;
+        refreshThread = Thread.currentThread();
+        lastRefreshNanos = System.nanoTime();
+        for (List<Reading> readings : readingsByController.values()) {
+            for (int i = 0; i < readings.size(); i++) {
+                Reading reading = readings.get(i);
+                //skip devices nothing is using anymore
+                if (reading.lastRequested < loop - 1) continue;
+                reading.read();
+                reading.loop = loop;
+            }
+        }
+    }
+
+    /**
+     * Forget all the devices, and go back to reading the hardware every time until refresh() is called
+     * This is called when an op mode starts and stops, since the devices may have changed.
+     */
+    public static void clear() {
+        readingsByController.clear();
+        readingsByDevice.clear();
+        loop = 0;
+        refreshThread = null;
+    }
+
+    /**
+     * @return whether or not the values from the last refresh() can be used by the calling thread
+     */
+    private static boolean isFresh() {
+        return loop > 0 && refreshThread == Thread.currentThread() && System.nanoTime() - lastRefreshNanos < MAX_REFRESH_AGE_NANOS;
+    }
+
+    /**
+     * @return the number of times refresh() has been called since clear()
+     */
+    public static long getLoop() {
+        return loop;
+    }
+
+    /**
+     * @return the number of devices that have been read since clear() (refresh() only reads the ones still in use)
+     */
+    public static int getNumDevices() {
+        return readingsByDevice.size();
+    }
+
+    /**
+     * Add a reading if the device does not have one yet
+     *
+     * @param controller the controller the device is attached to, used to group the reads
+     * @param device     the device
+     * @param reading    the reading to add
+     * @return the reading for the device
+     */
+    private static Reading add(Object controller, Object device, Reading reading) {
+        Reading existing = readingsByDevice.get(device);
+        if (existing != null) return existing;
+
+        readingsByDevice.put(device, reading);
+        List<Reading> readings = readingsByController.get(controller);
+        if (readings == null) {
+            readings = new ArrayList<>();
+            readingsByController.put(controller, readings);
+        }
+        readings.add(reading);
+        return reading;
+    }
+
+    /**
+     * Make sure a reading is from this loop
+     */
+    private static void update(Reading reading) {
+        reading.lastRequested = loop;
+        if (!isFresh() || reading.loop != loop) {
+            reading.read();
+            reading.loop = loop;
+        }
+    }
+
+    /**
+     * @param dcMotor the motor
+     * @return the encoder position from this loop
+     */
+    public static int getEncoderPosition(final DcMotor dcMotor) {
+        Reading reading = readingsByDevice.get(dcMotor);
+        if (reading == null) {
+            reading = add(dcMotor.getController(), dcMotor, new IntReading() {
+                @Override
+                int readHardware() {
+                    return dcMotor.getCurrentPosition();
+                }
+            });
+        }
+        update(reading);
+        return ((IntReading) reading).value;
+    }
+
+    /**
+     * @param gyro the gyro sensor
+     * @return the heading in degrees from this loop
+     */
+    public static int getHeading(final GyroSensor gyro) {
+        Reading reading = readingsByDevice.get(gyro);
+        if (reading == null) {
+            reading = add(gyro, gyro, new IntReading() {
+                @Override
+                int readHardware() {
+                    return gyro.getHeading();
+                }
+            });
+        }
+        update(reading);
+        return ((IntReading) reading).value;
+    }
+
+    /**
+     * @param analogInput the analog input
+     * @return the voltage from this loop
+     */
+    public static double getVoltage(final AnalogInput analogInput) {
+        Reading reading = readingsByDevice.get(analogInput);
+        if (reading == null) {
+            reading = add(analogInput, analogInput, new DoubleReading() {
+                @Override
+                double readHardware() {
+                    return analogInput.getVoltage();
+                }
+            });
+        }
+        update(reading);
+        return ((DoubleReading) reading).value;
+    }
+
+    /**
+     * @param digitalChannel the digital input
+     * @return the state from this loop
+     */
+    public static boolean getState(final DigitalChannel digitalChannel) {
+        Reading reading = readingsByDevice.get(digitalChannel);
+        if (reading == null) {
+            reading = add(digitalChannel, digitalChannel, new BooleanReading() {
+                @Override
+                boolean readHardware() {
+                    return digitalChannel.getState();
+                }
+            });
+        }
+        update(reading);
+        return ((BooleanReading) reading).value;
+    }
+
+    /**
+     * @param touchSensor the touch sensor
+     * @return whether or not it was pressed in this loop
+     */
+    public static boolean isPressed(final TouchSensor touchSensor) {
+        Reading reading = readingsByDevice.get(touchSensor);
+        if (reading == null) {
+            reading = add(touchSensor, touchSensor, new BooleanReading() {
+                @Override
+                boolean readHardware() {
+                    return touchSensor.isPressed();
+                }
+            });
+        }
+        update(reading);
+        return ((BooleanReading) reading).value;
+    }
+}
@@ -48,7 +48,7 @@ public class Sensors {
         return new AnalogSensor() {
             @Override
             public Double getValue() {
-                double voltage = analogInput.getVoltage();
+                double voltage = HardwareSnapshot.getVoltage(analogInput);
                 if (voltage == 0) {
                     return Double.MAX_VALUE;
                 } else {
@@ -156,7 +156,7 @@ public class Sensors {
         return new DigitalSensor() {
             @Override
             public Boolean getValue() {
-                return digitalChannel.getState();
+                return HardwareSnapshot.getState(digitalChannel);
             }
         };
     }
@@ -171,7 +171,7 @@ public class Sensors {
         return new DigitalSensor() {
             @Override
             public Boolean getValue() {
-                return touchSensor.isPressed();
+                return HardwareSnapshot.isPressed(touchSensor);
             }
         };
     }
@@ -7,6 +7,7 @@ import ftc.electronvolts.util.files.Logger;
 import ftc.electronvolts.util.units.Time;
 import ftc.evlib.driverstation.Telem;
 import ftc.evlib.hardware.config.RobotCfg;
+import ftc.evlib.hardware.sensors.HardwareSnapshot;
 import ftc.evlib.hardware.servos.Servos;
 import ftc.evlib.util.FileUtil;
 
@@ -108,6 +109,7 @@ public abstract class AbstractOp<Type extends RobotCfg> extends OpMode {
     @Override
     public void init() {
         Telem.telemetry = telemetry; //store the telemetry in a global location
+        HardwareSnapshot.clear(); //forget the devices from the last opmode
 
         robotCfg = createRobotCfg(); //ask the OpMode for the HardwareCfg object
         servos = robotCfg.getServos(); //create the servos object
@@ -120,6 +122,7 @@ public abstract class AbstractOp<Type extends RobotCfg> extends OpMode {
 
     @Override
     public void init_loop() {
+        HardwareSnapshot.refresh(); //read all the sensors and encoders once for this loop
         setup_act();
     }
 
@@ -134,6 +137,7 @@ public abstract class AbstractOp<Type extends RobotCfg> extends OpMode {
 
     @Override
     public void loop() {
+        HardwareSnapshot.refresh(); //read all the sensors and encoders once for this loop
         double deltaTime = matchTimer.update(); //update the delta time since the last loop
         telemetry.addData("Delta Time: ", deltaTime);
 
@@ -165,6 +169,7 @@ public abstract class AbstractOp<Type extends RobotCfg> extends OpMode {
         if (logger != null) logger.stop();
 
         end();
+        HardwareSnapshot.clear(); //so the next opmode does not get the values from this one
     }
 
 }
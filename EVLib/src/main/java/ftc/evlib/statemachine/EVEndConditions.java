@@ -11,6 +11,7 @@ import ftc.evlib.hardware.sensors.AnalogSensor;
 import ftc.evlib.hardware.sensors.ColorSensor;
 import ftc.evlib.hardware.sensors.DistanceSensor;
 import ftc.evlib.hardware.sensors.DoubleLineSensor;
+import ftc.evlib.hardware.sensors.HardwareSnapshot;
 import ftc.evlib.hardware.sensors.LineFinder;
 import ftc.evlib.hardware.sensors.LineSensorArray;
 
@@ -200,7 +201,7 @@ public class EVEndConditions extends EndConditions {
 
             @Override
             public boolean isDone() {
-                Vector2D gyroVector = new Vector2D(1, Angle.fromDegrees(gyro.getHeading()));
+                Vector2D gyroVector = new Vector2D(1, Angle.fromDegrees(HardwareSnapshot.getHeading(gyro)));
                 Angle separation = Vector2D.signedAngularSeparation(targetVector, gyroVector);
                 return Math.abs(separation.radians()) <= tolerance.radians();
             }
@@ -223,12 +224,12 @@ public class EVEndConditions extends EndConditions {
 
             @Override
             public void init() {
-                gyroInit = gyro.getHeading();
+                gyroInit = HardwareSnapshot.getHeading(gyro);
             }
 
             @Override
             public boolean isDone() {
-                Vector2D gyroVector = new Vector2D(1, Angle.fromDegrees(gyro.getHeading() - gyroInit));
+                Vector2D gyroVector = new Vector2D(1, Angle.fromDegrees(HardwareSnapshot.getHeading(gyro) - gyroInit));
                 Angle separation = Vector2D.signedAngularSeparation(targetVector, gyroVector);
                 return Math.abs(separation.degrees()) <= tolerance.degrees();
             }
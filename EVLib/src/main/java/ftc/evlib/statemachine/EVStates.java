@@ -39,6 +39,7 @@ import ftc.evlib.hardware.sensors.DoubleLineSensor;
 import ftc.evlib.hardware.sensors.LineSensorArray;
 import ftc.evlib.hardware.servos.ServoControl;
 import ftc.evlib.hardware.servos.Servos;
+import ftc.evlib.vision.framegrabber.FrameGovernor;
 import ftc.evlib.vision.framegrabber.FrameGrabber;
 import ftc.evlib.vision.framegrabber.VuforiaFrameFeeder;
 import ftc.evlib.vision.processors.BeaconColorResult;
@@ -119,6 +120,19 @@ public class EVStates extends States {
         };
     }
 
+    /**
+     * Set the policy of the FrameGrabber's governor if it has one
+     *
+     * @param frameGrabber the FrameGrabber
+     * @param policy       the policy for the active state
+     */
+    private static void setGovernorPolicy(FrameGrabber frameGrabber, FrameGovernor.Policy policy) {
+        FrameGovernor governor = frameGrabber.getGovernor();
+        if (governor != null) {
+            governor.setPolicy(policy);
+        }
+    }
+
     /**
      * Uses vuforia to find the beacon target image, then uses opencv to determine the beacon color
      *
@@ -130,7 +144,7 @@ public class EVStates extends States {
      * @param vuforiaReceiver   the ResultReceiver to get the VuforiaFramFeeder object from
      * @param beaconColorResult the ResultReceiver to store the result in
      * @param teamColor         your team's color to decide which beacons to look for
-     * @param numFrames         the number of frames to process
+     * @param numFrames         the max number of frames to process (it stops sooner if the colors are clear)
      * @param saveImages        whether or not to save the frames for logging
      * @return the created State
      * @see VuforiaFrameFeeder
@@ -177,12 +191,15 @@ public class EVStates extends States {
                     VuforiaTrackable beacon = beacons.get(beaconName);
                     beacon.getTrackables().activate();
 
+                    //the vuforia beacon corners are in full resolution pixels
+                    setGovernorPolicy(frameGrabber, FrameGovernor.FULL_RESOLUTION);
                     frameGrabber.setImageProcessor(processor);
                     frameGrabber.setSaveImages(saveImages);
                     frameGrabber.grabContinuousFrames();
                 }
                 timedOut = timeout.isDone();
-                return timedOut || processor != null && processor.getResultsFound() >= numFrames;
+                //stop early once the colors are known well enough
+                return timedOut || processor != null && (processor.getResultsFound() >= numFrames || processor.isConfident());
             }
 
             @Override
@@ -281,18 +298,41 @@ public class EVStates extends States {
      * @param lostObjectState the state to go to if it cannot find the beacon
      * @param timeoutState    the state to go to if it times out
      * @param timeoutMillis   the number of milliseconds before the timeout
-     * @param mecanumControl  the mecanum wheels
+     * @param mecanumControl  the mecanum wheels (call setGyro() on it to make up for the robot turning while a frame is processed)
+     * @param frameGrabber    access to the camera frames
+     * @param imageProcessor  finds the object (a TrackingImageProcessor gives smoother results at a higher frame rate)
+     * @return the created State
+     */
+    public static State mecanumCameraTrack(StateName stateName, StateName doneState, StateName lostObjectState, StateName timeoutState, long timeoutMillis, MecanumControl mecanumControl, FrameGrabber frameGrabber, ImageProcessor<? extends Location> imageProcessor) {
+        return mecanumCameraTrack(stateName, doneState, lostObjectState, timeoutState, timeoutMillis, mecanumControl, frameGrabber, imageProcessor, FrameGovernor.FULL_RESOLUTION);
+    }
+
+    /**
+     * use the camera to detect and drive up to the beacon at a chosen resolution and frame rate
+     *
+     * @param stateName       the name of the state
+     * @param doneState       the state to go to if it works
+     * @param lostObjectState the state to go to if it cannot find the beacon
+     * @param timeoutState    the state to go to if it times out
+     * @param timeoutMillis   the number of milliseconds before the timeout
+     * @param mecanumControl  the mecanum wheels (call setGyro() on it to make up for the robot turning while a frame is processed)
      * @param frameGrabber    access to the camera frames
+     * @param imageProcessor  finds the object (a TrackingImageProcessor gives smoother results at a higher frame rate)
+     * @param governorPolicy  the resolution and frame rate to process at, used if the frameGrabber has a governor
+     *                        (only lower the resolution for processors that do not depend on pixel sizes,
+     *                        BeaconFinder's circle matching expects full resolution pixel areas)
      * @return the created State
      */
-    public static State mecanumCameraTrack(StateName stateName, final StateName doneState, final StateName lostObjectState, final StateName timeoutState, long timeoutMillis, final MecanumControl mecanumControl, final FrameGrabber frameGrabber, ImageProcessor<? extends Location> imageProcessor) {
+    public static State mecanumCameraTrack(StateName stateName, final StateName doneState, final StateName lostObjectState, final StateName timeoutState, long timeoutMillis, final MecanumControl mecanumControl, final FrameGrabber frameGrabber, ImageProcessor<? extends Location> imageProcessor, final FrameGovernor.Policy governorPolicy) {
         mecanumControl.setDriveMode(MecanumMotors.MecanumDriveMode.NORMALIZED);
-        final TranslationControl beaconTrackingControl = TranslationControls.cameraTracking(frameGrabber, imageProcessor);
+        //move each result forward by the robot's motion since its frame was taken
+        final TranslationControl beaconTrackingControl = TranslationControls.cameraTracking(frameGrabber, imageProcessor, mecanumControl.getMotionHistory());
         final long timeoutTime = System.currentTimeMillis() + timeoutMillis;
 
         return new BasicAbstractState(stateName) {
             @Override
             public void init() {
+                setGovernorPolicy(frameGrabber, governorPolicy);
                 mecanumControl.setTranslationControl(beaconTrackingControl);
             }
 
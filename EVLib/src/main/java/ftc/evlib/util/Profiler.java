@@ -0,0 +1,247 @@
+package ftc.evlib.util;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * This file was made by the electronVolts, FTC team 7393
+ * Date Created: 10/18/26
+ *
+ * Records how long named stages take without logging every time
+ *
+ * Each stage is identified by a tag (usually the class or processor) and a name.
+ * The last durations of each stage are kept in a preallocated ring buffer,
+ * so recording a duration does not allocate or build strings once the stage exists.
+ * The percentiles are only computed when they are asked for, or in the periodic summary.
+ * Looking up a stage that exists does not lock, and recording only locks the stage itself,
+ * so threads recording different stages do not wait for each other.
+ * Code that records in a tight loop should keep the Stage from getStage() and call Stage.record() directly.
+ *
+ * @see StepTimer
+ */
+public class Profiler {
+    private static final String TAG = "Profiler";
+
+    /**
+     * The number of durations each stage remembers
+     */
+    public static final int CAPACITY = 256;
+
+    /**
+     * The durations of one stage
+     */
+    public static class Stage {
+        private final String tag, name;
+        private final long[] durations = new long[CAPACITY];
+        private final long[] sorted = new long[CAPACITY];
+        private int next = 0, size = 0;
+        private long count = 0;
+
+        private Stage(String tag, String name) {
+            this.tag = tag;
+            this.name = name;
+        }
+
+        /**
+         * @param nanos the duration in nanoseconds
+         */
+        public synchronized void record(long nanos) {
+            durations[next] = nanos;
+            next = (next + 1) % CAPACITY;
+            if (size < CAPACITY) size++;
+            count++;
+        }
+
+        /**
+         * @param percentile the percentile from 0 to 1
+         * @return the duration at that percentile of the remembered durations in milliseconds, or 0 if there are none
+         */
+        public synchronized double getPercentile(double percentile) {
+            if (size == 0) return 0;
+            System.arraycopy(durations, 0, sorted, 0, size);
+            Arrays.sort(sorted, 0, size);
+            int index = (int) Math.ceil(percentile * size) - 1;
+            return sorted[Math.max(0, Math.min(size - 1, index))] / 1000000.0;
+        }
+
+        /**
+         * @return the mean of the remembered durations in milliseconds, or 0 if there are none
+         */
+        public synchronized double getMean() {
+            if (size == 0) return 0;
+            long total = 0;
+            for (int i = 0; i < size; i++) {
+                total += durations[i];
+            }
+            return total / 1000000.0 / size;
+        }
+
+        /**
+         * @return the number of durations recorded since the stage was created or reset
+         */
+        public synchronized long getCount() {
+            return count;
+        }
+
+        synchronized void reset() {
+            next = 0;
+            size = 0;
+            count = 0;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String toString() {
+            return tag + " " + name + ": n=" + getCount() + " p50=" + String.format("%.2f", getPercentile(0.50)) +
+                    " p95=" + String.format("%.2f", getPercentile(0.95)) + " p99=" + String.format("%.2f", getPercentile(0.99)) + " ms";
+        }
+    }
+
+    //tag -> name -> stage
+    private static final ConcurrentMap<String, ConcurrentMap<String, Stage>> stagesByTag = new ConcurrentHashMap<>();
+    //all the stages in the order they were created (only written when a stage is created)
+    private static final List<Stage> stages = new CopyOnWriteArrayList<>();
+
+    private static volatile long summaryIntervalNanos = 5000000000L;
+    private static volatile long lastSummary = System.nanoTime();
+
+    /**
+     * Get a stage, creating it the first time
+     * Keep the stage to skip the lookup when recording in a tight loop
+     *
+     * @param tag  the tag of the stage
+     * @param name the name of the stage
+     * @return the stage
+     */
+    public static Stage getStage(String tag, String name) {
+        ConcurrentMap<String, Stage> byName = stagesByTag.get(tag);
+        if (byName != null) {
+            Stage stage = byName.get(name);
+            if (stage != null) return stage;
+        }
+
+        //only creating a stage takes the lock, so the list stays in the order the stages were created
+        synchronized (stages) {
+            byName = stagesByTag.get(tag);
+            if (byName == null) {
+                byName = new ConcurrentHashMap<>();
+                stagesByTag.put(tag, byName);
+            }
+            Stage stage = byName.get(name);
+            if (stage == null) {
+                stage = new Stage(tag, name);
+                byName.put(name, stage);
+                stages.add(stage);
+            }
+            return stage;
+        }
+    }
+
+    /**
+     * Record a duration and log the summary if it is time to
+     *
+     * @param tag   the tag of the stage
+     * @param name  the name of the stage
+     * @param nanos the duration in nanoseconds
+     */
+    public static void record(String tag, String name, long nanos) {
+        record(getStage(tag, name), nanos);
+    }
+
+    /**
+     * Record a duration in a stage that was already looked up and log the summary if it is time to
+     *
+     * @param stage the stage from getStage()
+     * @param nanos the duration in nanoseconds
+     */
+    public static void record(Stage stage, long nanos) {
+        stage.record(nanos);
+        logSummaryIfDue();
+    }
+
+    /**
+     * Log the summary if the summary interval has passed since the last one
+     */
+    public static void logSummaryIfDue() {
+        long interval = summaryIntervalNanos;
+        if (interval <= 0) return;
+        long now = System.nanoTime();
+        if (now - lastSummary >= interval) {
+            lastSummary = now;
+            logSummary();
+        }
+    }
+
+    /**
+     * Log the percentiles of every stage
+     */
+    public static void logSummary() {
+        for (Stage stage : getStages()) {
+            if (stage.getCount() > 0) {
+                Log.i(TAG, stage.toString());
+            }
+        }
+    }
+
+    /**
+     * @return a copy of the list of stages in the order they were created
+     */
+    public static List<Stage> getStages() {
+        return new ArrayList<>(stages);
+    }
+
+    /**
+     * @param tag the tag
+     * @return the stages with that tag in the order they were created
+     */
+    public static List<Stage> getStages(String tag) {
+        List<Stage> result = new ArrayList<>();
+        for (Stage stage : getStages()) {
+            if (stage.tag.equals(tag)) {
+                result.add(stage);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param summaryIntervalMillis the time between summaries in the log in milliseconds, 0 to disable them
+     */
+    public static void setSummaryInterval(long summaryIntervalMillis) {
+        summaryIntervalNanos = summaryIntervalMillis * 1000000L;
+    }
+
+    /**
+     * Clear the durations of the stages with a tag
+     *
+     * @param tag the tag
+     */
+    public static void reset(String tag) {
+        for (Stage stage : getStages(tag)) {
+            stage.reset();
+        }
+    }
+
+    /**
+     * Clear the durations of every stage
+     */
+    public static void reset() {
+        for (Stage stage : getStages()) {
+            stage.reset();
+        }
+        lastSummary = System.nanoTime();
+    }
+}
@@ -1,20 +1,27 @@
 package ftc.evlib.util;
 
-import android.util.Log;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * This file was made by the electronVolts, FTC team 7393
  * Date Created: 8/26/16
  *
- * Records and logs the time it takes to complete a certain step in an algorithm
+ * Records the time it takes to complete a certain step in an algorithm
+ * The times are recorded in the Profiler instead of being logged every step
+ * The Profiler stages are kept by name, so after the first frame a step is recorded without going through the Profiler's maps.
+ * Step names should be constants, so no strings are built every frame.
+ * A StepTimer should only be used by one thread.
+ *
+ * @see Profiler
  */
 public class StepTimer {
     private final String tag;
+    private final Map<String, Profiler.Stage> stages = new HashMap<>();
     private long timer;
 
     /**
-     * @param tag the tag to give to the android logging
-     *            You can search for the tag in the logs to find messages generated by your code
+     * @param tag the tag to record the steps under in the Profiler
      */
     public StepTimer(String tag) {
         this.tag = tag;
@@ -29,12 +36,18 @@ public class StepTimer {
     }
 
     /**
-     * Log the name of the step and the time since it started
+     * Record the time since the step started in the Profiler
      *
      * @param message the name of the step
      */
     public void log(String message) {
-        Log.i(tag, "TIME: " + message + ": " + String.valueOf(get()) + " ms");
+        long nanos = System.nanoTime() - timer;
+        Profiler.Stage stage = stages.get(message);
+        if (stage == null) {
+            stage = Profiler.getStage(tag, message);
+            stages.put(message, stage);
+        }
+        Profiler.record(stage, nanos);
     }
 
     /**
@@ -0,0 +1,123 @@
+package ftc.evlib.vision;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+
+import java.util.List;
+
+/**
+ * This file was made by the electronVolts, FTC team 7393
+ * Date Created: 10/18/26
+ *
+ * Classifies every pixel of an HSV image into up to 8 colors at once using lookup tables
+ *
+ * Each color is a box of min and max HSV values, the same as the ones given to ImageUtil.hsvInRange,
+ * including the rollover on the hue channel.
+ * A box is the intersection of a hue range, a saturation range, and a value range, so a table is built
+ * for each channel that gives the set of colors (one bit per color) that each channel value is in.
+ * Classifying is then one table lookup for all 3 channels followed by and-ing the 3 results together,
+ * instead of 1 or 2 calls to Core.inRange per color.
+ *
+ * The output is a label image where bit i of each pixel is set if the pixel is in color i.
+ *
+ * The temporary images are reused, so one ColorClassifier should not be used by multiple threads.
+ *
+ * @see ImageUtil#hsvInRange(Mat, Scalar, Scalar, Mat)
+ */
+public class ColorClassifier {
+    public static final int MAX_COLORS = 8;
+
+    private final int numColors;
+
+    /**
+     * 1x256 lookup table with 3 channels (h, s, v)
+     */
+    private final Mat lut;
+
+    //temporary images
+    private final Mat channelLabels = new Mat();
+    private final Mat channel = new Mat();
+
+    /**
+     * Build the lookup tables from a list of HSV thresholds
+     *
+     * @param thresholdMin the min HSV for each color (the h value goes from 0 to 179)
+     * @param thresholdMax the max HSV for each color
+     */
+    public ColorClassifier(List<Scalar> thresholdMin, List<Scalar> thresholdMax) {
+        if (thresholdMin.size() != thresholdMax.size()) {
+            throw new IllegalArgumentException("thresholdMin and thresholdMax must be the same size");
+        }
+        numColors = thresholdMin.size();
+        if (numColors > MAX_COLORS) {
+            throw new IllegalArgumentException("ColorClassifier supports at most " + MAX_COLORS + " colors, not " + numColors);
+        }
+
+        byte[] table = new byte[256 * 3];
+        for (int color = 0; color < numColors; color++) {
+            double[] min = thresholdMin.get(color).val;
+            double[] max = thresholdMax.get(color).val;
+            int bit = 1 << color;
+
+            for (int value = 0; value < 256; value++) {
+                //hue, with the same rollover as ImageUtil.hsvInRange
+                boolean inHue;
+                if (max[0] > min[0]) {
+                    inHue = value >= min[0] && value <= max[0];
+                } else {
+                    inHue = value <= 179 && (value >= min[0] || value <= max[0]);
+                }
+                if (inHue) table[value * 3] |= bit;
+
+                //saturation and value
+                for (int c = 1; c < 3; c++) {
+                    if (value >= min[c] && value <= max[c]) {
+                        table[value * 3 + c] |= bit;
+                    }
+                }
+            }
+        }
+
+        lut = new Mat(1, 256, CvType.CV_8UC3);
+        lut.put(0, 0, table);
+    }
+
+    /**
+     * @return the number of colors this classifies into
+     */
+    public int getNumColors() {
+        return numColors;
+    }
+
+    /**
+     * Classify every pixel of an HSV image
+     *
+     * @param hsv    the image in HSV format
+     * @param labels the output image (CV_8UC1) where bit i of each pixel is set if the pixel is in color i
+     */
+    public void classify(Mat hsv, Mat labels) {
+        //look up all 3 channels at once
+        Core.LUT(hsv, lut, channelLabels);
+
+        //a pixel is in a color if all 3 channels are in its ranges
+        Core.extractChannel(channelLabels, labels, 0);
+        Core.extractChannel(channelLabels, channel, 1);
+        Core.bitwise_and(labels, channel, labels);
+        Core.extractChannel(channelLabels, channel, 2);
+        Core.bitwise_and(labels, channel, labels);
+    }
+
+    /**
+     * Get the binary image for one color from a label image
+     *
+     * @param labels the output of classify()
+     * @param color  the index of the color
+     * @param dst    the output binary image (255 where the pixel is in the color, 0 elsewhere)
+     */
+    public void getMask(Mat labels, int color, Mat dst) {
+        Core.bitwise_and(labels, new Scalar(1 << color), dst);
+        Core.compare(dst, new Scalar(0), dst, Core.CMP_GT);
+    }
+}
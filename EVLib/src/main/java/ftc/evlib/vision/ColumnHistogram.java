@@ -0,0 +1,259 @@
+package ftc.evlib.vision;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
+
+import ftc.electronvolts.util.Utility;
+
+/**
+ * This file was made by the electronVolts, FTC team 7393
+ * Date Created: 10/18/26
+ *
+ * Counts the pixels of each label in each column of a label image from ColorClassifier
+ *
+ * All the labels are counted in one pass over the image, into arrays that are kept between frames.
+ * Running sums of the columns are kept so that the mass between any 2 columns is found without a loop.
+ * It can also build an integral image of each label, which gives the mass inside any rectangle.
+ *
+ * The arrays are reused, so one ColumnHistogram should not be used by multiple threads.
+ *
+ * @see ColorClassifier
+ */
+public class ColumnHistogram {
+    private final int numLabels;
+    private final boolean useIntegralImage;
+
+    private int width = 0, height = 0;
+
+    //the pixels of the label image
+    private byte[] pixels = new byte[0];
+
+    //columnSums[label][x] is the number of pixels in column x that have the label
+    private int[][] columnSums;
+
+    //runningSums[label][x] is the number of pixels to the left of column x that have the label
+    private int[][] runningSums;
+
+    //integralImages[label][y * (width + 1) + x] is the number of pixels above and to the left of (x, y) that have the label
+    private int[][] integralImages;
+
+    /**
+     * @param numLabels the number of labels to count (the number of colors in the ColorClassifier)
+     */
+    public ColumnHistogram(int numLabels) {
+        this(numLabels, false);
+    }
+
+    /**
+     * @param numLabels        the number of labels to count (the number of colors in the ColorClassifier)
+     * @param useIntegralImage whether or not to build the integral images used by getMass(int, Rect)
+     */
+    public ColumnHistogram(int numLabels, boolean useIntegralImage) {
+        if (numLabels < 1 || numLabels > ColorClassifier.MAX_COLORS) {
+            throw new IllegalArgumentException("numLabels must be between 1 and " + ColorClassifier.MAX_COLORS + ", not " + numLabels);
+        }
+        this.numLabels = numLabels;
+        this.useIntegralImage = useIntegralImage;
+        columnSums = new int[numLabels][0];
+        runningSums = new int[numLabels][1];
+        integralImages = new int[numLabels][0];
+    }
+
+    /**
+     * Count the labels in every column of an image
+     *
+     * @param labels the label image (CV_8UC1) where bit i of each pixel is set if the pixel has label i
+     */
+    public void compute(Mat labels) {
+        if (labels.type() != CvType.CV_8UC1) {
+            throw new IllegalArgumentException("the label image must be CV_8UC1");
+        }
+        resize(labels.width(), labels.height());
+
+        //copy the whole image in one call
+        labels.get(0, 0, pixels);
+
+        for (int label = 0; label < numLabels; label++) {
+            int[] sums = columnSums[label];
+            for (int x = 0; x < width; x++) {
+                sums[x] = 0;
+            }
+        }
+
+        int i = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int bits = pixels[i++] & 0xFF;
+                //most pixels have no label
+                if (bits == 0) continue;
+                for (int label = 0; label < numLabels; label++) {
+                    if ((bits & (1 << label)) != 0) {
+                        columnSums[label][x]++;
+                    }
+                }
+            }
+        }
+
+        for (int label = 0; label < numLabels; label++) {
+            int[] sums = columnSums[label];
+            int[] running = runningSums[label];
+            for (int x = 0; x < width; x++) {
+                running[x + 1] = running[x] + sums[x];
+            }
+        }
+
+        if (useIntegralImage) {
+            computeIntegralImages();
+        }
+    }
+
+    /**
+     * Build the integral image of each label from the pixels
+     * The first row and column are always 0, so they are only cleared when the arrays are created
+     */
+    private void computeIntegralImages() {
+        int stride = width + 1;
+        for (int label = 0; label < numLabels; label++) {
+            int[] integral = integralImages[label];
+            int bit = 1 << label;
+            int i = 0;
+            for (int y = 0; y < height; y++) {
+                int rowSum = 0;
+                int above = y * stride + 1;
+                int here = above + stride;
+                for (int x = 0; x < width; x++) {
+                    if ((pixels[i++] & bit) != 0) rowSum++;
+                    integral[here + x] = integral[above + x] + rowSum;
+                }
+            }
+        }
+    }
+
+    /**
+     * Make the arrays fit an image, only reallocating them if the size changed
+     */
+    private void resize(int width, int height) {
+        if (width == this.width && height == this.height) {
+            return;
+        }
+        this.width = width;
+        this.height = height;
+        pixels = new byte[width * height];
+        columnSums = new int[numLabels][width];
+        runningSums = new int[numLabels][width + 1];
+        if (useIntegralImage) {
+            integralImages = new int[numLabels][(width + 1) * (height + 1)];
+        }
+    }
+
+    public int getNumLabels() {
+        return numLabels;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @param label the label index
+     * @param x     the column
+     * @return the number of pixels in the column that have the label
+     */
+    public int getColumnSum(int label, int x) {
+        return columnSums[label][x];
+    }
+
+    /**
+     * The array is reused, so it is only valid until the next call to compute()
+     *
+     * @param label the label index
+     * @return the number of pixels in each column that have the label
+     */
+    public int[] getColumnSums(int label) {
+        return columnSums[label];
+    }
+
+    /**
+     * Find the number of pixels that have a label between 2 columns
+     *
+     * @param label  the label index
+     * @param startX the first column (inclusive)
+     * @param endX   the last column (exclusive)
+     * @return the number of pixels with the label in the columns, not counting columns outside the image
+     */
+    public int getMass(int label, int startX, int endX) {
+        startX = Math.max(startX, 0);
+        endX = Math.min(endX, width);
+        if (endX <= startX) {
+            return 0;
+        }
+        int[] running = runningSums[label];
+        return running[endX] - running[startX];
+    }
+
+    /**
+     * Find the number of pixels that have a label inside a rectangle
+     * Requires the integral images to be turned on in the constructor
+     *
+     * @param label the label index
+     * @param rect  the rectangle (must be inside the image)
+     * @return the number of pixels with the label in the rectangle
+     */
+    public int getMass(int label, Rect rect) {
+        if (!useIntegralImage) {
+            throw new IllegalStateException("the integral images were not turned on in the constructor");
+        }
+        if (rect.width <= 0 || rect.height <= 0) {
+            return 0;
+        }
+        int stride = width + 1;
+        int[] integral = integralImages[label];
+        int top = rect.y * stride, bottom = (rect.y + rect.height) * stride;
+        int left = rect.x, right = rect.x + rect.width;
+        return integral[bottom + right] - integral[top + right] - integral[bottom + left] + integral[top + left];
+    }
+
+    /**
+     * Write the column sums to a file in the same format as ImageUtil.log2DArray
+     * The first column of the file is the column index and there is one column for each label
+     *
+     * @param dir           the directory to put the file in
+     * @param fileName      the name of the file
+     * @param time          the time to add to the end of the file name
+     * @param fileExtension the file extension
+     * @param titles        the titles of the columns
+     * @return whether or not it worked
+     */
+    public boolean log(File dir, String fileName, long time, String fileExtension, List<String> titles) {
+        File file = new File(dir, fileName + time + fileExtension);
+
+        try {
+            PrintStream printStream = new PrintStream(new FileOutputStream(file));
+            printStream.println(Utility.join(titles, "\t"));
+            StringBuilder line = new StringBuilder();
+            for (int x = 0; x < width; x++) {
+                line.setLength(0);
+                line.append(x);
+                for (int label = 0; label < numLabels; label++) {
+                    line.append('\t').append(columnSums[label][x]);
+                }
+                printStream.println(line);
+            }
+            printStream.close();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package ftc.evlib.vision;
+
+import org.opencv.core.CvType;
+import org.opencv.core.MatOfPoint;
+import org.opencv.core.MatOfPoint2f;
+import org.opencv.core.RotatedRect;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * This file was made by the electronVolts, FTC team 7393
+ * Date Created: 10/18/26
+ *
+ * Decides which contours are circles without copying their points into java
+ *
+ * Contours with fewer than 5 points are rejected, since fitting an ellipse needs at least 5.
+ * The rest are converted to float points in a reused buffer and fit with an ellipse,
+ * which is then checked for area and circularity the same way as before.
+ * There are no other tests before the fit, since none of the cheap ones are safe:
+ * the ellipse fit to an arc or a partly hidden blob can be several times bigger than the contour's
+ * bounding rectangle or area (about 4 times for a quarter arc), and the ratio from the moments of a
+ * half disk is about 0.53, but the ellipse fit to its outline can pass.
+ *
+ * Contours rejected before fitting have no ellipse, so they are not drawn.
+ */
+public class ContourAnalyzer {
+    /**
+     * The result of analyzing a contour
+     */
+    public enum Status {
+        TOO_FEW_POINTS(false),
+        ELLIPSE_REJECTED(true),
+        CIRCLE(true);
+
+        /**
+         * Whether or not an ellipse was fit to the contour
+         */
+        public final boolean hasEllipse;
+
+        Status(boolean hasEllipse) {
+            this.hasEllipse = hasEllipse;
+        }
+    }
+
+    private final double minRatio;
+
+    private final MatOfPoint2f points = new MatOfPoint2f();
+    private RotatedRect ellipse = null;
+
+    private long contoursAnalyzed = 0, ellipsesFit = 0;
+
+    /**
+     * @param minRatio the min ratio of the short side of an ellipse to the long side for it to be a circle
+     */
+    public ContourAnalyzer(double minRatio) {
+        this.minRatio = minRatio;
+    }
+
+    /**
+     * Decide whether or not a contour is a circle with an area in a range
+     *
+     * @param contour   the contour from findContours()
+     * @param frameArea the area the min and max area are relative to
+     * @param minArea   the min area of the ellipse divided by frameArea
+     * @param maxArea   the max area of the ellipse divided by frameArea
+     * @return the result (getEllipse() returns the ellipse if the status has one)
+     */
+    public Status analyze(MatOfPoint contour, double frameArea, double minArea, double maxArea) {
+        contoursAnalyzed++;
+        ellipse = null;
+
+        //fitting an ellipse requires at least 5 points
+        if (contour.total() < 5) {
+            return Status.TOO_FEW_POINTS;
+        }
+
+        //convert MatOfPoint to MatOfPoint2f without copying the points into java
+        contour.convertTo(points, CvType.CV_32F);
+        ellipse = Imgproc.fitEllipse(points);
+        ellipsesFit++;
+
+        //filter out ellipses that are too big or too small
+        double area = ellipse.size.area() / frameArea;
+        if (area < minArea || area > maxArea) {
+            return Status.ELLIPSE_REJECTED;
+        }
+
+        //find the ratio of the shortest side to the longest side
+        double ratio = ellipse.size.width / ellipse.size.height;
+        if (ratio > 1) ratio = 1 / ratio;
+
+        //reject ellipses that are not circular enough
+        if (ratio < minRatio) {
+            return Status.ELLIPSE_REJECTED;
+        }
+        return Status.CIRCLE;
+    }
+
+    /**
+     * @return the ellipse fit by the last call to analyze(), or null if it was rejected before fitting
+     */
+    public RotatedRect getEllipse() {
+        return ellipse;
+    }
+
+    public long getContoursAnalyzed() {
+        return contoursAnalyzed;
+    }
+
+    /**
+     * @return the number of contours that had enough points to be fit with an ellipse
+     */
+    public long getEllipsesFit() {
+        return ellipsesFit;
+    }
+}
@@ -5,6 +5,7 @@ import android.util.Log;
 import org.opencv.core.Core;
 import org.opencv.core.CvType;
 import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint2f;
 import org.opencv.core.Point;
 import org.opencv.core.Rect;
 import org.opencv.core.RotatedRect;
@@ -121,6 +122,25 @@ public class ImageUtil {
         return new Point(r.x + r.width / 2, r.y + r.height / 2);
     }
 
+    /**
+     * Grows a Rect by a margin on every side and limits it to the bounds of an image
+     *
+     * @param r      the Rect
+     * @param margin the fraction of the width and height to add to each side
+     * @param width  the width of the image
+     * @param height the height of the image
+     * @return a new Rect that fits inside the image
+     */
+    public static Rect expandRect(Rect r, double margin, int width, int height) {
+        int dx = (int) (r.width * margin);
+        int dy = (int) (r.height * margin);
+        int minX = (int) Utility.limit(r.x - dx, 0, width);
+        int minY = (int) Utility.limit(r.y - dy, 0, height);
+        int maxX = (int) Utility.limit(r.x + r.width + dx, 0, width);
+        int maxY = (int) Utility.limit(r.y + r.height + dy, 0, height);
+        return new Rect(minX, minY, maxX - minX, maxY - minY);
+    }
+
     /**
      * Finds the center of an OpenCV RotatedRect
      *
@@ -169,10 +189,12 @@ public class ImageUtil {
             vals[0] = 179;
             Scalar max2 = new Scalar(vals);
 
-            Mat tmp1 = new Mat(), tmp2 = new Mat();
-            Core.inRange(srcHSV, min, max2, tmp1);
-            Core.inRange(srcHSV, min2, max, tmp2);
-            Core.bitwise_or(tmp1, tmp2, dst);
+            //the first range goes straight into dst so only one temporary image is needed
+            Mat tmp = new Mat();
+            Core.inRange(srcHSV, min2, max, dst);
+            Core.inRange(srcHSV, min, max2, tmp);
+            Core.bitwise_or(dst, tmp, dst);
+            tmp.release();
         }
     }
 
@@ -211,24 +233,122 @@ public class ImageUtil {
         }
     }
 
+    /**
+     * Creates the affine transform that rotates an image by a multiple of 90 degrees (in the same
+     * direction as the rotate method) and scales it to a new size.
+     * Imgproc.warpAffine can then do both in one pass over the image.
+     * The pixel centers are lined up the same way as Imgproc.resize, so nothing is shifted by a pixel.
+     *
+     * @param srcSize the size of the source image
+     * @param angle   the angle to rotate by (must be a multiple of 90)
+     * @param dstSize the size of the output image
+     * @return the 2x3 affine transform matrix
+     */
+    public static Mat getRightAngleTransform(Size srcSize, int angle, Size dstSize) {
+        angle = angle % 360;
+        if (angle < 0) angle += 360;
+        if (angle % 90 != 0) {
+            throw new IllegalArgumentException("angle must be a multiple of 90, not " + angle);
+        }
+
+        double w = srcSize.width;
+        double h = srcSize.height;
+
+        //3 corners of the source image define the transform
+        Point[] srcCorners = {new Point(0, 0), new Point(w, 0), new Point(0, h)};
+        Point[] dstCorners = new Point[3];
+
+        for (int i = 0; i < 3; i++) {
+            double x = srcCorners[i].x;
+            double y = srcCorners[i].y;
+
+            //rotate the corner clockwise and keep track of the rotated image size
+            double rx, ry, rw, rh;
+            if (angle == 90) {
+                rx = h - y;
+                ry = x;
+                rw = h;
+                rh = w;
+            } else if (angle == 180) {
+                rx = w - x;
+                ry = h - y;
+                rw = w;
+                rh = h;
+            } else if (angle == 270) {
+                rx = y;
+                ry = w - x;
+                rw = h;
+                rh = w;
+            } else {
+                rx = x;
+                ry = y;
+                rw = w;
+                rh = h;
+            }
+
+            //scale to the output size
+            dstCorners[i] = new Point(rx * dstSize.width / rw, ry * dstSize.height / rh);
+        }
+
+        //warpAffine works with pixel indexes, and pixel (0, 0) is centered at (0.5, 0.5) in the coordinates above
+        for (int i = 0; i < 3; i++) {
+            srcCorners[i] = new Point(srcCorners[i].x - 0.5, srcCorners[i].y - 0.5);
+            dstCorners[i] = new Point(dstCorners[i].x - 0.5, dstCorners[i].y - 0.5);
+        }
+
+        MatOfPoint2f src = new MatOfPoint2f(srcCorners);
+        MatOfPoint2f dst = new MatOfPoint2f(dstCorners);
+        Mat transform = Imgproc.getAffineTransform(src, dst);
+        src.release();
+        dst.release();
+        return transform;
+    }
+
+    /**
+     * The writer that saves images in the background, or null to save them on the calling thread
+     */
+    private static volatile ImageWriter imageWriter = null;
+
+    /**
+     * Make saveImage() copy the images and save them in the background
+     *
+     * @param imageWriter the writer to use, or null to save the images on the calling thread
+     */
+    public static void setImageWriter(ImageWriter imageWriter) {
+        ImageUtil.imageWriter = imageWriter;
+    }
+
+    public static ImageWriter getImageWriter() {
+        return imageWriter;
+    }
+
     /**
      * Save an image to a file
+     * If there is an ImageWriter, the image is copied and saved in the background
      *
      * @param tag             logging tag
      * @param mat             image to save
      * @param conversionToBGR openCV code to convert to bgr
      * @param fileSuffix      end of file name
      * @param time            start of file name
-     * @return whether or not the save was successful
+     * @return whether or not the save was successful (or queued, if there is an ImageWriter)
      */
     public static boolean saveImage(String tag, Mat mat, int conversionToBGR, String fileSuffix, long time) {
+        File path = FileUtil.getPicturesDir();
+
+        ImageWriter writer = imageWriter;
+        if (writer != null) {
+            return writer.submit(tag, mat, conversionToBGR, path, time + "_" + fileSuffix);
+        }
+
         Mat bgrMat = new Mat();
         Imgproc.cvtColor(mat, bgrMat, conversionToBGR);
 
-        File path = FileUtil.getPicturesDir();
         File file = new File(path, time + "_" + fileSuffix + ".png");
 
-        if (Imgcodecs.imwrite(file.toString(), bgrMat)) {
+        boolean written = Imgcodecs.imwrite(file.toString(), bgrMat);
+        bgrMat.release();
+        if (written) {
             return true;
         } else {
             Log.e(tag, "FAILED writing image to phone storage");
@@ -0,0 +1,264 @@
+package ftc.evlib.vision;
+
+import android.util.Log;
+
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfInt;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This file was made by the electronVolts, FTC team 7393
+ * Date Created: 10/18/26
+ *
+ * Saves images on a low priority background thread so the frame thread only has to copy them
+ *
+ * The images are copied into a fixed number of buffers that are reused.
+ * When all the buffers are waiting to be written, an image is dropped according to the DropPolicy,
+ * and the number of dropped images is counted.
+ *
+ * Install it with ImageUtil.setImageWriter() to make ImageUtil.saveImage() use it.
+ *
+ * @see ImageUtil#saveImage(String, Mat, int, String, long)
+ */
+public class ImageWriter {
+    private static final String TAG = "ImageWriter";
+
+    public enum Format {
+        /**
+         * PNG with the fastest compression
+         */
+        PNG(".png"),
+        /**
+         * the pixels with a small header (width, height, type, and the conversion to BGR)
+         * this is the fastest, but the files are bigger and need a tool to view
+         */
+        RAW(".raw");
+
+        public final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    public enum DropPolicy {
+        /**
+         * drop the image being saved if there is no room
+         */
+        DROP_NEWEST,
+        /**
+         * drop the oldest image waiting to be written to make room for the new one
+         */
+        DROP_OLDEST
+    }
+
+    private static final int PNG_FASTEST_COMPRESSION = 1;
+
+    /**
+     * An image waiting to be written
+     */
+    private static class Slot {
+        final Mat mat = new Mat();
+        int conversionToBGR;
+        File file;
+        String tag;
+    }
+
+    private final Format format;
+    private final DropPolicy dropPolicy;
+
+    private final BlockingQueue<Slot> free;
+    private final BlockingQueue<Slot> pending;
+
+    private final AtomicInteger written = new AtomicInteger(0);
+    private final AtomicInteger dropped = new AtomicInteger(0);
+    private final AtomicInteger failed = new AtomicInteger(0);
+
+    private final Thread thread;
+
+    /**
+     * @param numBuffers the number of images that can be waiting to be written
+     * @param format     the file format
+     * @param dropPolicy what to do when all the buffers are full
+     */
+    public ImageWriter(int numBuffers, Format format, DropPolicy dropPolicy) {
+        if (numBuffers < 1) {
+            throw new IllegalArgumentException("numBuffers must be at least 1");
+        }
+        this.format = format;
+        this.dropPolicy = dropPolicy;
+
+        free = new ArrayBlockingQueue<>(numBuffers);
+        pending = new ArrayBlockingQueue<>(numBuffers);
+        for (int i = 0; i < numBuffers; i++) {
+            free.add(new Slot());
+        }
+
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeImages();
+            }
+        }, TAG);
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Create an ImageWriter that writes fast PNGs and drops the newest image when full
+     *
+     * @param numBuffers the number of images that can be waiting to be written
+     */
+    public ImageWriter(int numBuffers) {
+        this(numBuffers, Format.PNG, DropPolicy.DROP_NEWEST);
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * Copy an image and add it to the queue to be written
+     *
+     * @param tag             logging tag
+     * @param mat             image to save
+     * @param conversionToBGR openCV code to convert to bgr
+     * @param dir             the directory to put the file in
+     * @param name            the file name without the extension
+     * @return true if the image was added to the queue, false if it was dropped
+     */
+    public boolean submit(String tag, Mat mat, int conversionToBGR, File dir, String name) {
+        Slot slot = free.poll();
+        if (slot == null) {
+            if (dropPolicy == DropPolicy.DROP_OLDEST) {
+                slot = pending.poll();
+            }
+            //the writer thread took the oldest one, or the policy is to drop the newest
+            if (slot == null) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            dropped.incrementAndGet();
+        }
+
+        mat.copyTo(slot.mat);
+        slot.conversionToBGR = conversionToBGR;
+        slot.file = new File(dir, name + format.extension);
+        slot.tag = tag;
+        pending.add(slot);
+        return true;
+    }
+
+    private void writeImages() {
+        Mat bgrMat = new Mat();
+        MatOfInt pngParams = new MatOfInt(Imgcodecs.IMWRITE_PNG_COMPRESSION, PNG_FASTEST_COMPRESSION);
+        byte[] data = new byte[0];
+
+        while (true) {
+            Slot slot;
+            try {
+                slot = pending.take();
+            } catch (InterruptedException e) {
+                //write what is left and stop
+                slot = pending.poll();
+                if (slot == null) {
+                    return;
+                }
+                Thread.currentThread().interrupt();
+            }
+
+            try {
+                boolean success;
+                if (format == Format.PNG) {
+                    Imgproc.cvtColor(slot.mat, bgrMat, slot.conversionToBGR);
+                    success = Imgcodecs.imwrite(slot.file.toString(), bgrMat, pngParams);
+                } else {
+                    int size = (int) (slot.mat.total() * slot.mat.elemSize());
+                    if (data.length < size) {
+                        data = new byte[size];
+                    }
+                    slot.mat.get(0, 0, data);
+                    success = writeRaw(slot, data, size);
+                }
+
+                if (success) {
+                    written.incrementAndGet();
+                } else {
+                    failed.incrementAndGet();
+                    Log.e(slot.tag, "FAILED writing image to phone storage");
+                }
+            } catch (RuntimeException e) {
+                //a bad conversion code throws a CvException, which would otherwise stop this thread
+                failed.incrementAndGet();
+                Log.e(slot.tag, "FAILED writing image " + slot.file, e);
+            } finally {
+                free.add(slot);
+            }
+        }
+    }
+
+    private static boolean writeRaw(Slot slot, byte[] data, int size) {
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(slot.file)));
+            try {
+                out.writeInt(slot.mat.width());
+                out.writeInt(slot.mat.height());
+                out.writeInt(slot.mat.type());
+                out.writeInt(slot.conversionToBGR);
+                out.write(data, 0, size);
+            } finally {
+                out.close();
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Write the images that are waiting and stop the thread
+     * The ImageWriter cannot be used after this
+     */
+    public void close() {
+        thread.interrupt();
+    }
+
+    /**
+     * @return the number of images that were written
+     */
+    public int getWritten() {
+        return written.get();
+    }
+
+    /**
+     * @return the number of images that were dropped because the buffers were full
+     */
+    public int getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * @return the number of images that could not be written
+     */
+    public int getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * @return the number of images waiting to be written
+     */
+    public int getPending() {
+        return pending.size();
+    }
+}
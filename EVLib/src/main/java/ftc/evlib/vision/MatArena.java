@@ -0,0 +1,159 @@
+package ftc.evlib.vision;
+
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint2f;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This file was made by the electronVolts, FTC team 7393
+ * Date Created: 10/18/26
+ *
+ * Hands out temporary Mats for one frame and takes them all back at the end of it
+ *
+ * An ImageProcessor keeps one arena and calls reset() at the start of every frame.
+ * The Mats handed out in the last frame are then reused, so their native buffers are only reallocated if the size changes.
+ * Mats made by OpenCV itself, like the contours from findContours(), can be adopted so they are released at the reset
+ * instead of waiting for the finalizer.
+ *
+ * Mats from the arena are only valid until the next reset, so they must not be returned in a result.
+ *
+ * @see ftc.evlib.vision.processors.LeakDetector
+ */
+public class MatArena {
+    private static final Scalar ZERO = new Scalar(0);
+
+    private final List<Mat> mats = new ArrayList<>();
+    private final List<MatOfPoint2f> pointMats = new ArrayList<>();
+    private final List<Mat> adopted = new ArrayList<>();
+    private int matsUsed = 0, pointMatsUsed = 0;
+    private int allocations = 0;
+
+    /**
+     * Get a temporary Mat for this frame
+     *
+     * @return an empty Mat, or one left over from an earlier frame
+     */
+    public Mat mat() {
+        if (matsUsed == mats.size()) {
+            mats.add(new Mat());
+            allocations++;
+        }
+        return mats.get(matsUsed++);
+    }
+
+    /**
+     * Get a temporary Mat for this frame with a size and type
+     * The contents are not cleared
+     *
+     * @param size the size
+     * @param type the OpenCV type
+     * @return the Mat
+     */
+    public Mat mat(Size size, int type) {
+        Mat mat = mat();
+        mat.create(size, type);
+        return mat;
+    }
+
+    /**
+     * Get a temporary Mat for this frame filled with zeros
+     *
+     * @param size the size
+     * @param type the OpenCV type
+     * @return the Mat
+     */
+    public Mat zeros(Size size, int type) {
+        Mat mat = mat(size, type);
+        mat.setTo(ZERO);
+        return mat;
+    }
+
+    /**
+     * Get a temporary MatOfPoint2f for this frame
+     *
+     * @return an empty MatOfPoint2f, or one left over from an earlier frame
+     */
+    public MatOfPoint2f matOfPoint2f() {
+        if (pointMatsUsed == pointMats.size()) {
+            pointMats.add(new MatOfPoint2f());
+            allocations++;
+        }
+        return pointMats.get(pointMatsUsed++);
+    }
+
+    /**
+     * Release a Mat made somewhere else at the next reset
+     *
+     * @param mat the Mat
+     * @return the same Mat
+     */
+    public <T extends Mat> T adopt(T mat) {
+        adopted.add(mat);
+        return mat;
+    }
+
+    /**
+     * Release a list of Mats made somewhere else at the next reset
+     *
+     * @param mats the Mats
+     * @return the same list
+     */
+    public <T extends List<? extends Mat>> T adoptAll(T mats) {
+        adopted.addAll(mats);
+        return mats;
+    }
+
+    /**
+     * End the frame: take back every Mat that was handed out and release the adopted ones
+     */
+    public void reset() {
+        matsUsed = 0;
+        pointMatsUsed = 0;
+        for (Mat mat : adopted) {
+            mat.release();
+        }
+        adopted.clear();
+    }
+
+    /**
+     * Release all the native memory held by the arena
+     * The arena can still be used afterward, but it will have to allocate again
+     */
+    public void close() {
+        reset();
+        for (Mat mat : mats) {
+            mat.release();
+        }
+        for (Mat mat : pointMats) {
+            mat.release();
+        }
+        mats.clear();
+        pointMats.clear();
+    }
+
+    /**
+     * @return the number of native bytes held by the arena, including the adopted Mats that have not been released yet
+     */
+    public long getBytes() {
+        return getBytes(mats) + getBytes(pointMats) + getBytes(adopted);
+    }
+
+    private static long getBytes(List<? extends Mat> mats) {
+        long bytes = 0;
+        for (Mat mat : mats) {
+            bytes += mat.total() * mat.elemSize();
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the number of Mats the arena has created (this stops growing once it has enough for a frame)
+     */
+    public int getAllocations() {
+        return allocations;
+    }
+}
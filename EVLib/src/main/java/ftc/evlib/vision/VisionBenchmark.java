@@ -0,0 +1,328 @@
+package ftc.evlib.vision;
+
+import android.os.Debug;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import ftc.evlib.util.Profiler;
+import ftc.evlib.vision.framegrabber.FrameRecording;
+import ftc.evlib.vision.processors.FrameContext;
+import ftc.evlib.vision.processors.ImageProcessor;
+
+/**
+ * This file was made by the electronVolts, FTC team 7393
+ * Date Created: 10/18/26
+ *
+ * Measures how fast ImageProcessors run on a set of frames
+ *
+ * The frames can come from FrameRecordings or be generated with colored circles and a beacon on a gray background.
+ * Each processor is run on copies of every frame a number of times after a warmup,
+ * and the results are grouped by frame size.
+ * The results can be compared to a baseline to find processors that got slower.
+ * If the processor records its steps in the Profiler, the mean time of each step is added to the results.
+ *
+ * The memory is the change in the java heap and the native heap (where the Mats are) in use across the measured frames.
+ * It is a net change, so a garbage collection during the run makes it smaller or even negative.
+ * It is meant to find processors that allocate a lot every frame, not to count allocations exactly.
+ *
+ * @see FrameRecording
+ */
+public class VisionBenchmark {
+    /**
+     * The speed of one ImageProcessor on the frames of one size
+     */
+    public static class Result {
+        public final String name;
+        public final Size size;
+        public final int frames;
+        public final double opsPerSecond;
+        public final double p50Millis, p95Millis, p99Millis;
+        public final long javaBytesPerFrame, nativeBytesPerFrame;
+        /**
+         * The mean time of each step the processor recorded in the Profiler in milliseconds, by step name
+         * (over the last Profiler.CAPACITY times each step was recorded)
+         */
+        public final Map<String, Double> stageMeanMillis;
+
+        Result(String name, Size size, long[] nanos, long javaBytes, long nativeBytes, Map<String, Double> stageMeanMillis) {
+            this.name = name;
+            this.size = size;
+            this.frames = nanos.length;
+
+            long total = 0;
+            for (long n : nanos) {
+                total += n;
+            }
+            opsPerSecond = total == 0 ? 0 : frames * 1E9 / total;
+
+            Arrays.sort(nanos);
+            p50Millis = percentile(nanos, 0.50);
+            p95Millis = percentile(nanos, 0.95);
+            p99Millis = percentile(nanos, 0.99);
+            javaBytesPerFrame = frames == 0 ? 0 : javaBytes / frames;
+            nativeBytesPerFrame = frames == 0 ? 0 : nativeBytes / frames;
+            this.stageMeanMillis = stageMeanMillis;
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) return 0;
+            int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+            return sorted[Math.max(0, index)] / 1E6;
+        }
+
+        /**
+         * @return the name and size, used to match the result with the baseline
+         */
+        public String getKey() {
+            return name + "@" + (int) size.width + "x" + (int) size.height;
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + ": " + String.format("%.1f", opsPerSecond) + " ops/s, p50 " + String.format("%.2f", p50Millis) +
+                    " ms, p95 " + String.format("%.2f", p95Millis) + " ms, p99 " + String.format("%.2f", p99Millis) +
+                    " ms, " + javaBytesPerFrame + " java bytes/frame, " + nativeBytesPerFrame + " native bytes/frame" +
+                    (stageMeanMillis.isEmpty() ? "" : ", steps " + getStagesString());
+        }
+
+        /**
+         * @return the mean time of each step, such as "blur=1.20 contours=0.85"
+         */
+        public String getStagesString() {
+            StringBuilder builder = new StringBuilder();
+            for (Map.Entry<String, Double> entry : stageMeanMillis.entrySet()) {
+                if (builder.length() > 0) builder.append(' ');
+                builder.append(entry.getKey()).append('=').append(String.format("%.2f", entry.getValue()));
+            }
+            return builder.toString();
+        }
+    }
+
+    private final List<Mat> frames = new ArrayList<>();
+
+    /**
+     * Add a frame to the set (it is not modified)
+     *
+     * @param frame the RGBA frame
+     */
+    public void addFrame(Mat frame) {
+        frames.add(frame.clone());
+    }
+
+    /**
+     * Add the frames of a recording to the set
+     *
+     * @param recording the recording
+     * @param maxFrames the max number of frames to add
+     * @throws IOException if a frame cannot be read
+     */
+    public void addRecording(FrameRecording recording, int maxFrames) throws IOException {
+        int n = Math.min(maxFrames, recording.getNumFrames());
+        for (int i = 0; i < n; i++) {
+            Mat frame = new Mat();
+            recording.readFrame(i, frame);
+            frames.add(frame);
+        }
+    }
+
+    /**
+     * Add generated frames with red and blue circles and a beacon to the set
+     *
+     * @param size  the size of the frames
+     * @param count the number of frames
+     * @param seed  the seed for the random positions, so the frames are the same every time
+     */
+    public void addSyntheticFrames(Size size, int count, long seed) {
+        Random random = new Random(seed);
+        int minSide = (int) Math.min(size.width, size.height);
+        for (int i = 0; i < count; i++) {
+            Mat frame = new Mat(size, CvType.CV_8UC4, new Scalar(128, 128, 128, 255));
+
+            //particles
+            for (int j = 0; j < 6; j++) {
+                Point center = new Point(random.nextDouble() * size.width, random.nextDouble() * size.height);
+                int radius = minSide / 30 + random.nextInt(minSide / 15 + 1);
+                Imgproc.circle(frame, center, radius, j % 2 == 0 ? ImageUtil.RED : ImageUtil.BLUE, -1);
+            }
+
+            //beacon with a red side, a blue side, and 2 black buttons
+            int beaconWidth = minSide / 3;
+            int x = random.nextInt((int) size.width - beaconWidth);
+            int y = random.nextInt((int) size.height - beaconWidth);
+            Imgproc.rectangle(frame, new Point(x, y), new Point(x + beaconWidth / 2, y + beaconWidth), ImageUtil.RED, -1);
+            Imgproc.rectangle(frame, new Point(x + beaconWidth / 2, y), new Point(x + beaconWidth, y + beaconWidth), ImageUtil.BLUE, -1);
+            int buttonY = y + beaconWidth * 3 / 4;
+            Imgproc.circle(frame, new Point(x + beaconWidth / 4, buttonY), beaconWidth / 12, ImageUtil.BLACK, -1);
+            Imgproc.circle(frame, new Point(x + beaconWidth * 3 / 4, buttonY), beaconWidth / 12, ImageUtil.BLACK, -1);
+
+            frames.add(frame);
+        }
+    }
+
+    public int getNumFrames() {
+        return frames.size();
+    }
+
+    /**
+     * Run a processor on every frame without timing its steps
+     *
+     * @param name              the name to give the results
+     * @param imageProcessor    the processor
+     * @param warmupIterations  the number of times to go through the frames before measuring
+     * @param measureIterations the number of times to go through the frames while measuring
+     * @return one result for each frame size
+     */
+    public List<Result> run(String name, ImageProcessor imageProcessor, int warmupIterations, int measureIterations) {
+        return run(name, imageProcessor, null, warmupIterations, measureIterations);
+    }
+
+    /**
+     * Run a processor on every frame
+     *
+     * @param name              the name to give the results
+     * @param imageProcessor    the processor
+     * @param stageTag          the tag the processor records its steps under in the Profiler (usually its TAG), or null
+     * @param warmupIterations  the number of times to go through the frames before measuring
+     * @param measureIterations the number of times to go through the frames while measuring
+     * @return one result for each frame size
+     */
+    public List<Result> run(String name, ImageProcessor imageProcessor, String stageTag, int warmupIterations, int measureIterations) {
+        //group the frames by size
+        Map<String, List<Mat>> groups = new LinkedHashMap<>();
+        for (Mat frame : frames) {
+            String key = frame.width() + "x" + frame.height();
+            if (!groups.containsKey(key)) {
+                groups.put(key, new ArrayList<Mat>());
+            }
+            groups.get(key).add(frame);
+        }
+
+        List<Result> results = new ArrayList<>();
+        Mat work = new Mat();
+        FrameContext frameContext = new FrameContext();
+        for (List<Mat> group : groups.values()) {
+            for (int i = 0; i < warmupIterations; i++) {
+                for (Mat frame : group) {
+                    frame.copyTo(work);
+                    frameContext.setFrame(work);
+                    imageProcessor.process(0, frameContext, false);
+                }
+            }
+
+            long[] nanos = new long[measureIterations * group.size()];
+            int n = 0;
+            long time = 0;
+            if (stageTag != null) {
+                Profiler.reset(stageTag);
+            }
+            //collect the garbage from the warmup so it is not counted
+            Runtime runtime = Runtime.getRuntime();
+            runtime.gc();
+            long javaBefore = runtime.totalMemory() - runtime.freeMemory();
+            long nativeBefore = Debug.getNativeHeapAllocatedSize();
+            for (int i = 0; i < measureIterations; i++) {
+                for (Mat frame : group) {
+                    //the copy is not measured, since the processor draws on the frame
+                    frame.copyTo(work);
+                    frameContext.setFrame(work);
+                    long start = System.nanoTime();
+                    imageProcessor.process(time, frameContext, false);
+                    nanos[n++] = System.nanoTime() - start;
+                    //pretend the frames are 1/30 of a second apart for processors that track over time
+                    time += 33;
+                }
+            }
+            long javaBytes = runtime.totalMemory() - runtime.freeMemory() - javaBefore;
+            long nativeBytes = Debug.getNativeHeapAllocatedSize() - nativeBefore;
+
+            Map<String, Double> stageMeanMillis = new LinkedHashMap<>();
+            if (stageTag != null) {
+                for (Profiler.Stage stage : Profiler.getStages(stageTag)) {
+                    if (stage.getCount() > 0) {
+                        stageMeanMillis.put(stage.getName(), stage.getMean());
+                    }
+                }
+            }
+
+            results.add(new Result(name, group.get(0).size(), nanos, javaBytes, nativeBytes, stageMeanMillis));
+        }
+        work.release();
+        return results;
+    }
+
+    /**
+     * Compare results with a baseline
+     *
+     * @param results      the new results
+     * @param baseline     the ops per second of each result key from an earlier run
+     * @param maxSlowdown  the largest fraction the speed can drop before it is a regression (0.1 is 10%)
+     * @return a message for each result that got slower than allowed (empty if there are no regressions)
+     */
+    public static List<String> findRegressions(List<Result> results, Map<String, Double> baseline, double maxSlowdown) {
+        List<String> regressions = new ArrayList<>();
+        for (Result result : results) {
+            Double baselineOps = baseline.get(result.getKey());
+            if (baselineOps == null) continue;
+            if (result.opsPerSecond < baselineOps * (1 - maxSlowdown)) {
+                regressions.add(result.getKey() + " went from " + String.format("%.1f", baselineOps) + " to " + String.format("%.1f", result.opsPerSecond) + " ops/s");
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * @param results the results
+     * @return the ops per second of each result key, to use as a baseline for later runs
+     */
+    public static Map<String, Double> toBaseline(List<Result> results) {
+        Map<String, Double> baseline = new LinkedHashMap<>();
+        for (Result result : results) {
+            baseline.put(result.getKey(), result.opsPerSecond);
+        }
+        return baseline;
+    }
+
+    /**
+     * Write the results to a tab separated file
+     *
+     * @param dir           the directory to put the file in
+     * @param fileName      the name of the file
+     * @param time          the time to add to the end of the file name
+     * @param fileExtension the file extension
+     * @param results       the results
+     * @return whether or not it worked
+     */
+    public static boolean logResults(File dir, String fileName, long time, String fileExtension, List<Result> results) {
+        File file = new File(dir, fileName + time + fileExtension);
+
+        try {
+            PrintStream printStream = new PrintStream(new FileOutputStream(file));
+            printStream.println("key\tops/s\tp50 ms\tp95 ms\tp99 ms\tjava bytes/frame\tnative bytes/frame\tstep means ms");
+            for (Result result : results) {
+                printStream.println(result.getKey() + "\t" + result.opsPerSecond + "\t" + result.p50Millis + "\t" +
+                        result.p95Millis + "\t" + result.p99Millis + "\t" + result.javaBytesPerFrame + "\t" +
+                        result.nativeBytesPerFrame + "\t" + result.getStagesString());
+            }
+            printStream.close();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,447 @@
+package ftc.evlib.vision.framegrabber;
+
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import org.opencv.android.Utils;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import ftc.evlib.vision.ImageUtil;
+import ftc.evlib.vision.processors.FrameContext;
+import ftc.evlib.vision.processors.ImageProcessor;
+import ftc.evlib.vision.processors.ImageProcessorResult;
+
+import static ftc.evlib.vision.framegrabber.GlobalFrameGrabber.frameGrabber;
+
+/**
+ * This file was made by the electronVolts, FTC team 7393
+ * Date Created: 10/18/26
+ *
+ * A FrameGrabber that never blocks the camera thread
+ * The camera thread copies each frame into a triple buffer and returns immediately.
+ * A worker thread always processes the newest frame, so frames that arrive while it is busy are
+ * dropped instead of queued.
+ * Results are published with a volatile sequence number, so isResultReady() and getResult() are safe
+ * to call from the main thread.
+ *
+ * The frame displayed on the screen is the raw camera frame, since the processed frame belongs to the worker thread.
+ *
+ * @see RealFrameGrabber
+ * @see GlobalFrameGrabber
+ */
+public class AsyncFrameGrabber implements FrameGrabber {
+    /**
+     * Set in the shared slot index when the slot holds a frame the worker has not taken yet
+     */
+    private static final int FRESH = 4;
+    private static final int INDEX_MASK = 3;
+
+    private volatile Mode mode = Mode.STOPPED;
+
+    private volatile CameraOrientation cameraOrientation;
+    private volatile boolean ignoreOrientationForDisplay, saveImages, displayEnabled = true;
+    private final boolean throwAway;
+
+    /**
+     * The 3 frame buffers
+     * The camera thread owns writeIndex, the worker thread owns processIndex,
+     * and the third buffer is handed between them through sharedIndex
+     */
+    private final Mat[] buffers = new Mat[3];
+    private int writeIndex = 0;
+    private int processIndex = 1;
+    private final AtomicInteger sharedIndex = new AtomicInteger(2);
+
+    /**
+     * The request each buffer was written for, so a frame from before a request never answers it
+     * Written by the camera thread before the buffer is shared, and read by the worker after it takes the buffer
+     */
+    private final long[] bufferRequests = new long[3];
+
+    /**
+     * The rotated frame given to the ImageProcessor
+     */
+    private final Mat frame;
+
+    /**
+     * Holds the frame and caches the images derived from it for the ImageProcessor
+     */
+    private final FrameContext frameContext = new FrameContext();
+
+    /**
+     * Holds the scaled frame when the governor lowers the resolution
+     */
+    private final FrameContext scaledFrameContext = new FrameContext();
+
+    /**
+     * Decides which frames to process and at what resolution (null to process every frame at full resolution)
+     */
+    private volatile FrameGovernor governor = null;
+
+    /**
+     * A completely black image
+     */
+    private final Mat blank;
+
+    /**
+     * logging tag
+     */
+    private final String tag;
+
+    /**
+     * The ImageProcessor to run
+     */
+    private volatile ImageProcessor imageProcessor = null;
+
+    /**
+     * The latest result, and the request it was produced for
+     * result is written before resultSequence, so reading resultSequence first makes the result visible
+     */
+    private volatile ImageProcessorResult result = null;
+    private volatile long resultSequence = 0;
+
+    /**
+     * Incremented every time a new frame or frames are requested
+     */
+    private volatile long requestSequence = 0;
+
+    /**
+     * The number of frames the camera delivered and the number that were overwritten before being processed
+     */
+    private volatile long framesReceived = 0, framesDropped = 0;
+
+    private volatile boolean running = true;
+    private final Thread worker;
+
+    /**
+     * Held by the camera thread while it uses the buffers and by the worker while it releases them
+     */
+    private final Object bufferLock = new Object();
+    private boolean released = false;
+
+    /**
+     * Create a FrameGrabber that processes frames on its own thread
+     *
+     * @param tag                         the logging tag
+     * @param width                       the width of the camera frames it will get
+     * @param height                      the height of the camera frames it will get
+     * @param cameraOrientation           the orientation of the camera on the robot
+     * @param ignoreOrientationForDisplay whether or not to flip the output frame when displaying
+     * @param throwAway                   whether or not to throw away frames instead of stopping
+     */
+    public AsyncFrameGrabber(String tag, int width, int height, CameraOrientation cameraOrientation, boolean ignoreOrientationForDisplay, boolean throwAway) {
+        this.cameraOrientation = cameraOrientation;
+        this.ignoreOrientationForDisplay = ignoreOrientationForDisplay;
+        this.tag = tag;
+        this.throwAway = throwAway;
+
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new Mat(height, width, CvType.CV_8UC4);
+        }
+        frame = new Mat(height, width, CvType.CV_8UC4);
+        blank = new Mat(height, width, CvType.CV_8UC4, new Scalar(0, 0, 0));
+
+        if (frameGrabber != null) {
+            imageProcessor = frameGrabber.getImageProcessor();
+            governor = frameGrabber.getGovernor();
+            displayEnabled = frameGrabber.isDisplayEnabled();
+        }
+        GlobalFrameGrabber.set(this);
+
+        worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                processFrames();
+            }
+        }, tag + " worker");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Stop the worker thread, which then releases the images
+     * The FrameGrabber will not process any more frames after this
+     * GlobalFrameGrabber calls this when the FrameGrabber is replaced
+     */
+    public void close() {
+        running = false;
+        LockSupport.unpark(worker);
+    }
+
+    /**
+     * @return the number of frames delivered by the camera
+     */
+    public long getFramesReceived() {
+        return framesReceived;
+    }
+
+    /**
+     * @return the number of frames that were replaced by a newer frame before the worker got to them
+     */
+    public long getFramesDropped() {
+        return framesDropped;
+    }
+
+    @Override
+    public CameraOrientation getCameraOrientation() {
+        return cameraOrientation;
+    }
+
+    @Override
+    public boolean isIgnoreOrientationForDisplay() {
+        return ignoreOrientationForDisplay;
+    }
+
+    @Override
+    public boolean isSaveImages() {
+        return saveImages;
+    }
+
+    @Override
+    public boolean isPooled() {
+        return true;
+    }
+
+    @Override
+    public boolean isDisplayEnabled() {
+        return displayEnabled;
+    }
+
+    @Override
+    public int getMatAllocations() {
+        return 0;
+    }
+
+    @Override
+    public FrameGovernor getGovernor() {
+        return governor;
+    }
+
+    @Override
+    public ImageProcessor getImageProcessor() {
+        return imageProcessor;
+    }
+
+    @Override
+    public Mode getMode() {
+        //a single frame request is done once its result is published
+        if (mode == Mode.SINGLE && isResultReady()) {
+            return Mode.STOPPED;
+        }
+        return mode;
+    }
+
+    @Override
+    public void setCameraOrientation(CameraOrientation cameraOrientation) {
+        this.cameraOrientation = cameraOrientation;
+    }
+
+    @Override
+    public void setIgnoreOrientationForDisplay(boolean ignoreOrientationForDisplay) {
+        this.ignoreOrientationForDisplay = ignoreOrientationForDisplay;
+    }
+
+    @Override
+    public void setSaveImages(boolean saveImages) {
+        this.saveImages = saveImages;
+    }
+
+    @Override
+    public void setPooled(boolean pooled) {
+        //the buffers are always reused
+    }
+
+    @Override
+    public void setDisplayEnabled(boolean displayEnabled) {
+        this.displayEnabled = displayEnabled;
+    }
+
+    @Override
+    public void setGovernor(FrameGovernor governor) {
+        this.governor = governor;
+    }
+
+    @Override
+    public void setImageProcessor(ImageProcessor imageProcessor) {
+        this.imageProcessor = imageProcessor;
+    }
+
+    private boolean isImageProcessorNull() {
+        if (imageProcessor == null) {
+            Log.e(tag, "imageProcessor is null! Call setImageProcessor() to set it.");
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public void grabSingleFrame() {
+        if (isImageProcessorNull()) return;
+        requestSequence++;
+        mode = Mode.SINGLE;
+
+        //a frame left over from an earlier request would not be published, so do not make the worker process it
+        while (true) {
+            int shared = sharedIndex.get();
+            if ((shared & FRESH) == 0 || sharedIndex.compareAndSet(shared, shared & INDEX_MASK)) break;
+        }
+    }
+
+    @Override
+    public void grabContinuousFrames() {
+        if (isImageProcessorNull()) return;
+        requestSequence++;
+        mode = Mode.CONTINUOUS;
+    }
+
+    @Override
+    public void throwAwayFrames() {
+        requestSequence++;
+        mode = Mode.THROWAWAY;
+    }
+
+    @Override
+    public void stopFrameGrabber() {
+        mode = Mode.STOPPED;
+    }
+
+    /**
+     * @return whether or not a result has been published since the last frame request
+     */
+    @Override
+    public boolean isResultReady() {
+        return resultSequence == requestSequence && requestSequence > 0;
+    }
+
+    @Override
+    public ImageProcessorResult getResult() {
+        FrameGovernor governor = this.governor;
+        if (governor != null) {
+            governor.onResultConsumed();
+        }
+        return result;
+    }
+
+    @Override
+    public Mat receiveFrame(Bitmap bitmap) {
+        synchronized (bufferLock) {
+            if (released) return null;
+            //publishFrame() moves writeIndex to another buffer, so remember the one that was written
+            int written = writeIndex;
+            Utils.bitmapToMat(bitmap, buffers[written]);
+            publishFrame();
+            return displayEnabled ? buffers[written] : blank;
+        }
+    }
+
+    @Override
+    public Mat receiveFrame(Mat inputFrame) {
+        synchronized (bufferLock) {
+            if (released) return inputFrame;
+            inputFrame.copyTo(buffers[writeIndex]);
+            publishFrame();
+            return displayEnabled ? inputFrame : blank;
+        }
+    }
+
+    /**
+     * Hand the buffer that was just written to the worker thread without waiting for it
+     * Called from the camera thread
+     */
+    private void publishFrame() {
+        framesReceived++;
+
+        //throw frames away instead of stopping if that behavior has been requested
+        if (throwAway && mode == Mode.STOPPED) {
+            mode = Mode.THROWAWAY;
+        }
+        if (!isFrameWanted()) {
+            //nobody wants this frame, so leave it in the write buffer to be overwritten
+            return;
+        }
+
+        //swap the written buffer with the shared one
+        bufferRequests[writeIndex] = requestSequence;
+        int previous = sharedIndex.getAndSet(writeIndex | FRESH);
+        if ((previous & FRESH) != 0) {
+            //the worker never took the previous frame
+            framesDropped++;
+        }
+        writeIndex = previous & INDEX_MASK;
+
+        LockSupport.unpark(worker);
+    }
+
+    /**
+     * Only the main thread writes the mode, so a single frame request is finished by publishing its result
+     * instead of switching the mode back to STOPPED
+     *
+     * @return whether or not the current request still needs frames
+     */
+    private boolean isFrameWanted() {
+        Mode currentMode = mode;
+        return currentMode == Mode.CONTINUOUS || (currentMode == Mode.SINGLE && !isResultReady());
+    }
+
+    /**
+     * The worker thread loop
+     * Takes the newest frame, processes it, and publishes the result
+     */
+    private void processFrames() {
+        while (running) {
+            //wait for a fresh frame
+            if ((sharedIndex.get() & FRESH) == 0) {
+                LockSupport.park(this);
+                continue;
+            }
+            processIndex = sharedIndex.getAndSet(processIndex) & INDEX_MASK;
+
+            long request = bufferRequests[processIndex];
+            if (request != requestSequence) {
+                //the frame was taken before the current request
+                continue;
+            }
+            ImageProcessor currentProcessor = imageProcessor;
+            if (currentProcessor == null || !isFrameWanted()) {
+                continue;
+            }
+            //the governor only skips frames in continuous mode, so single frame requests are always answered
+            FrameGovernor currentGovernor = governor;
+            if (currentGovernor != null && mode == Mode.CONTINUOUS && !currentGovernor.shouldProcess()) {
+                continue;
+            }
+
+            long frameTime = System.currentTimeMillis();
+            ImageUtil.rotate(buffers[processIndex], frame, cameraOrientation.angle + 90);
+            frameContext.setFrame(frame);
+            FrameContext context = currentGovernor == null ? frameContext : currentGovernor.getProcessingFrame(frameContext, scaledFrameContext);
+            long start = System.nanoTime();
+            ImageProcessorResult newResult = currentProcessor.process(frameTime, context, saveImages);
+            if (currentGovernor != null) {
+                currentGovernor.onProcessed(System.nanoTime() - start);
+            }
+
+            //only publish if the request has not changed while processing
+            if (request == requestSequence) {
+                result = newResult;
+                resultSequence = request;
+            }
+        }
+
+        //the camera thread may be in the middle of writing a buffer, so wait for it before releasing them
+        synchronized (bufferLock) {
+            released = true;
+            for (Mat buffer : buffers) {
+                buffer.release();
+            }
+            frame.release();
+            blank.release();
+        }
+    }
+}
@@ -30,14 +30,34 @@ public class FakeFrameGrabber implements FrameGrabber {
         return false;
     }
 
+    @Override
+    public boolean isPooled() {
+        return false;
+    }
+
+    @Override
+    public boolean isDisplayEnabled() {
+        return true;
+    }
+
+    @Override
+    public int getMatAllocations() {
+        return 0;
+    }
+
+    @Override
+    public FrameGovernor getGovernor() {
+        return null;
+    }
+
     @Override
     public ImageProcessor getImageProcessor() {
         return null;
     }
 
     @Override
-    public FrameGrabberMode getMode() {
-        return FrameGrabberMode.STOPPED;
+    public Mode getMode() {
+        return Mode.STOPPED;
     }
 
     @Override
@@ -55,6 +75,21 @@ public class FakeFrameGrabber implements FrameGrabber {
 
     }
 
+    @Override
+    public void setPooled(boolean pooled) {
+
+    }
+
+    @Override
+    public void setDisplayEnabled(boolean displayEnabled) {
+
+    }
+
+    @Override
+    public void setGovernor(FrameGovernor governor) {
+
+    }
+
     @Override
     public void setImageProcessor(ImageProcessor imageProcessor) {
 
@@ -0,0 +1,248 @@
+package ftc.evlib.vision.framegrabber;
+
+import ftc.evlib.vision.processors.FrameContext;
+
+/**
+ * This file was made by the electronVolts, FTC team 7393
+ * Date Created: 10/18/26
+ *
+ * Decides which frames a FrameGrabber processes in continuous mode and at what resolution
+ *
+ * The active state sets a Policy, for example full resolution while reading the beacon colors,
+ * and quarter resolution with 1 in 3 frames while driving.
+ * If the policy has a target latency, the resolution and then the frame interval are raised when
+ * processing takes too long, and lowered again when there is time to spare.
+ * It can also skip frames until the main loop has taken the last result, so frames nobody reads are not processed.
+ *
+ * The policy is set from the main thread, and the rest is called from the thread that processes the frames.
+ *
+ * @see FrameGrabber#setGovernor(FrameGovernor)
+ */
+public class FrameGovernor {
+    /**
+     * The number of frames to wait after changing the resolution or interval before changing it again
+     */
+    private static final int SETTLE_FRAMES = 5;
+
+    /**
+     * The weight of the newest frame in the average latency
+     */
+    private static final double LATENCY_GAIN = 0.2;
+
+    /**
+     * How the frames are processed
+     */
+    public static class Policy {
+        public final int pyramidLevel, maxPyramidLevel;
+        public final int frameInterval, maxFrameInterval;
+        public final double targetLatencyMillis;
+
+        /**
+         * A policy that does not adapt
+         *
+         * @param pyramidLevel  the resolution to process at (0 is full, 1 is half the width and height, etc.)
+         * @param frameInterval process 1 in this many frames
+         */
+        public Policy(int pyramidLevel, int frameInterval) {
+            this(pyramidLevel, pyramidLevel, frameInterval, frameInterval, 0);
+        }
+
+        /**
+         * A policy that adapts to meet a target latency
+         *
+         * @param pyramidLevel        the resolution to start at (0 is full, 1 is half the width and height, etc.)
+         * @param maxPyramidLevel     the lowest resolution to go down to
+         * @param frameInterval       process 1 in this many frames to start with
+         * @param maxFrameInterval    the most frames to skip
+         * @param targetLatencyMillis the time processing one frame should take, 0 to not adapt
+         */
+        public Policy(int pyramidLevel, int maxPyramidLevel, int frameInterval, int maxFrameInterval, double targetLatencyMillis) {
+            if (pyramidLevel < 0 || maxPyramidLevel < pyramidLevel) {
+                throw new IllegalArgumentException("pyramid levels must satisfy 0 <= pyramidLevel <= maxPyramidLevel");
+            }
+            if (frameInterval < 1 || maxFrameInterval < frameInterval) {
+                throw new IllegalArgumentException("frame intervals must satisfy 1 <= frameInterval <= maxFrameInterval");
+            }
+            this.pyramidLevel = pyramidLevel;
+            this.maxPyramidLevel = maxPyramidLevel;
+            this.frameInterval = frameInterval;
+            this.maxFrameInterval = maxFrameInterval;
+            this.targetLatencyMillis = targetLatencyMillis;
+        }
+    }
+
+    /**
+     * Every frame at full resolution
+     */
+    public static final Policy FULL_RESOLUTION = new Policy(0, 1);
+
+    /**
+     * 1 in 3 frames at quarter resolution (half the width and height)
+     * Only for processors whose results do not depend on pixel sizes (BeaconFinder's CircleMatch does)
+     */
+    public static final Policy DRIVING = new Policy(1, 3);
+
+    private volatile Policy policy;
+    private volatile boolean policyChanged = true;
+    private volatile boolean waitForConsumer = false;
+    private volatile boolean resultConsumed = true;
+
+    //only used by the processing thread
+    private int pyramidLevel, frameInterval;
+    private int frameCount = 0, settleCount = 0;
+    private double averageLatency = 0;
+
+    private volatile long framesProcessed = 0, framesSkipped = 0;
+
+    /**
+     * @param policy the policy to start with
+     */
+    public FrameGovernor(Policy policy) {
+        setPolicy(policy);
+    }
+
+    /**
+     * Change the policy, usually when a state starts
+     *
+     * @param policy the new policy
+     */
+    public void setPolicy(Policy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("policy cannot be null");
+        }
+        this.policy = policy;
+        policyChanged = true;
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @param waitForConsumer whether or not to skip frames until the last result has been taken with getResult()
+     */
+    public void setWaitForConsumer(boolean waitForConsumer) {
+        this.waitForConsumer = waitForConsumer;
+    }
+
+    /**
+     * Called by the FrameGrabber for each frame in continuous mode
+     *
+     * @return whether or not to process the frame
+     */
+    public boolean shouldProcess() {
+        applyPolicy();
+        if (waitForConsumer && !resultConsumed) {
+            framesSkipped++;
+            return false;
+        }
+        frameCount++;
+        if (frameCount < frameInterval) {
+            framesSkipped++;
+            return false;
+        }
+        frameCount = 0;
+        return true;
+    }
+
+    /**
+     * Give the ImageProcessor the frame at the current resolution
+     *
+     * @param frame       the full frame
+     * @param scaledFrame a context owned by the FrameGrabber to put the scaled frame in
+     * @return the frame to process
+     */
+    public FrameContext getProcessingFrame(FrameContext frame, FrameContext scaledFrame) {
+        applyPolicy();
+        if (pyramidLevel == 0) {
+            return frame;
+        }
+        scaledFrame.setFrame(frame.getPyramidLevel(pyramidLevel));
+        return scaledFrame;
+    }
+
+    /**
+     * Called by the FrameGrabber after a frame is processed
+     *
+     * @param nanos the time the ImageProcessor took
+     */
+    public void onProcessed(long nanos) {
+        framesProcessed++;
+        resultConsumed = false;
+
+        double latency = nanos / 1000000.0;
+        averageLatency = averageLatency == 0 ? latency : averageLatency + LATENCY_GAIN * (latency - averageLatency);
+
+        Policy policy = this.policy;
+        if (policy.targetLatencyMillis <= 0) return;
+        if (settleCount > 0) {
+            settleCount--;
+            return;
+        }
+
+        if (averageLatency > policy.targetLatencyMillis) {
+            //too slow: lower the resolution first, then skip more frames
+            if (pyramidLevel < policy.maxPyramidLevel) {
+                pyramidLevel++;
+                averageLatency /= 4; //a quarter of the pixels
+                settleCount = SETTLE_FRAMES;
+            } else if (frameInterval < policy.maxFrameInterval) {
+                frameInterval++;
+                settleCount = SETTLE_FRAMES;
+            }
+        } else if (averageLatency < policy.targetLatencyMillis / 2) {
+            //time to spare: stop skipping frames first, then raise the resolution if it would still be fast enough
+            if (frameInterval > policy.frameInterval) {
+                frameInterval--;
+                settleCount = SETTLE_FRAMES;
+            } else if (pyramidLevel > policy.pyramidLevel && averageLatency * 4 < policy.targetLatencyMillis) {
+                pyramidLevel--;
+                averageLatency *= 4;
+                settleCount = SETTLE_FRAMES;
+            }
+        }
+    }
+
+    /**
+     * Called by the FrameGrabber when the main loop takes the result
+     */
+    public void onResultConsumed() {
+        resultConsumed = true;
+    }
+
+    private void applyPolicy() {
+        if (policyChanged) {
+            policyChanged = false;
+            Policy policy = this.policy;
+            pyramidLevel = policy.pyramidLevel;
+            frameInterval = policy.frameInterval;
+            frameCount = frameInterval; //process the first frame
+            settleCount = 0;
+            averageLatency = 0;
+            resultConsumed = true;
+        }
+    }
+
+    public int getPyramidLevel() {
+        return pyramidLevel;
+    }
+
+    public int getFrameInterval() {
+        return frameInterval;
+    }
+
+    /**
+     * @return the average time processing a frame takes in milliseconds
+     */
+    public double getAverageLatency() {
+        return averageLatency;
+    }
+
+    public long getFramesProcessed() {
+        return framesProcessed;
+    }
+
+    public long getFramesSkipped() {
+        return framesSkipped;
+    }
+}
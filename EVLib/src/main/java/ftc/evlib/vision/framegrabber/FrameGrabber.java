@@ -58,6 +58,26 @@ public interface FrameGrabber {
      */
     boolean isSaveImages();
 
+    /**
+     * @return whether or not the frames are processed in preallocated buffers that are reused every frame
+     */
+    boolean isPooled();
+
+    /**
+     * @return whether or not the output frame is prepared to be displayed on the phone screen
+     */
+    boolean isDisplayEnabled();
+
+    /**
+     * @return the number of native Mat allocations the FrameGrabber made while handling the last frame
+     */
+    int getMatAllocations();
+
+    /**
+     * @return the governor that decides which frames to process and at what resolution, or null if every frame is processed at full resolution
+     */
+    FrameGovernor getGovernor();
+
     /**
      * @return the current image processor
      */
@@ -83,6 +103,22 @@ public interface FrameGrabber {
      */
     void setSaveImages(boolean saveImages);
 
+    /**
+     * @param pooled whether or not to process the frames in preallocated buffers that are reused every frame
+     */
+    void setPooled(boolean pooled);
+
+    /**
+     * @param displayEnabled whether or not to prepare the output frame to be displayed on the phone screen
+     *                       Turning this off skips the rotating and resizing of the output frame
+     */
+    void setDisplayEnabled(boolean displayEnabled);
+
+    /**
+     * @param governor the governor that decides which frames to process and at what resolution, or null to process every frame at full resolution
+     */
+    void setGovernor(FrameGovernor governor);
+
     /**
      * @param imageProcessor the ImageProcessor object that takes the frame and returns a result
      */
@@ -0,0 +1,156 @@
+package ftc.evlib.vision.framegrabber;
+
+import android.util.Log;
+
+import org.opencv.core.Mat;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import ftc.evlib.vision.processors.ImageProcessorResult;
+
+/**
+ * This file was made by the electronVolts, FTC team 7393
+ * Date Created: 10/18/26
+ *
+ * Records raw frames, their timestamps, and summaries of the ImageProcessorResults into one file
+ *
+ * The file is a header followed by chunks. Each chunk has a type, the length of its payload, and the payload.
+ * The pixels of a frame are stored as-is after a fixed size header, so a reader can memory-map them directly.
+ * All numbers are big-endian.
+ *
+ * header:       magic (int), version (int)
+ * chunk:        type (int), payload length (int), payload
+ * frame chunk:  time (long), width (int), height (int), OpenCV type (int), pixels
+ * result chunk: time (long), the result's toString() in UTF-8
+ *
+ * @see FrameRecording
+ * @see ReplayFrameGrabber
+ */
+public class FrameRecorder {
+    private static final String TAG = "FrameRecorder";
+
+    static final int MAGIC = 0x45564652; //"EVFR"
+    static final int VERSION = 1;
+
+    static final int CHUNK_FRAME = 1;
+    static final int CHUNK_RESULT = 2;
+
+    static final int CHUNK_HEADER_SIZE = 8; //type, payload length
+    static final int FRAME_HEADER_SIZE = 20; //time, width, height, type
+
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final File file;
+    private final DataOutputStream out;
+
+    //the pixels of the last frame, reused every frame
+    private byte[] data = new byte[0];
+
+    private int framesRecorded = 0, resultsRecorded = 0;
+    private boolean failed = false;
+
+    /**
+     * Create the file and write the header
+     *
+     * @param file the file to record to
+     * @throws IOException if the file cannot be created
+     */
+    public FrameRecorder(File file) throws IOException {
+        this.file = file;
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+    }
+
+    /**
+     * Record a frame
+     *
+     * @param time  the time the frame was taken
+     * @param frame the frame
+     * @return whether or not it worked
+     */
+    public synchronized boolean recordFrame(long time, Mat frame) {
+        if (failed) return false;
+
+        int size = (int) (frame.total() * frame.elemSize());
+        if (data.length < size) {
+            data = new byte[size];
+        }
+        frame.get(0, 0, data);
+
+        try {
+            out.writeInt(CHUNK_FRAME);
+            out.writeInt(FRAME_HEADER_SIZE + size);
+            out.writeLong(time);
+            out.writeInt(frame.width());
+            out.writeInt(frame.height());
+            out.writeInt(frame.type());
+            out.write(data, 0, size);
+            framesRecorded++;
+            return true;
+        } catch (IOException e) {
+            return fail(e);
+        }
+    }
+
+    /**
+     * Record a summary of a result
+     *
+     * @param result the result from an ImageProcessor
+     * @return whether or not it worked
+     */
+    public synchronized boolean recordResult(ImageProcessorResult result) {
+        if (failed) return false;
+
+        byte[] summary = result.toString().getBytes(UTF_8);
+        try {
+            out.writeInt(CHUNK_RESULT);
+            out.writeInt(8 + summary.length);
+            out.writeLong(result.getStartTime());
+            out.write(summary);
+            resultsRecorded++;
+            return true;
+        } catch (IOException e) {
+            return fail(e);
+        }
+    }
+
+    /**
+     * Stop recording after an error so the file ends with a whole chunk
+     */
+    private boolean fail(IOException e) {
+        Log.e(TAG, "FAILED writing to " + file, e);
+        failed = true;
+        return false;
+    }
+
+    /**
+     * Write the rest of the data and close the file
+     */
+    public synchronized void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            Log.e(TAG, "FAILED closing " + file, e);
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int getFramesRecorded() {
+        return framesRecorded;
+    }
+
+    public int getResultsRecorded() {
+        return resultsRecorded;
+    }
+}
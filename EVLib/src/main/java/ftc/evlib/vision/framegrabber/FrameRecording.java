@@ -0,0 +1,167 @@
+package ftc.evlib.vision.framegrabber;
+
+import org.opencv.core.Mat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This file was made by the electronVolts, FTC team 7393
+ * Date Created: 10/18/26
+ *
+ * Reads a file written by FrameRecorder
+ *
+ * Opening the file only reads the chunk headers to find where each frame is.
+ * The pixels of a frame are read with one readFully into a reused array, then put into the Mat with one copy.
+ * If the recording was cut off in the middle of a chunk, the partial chunk is ignored.
+ *
+ * @see FrameRecorder
+ * @see ReplayFrameGrabber
+ */
+public class FrameRecording {
+    /**
+     * Where a frame is in the file
+     */
+    private static class FrameInfo {
+        final long time;
+        final int width, height, type;
+        final long position;
+        final int size;
+
+        FrameInfo(long time, int width, int height, int type, long position, int size) {
+            this.time = time;
+            this.width = width;
+            this.height = height;
+            this.type = type;
+            this.position = position;
+            this.size = size;
+        }
+    }
+
+    /**
+     * The summary of an ImageProcessorResult that was recorded
+     */
+    public static class ResultSummary {
+        public final long time;
+        public final String summary;
+
+        ResultSummary(long time, String summary) {
+            this.time = time;
+            this.summary = summary;
+        }
+
+        @Override
+        public String toString() {
+            return time + ": " + summary;
+        }
+    }
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+
+    private final List<FrameInfo> frames = new ArrayList<>();
+    private final List<ResultSummary> results = new ArrayList<>();
+
+    //the pixels of the last frame read, reused
+    private byte[] data = new byte[0];
+
+    /**
+     * Open a recording and find the frames in it
+     *
+     * @param file the file written by FrameRecorder
+     * @throws IOException if the file cannot be read or is not a recording
+     */
+    public FrameRecording(File file) throws IOException {
+        this.file = new RandomAccessFile(file, "r");
+        channel = this.file.getChannel();
+        long length = channel.size();
+
+        ByteBuffer header = ByteBuffer.allocate(FrameRecorder.CHUNK_HEADER_SIZE + FrameRecorder.FRAME_HEADER_SIZE);
+        header.limit(8);
+        if (channel.read(header, 0) < 8 || header.getInt(0) != FrameRecorder.MAGIC) {
+            close();
+            throw new IOException(file + " is not a frame recording");
+        }
+        if (header.getInt(4) != FrameRecorder.VERSION) {
+            close();
+            throw new IOException(file + " has an unknown version: " + header.getInt(4));
+        }
+
+        long position = 8;
+        while (position + FrameRecorder.CHUNK_HEADER_SIZE <= length) {
+            header.clear();
+            header.limit(FrameRecorder.CHUNK_HEADER_SIZE);
+            channel.read(header, position);
+            int type = header.getInt(0);
+            int payloadLength = header.getInt(4);
+            long payload = position + FrameRecorder.CHUNK_HEADER_SIZE;
+
+            //stop at a chunk that was cut off
+            if (payloadLength < 0 || payload + payloadLength > length) break;
+
+            if (type == FrameRecorder.CHUNK_FRAME) {
+                header.clear();
+                header.limit(FrameRecorder.FRAME_HEADER_SIZE);
+                channel.read(header, payload);
+                frames.add(new FrameInfo(
+                        header.getLong(0), header.getInt(8), header.getInt(12), header.getInt(16),
+                        payload + FrameRecorder.FRAME_HEADER_SIZE, payloadLength - FrameRecorder.FRAME_HEADER_SIZE
+                ));
+            } else if (type == FrameRecorder.CHUNK_RESULT) {
+                ByteBuffer buffer = ByteBuffer.allocate(payloadLength);
+                channel.read(buffer, payload);
+                results.add(new ResultSummary(buffer.getLong(0), new String(buffer.array(), 8, payloadLength - 8, FrameRecorder.UTF_8)));
+            }
+            //unknown chunk types are skipped
+
+            position = payload + payloadLength;
+        }
+    }
+
+    public int getNumFrames() {
+        return frames.size();
+    }
+
+    /**
+     * @param index the index of the frame
+     * @return the time the frame was taken
+     */
+    public long getFrameTime(int index) {
+        return frames.get(index).time;
+    }
+
+    /**
+     * Read a frame into a Mat
+     *
+     * @param index the index of the frame
+     * @param dst   the Mat to put the frame in (it is reallocated only if the size or type changed)
+     * @throws IOException if the frame cannot be read
+     */
+    public synchronized void readFrame(int index, Mat dst) throws IOException {
+        FrameInfo frame = frames.get(index);
+        if (data.length != frame.size) {
+            data = new byte[frame.size];
+        }
+        file.seek(frame.position);
+        file.readFully(data);
+
+        dst.create(frame.height, frame.width, frame.type);
+        dst.put(0, 0, data);
+    }
+
+    /**
+     * @return the summaries of the results in the order they were recorded
+     */
+    public List<ResultSummary> getResults() {
+        return results;
+    }
+
+    public void close() throws IOException {
+        file.close();
+    }
+}
@@ -16,4 +16,17 @@ public class GlobalFrameGrabber {
      * This must be set by something for other classes to use it
      */
     public static FrameGrabber frameGrabber = Fake.FRAME_GRABBER;
+
+    /**
+     * Replace the FrameGrabber, and close the old one if it has a thread and images of its own
+     *
+     * @param newFrameGrabber the new FrameGrabber
+     */
+    public static void set(FrameGrabber newFrameGrabber) {
+        FrameGrabber oldFrameGrabber = frameGrabber;
+        frameGrabber = newFrameGrabber;
+        if (oldFrameGrabber != newFrameGrabber && oldFrameGrabber instanceof AsyncFrameGrabber) {
+            ((AsyncFrameGrabber) oldFrameGrabber).close();
+        }
+    }
 }
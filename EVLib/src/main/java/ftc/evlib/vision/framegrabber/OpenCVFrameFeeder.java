@@ -21,6 +21,7 @@ public class OpenCVFrameFeeder implements CameraBridgeViewBase.CvCameraViewListe
     private static final String TAG = "OpenCVFrameGrabberInit";
     private final FrameGrabber.CameraOrientation cameraOrientation;
     private final boolean ignoreOrientationForDisplay;
+    private final boolean async;
 
     public OpenCVFrameFeeder(CameraBridgeViewBase cameraBridgeViewBase, int frameWidthRequest, int frameHeightRequest) {
         this(cameraBridgeViewBase, frameWidthRequest, frameHeightRequest, FrameGrabber.CameraOrientation.PORTRAIT_UP, false);
@@ -35,8 +36,22 @@ public class OpenCVFrameFeeder implements CameraBridgeViewBase.CvCameraViewListe
     }
 
     public OpenCVFrameFeeder(CameraBridgeViewBase cameraBridgeViewBase, int frameWidthRequest, int frameHeightRequest, FrameGrabber.CameraOrientation cameraOrientation, boolean ignoreOrientationForDisplay) {
+        this(cameraBridgeViewBase, frameWidthRequest, frameHeightRequest, cameraOrientation, ignoreOrientationForDisplay, false);
+    }
+
+    /**
+     * @param cameraBridgeViewBase        the opencv camera view
+     * @param frameWidthRequest           the requested width of the camera frames
+     * @param frameHeightRequest          the requested height of the camera frames
+     * @param cameraOrientation           the orientation of the camera on the robot
+     * @param ignoreOrientationForDisplay whether or not to rotate the output frame to display on the phone
+     * @param async                       whether or not to process the frames on a separate thread
+     * @see AsyncFrameGrabber
+     */
+    public OpenCVFrameFeeder(CameraBridgeViewBase cameraBridgeViewBase, int frameWidthRequest, int frameHeightRequest, FrameGrabber.CameraOrientation cameraOrientation, boolean ignoreOrientationForDisplay, boolean async) {
         this.cameraOrientation = cameraOrientation;
         this.ignoreOrientationForDisplay = ignoreOrientationForDisplay;
+        this.async = async;
 
         cameraBridgeViewBase.setVisibility(SurfaceView.VISIBLE);
 
@@ -54,7 +69,11 @@ public class OpenCVFrameFeeder implements CameraBridgeViewBase.CvCameraViewListe
      */
     @Override
     public void onCameraViewStarted(int width, int height) {
-        new RealFrameGrabber(TAG, width, height, cameraOrientation, ignoreOrientationForDisplay, false);
+        if (async) {
+            new AsyncFrameGrabber(TAG, width, height, cameraOrientation, ignoreOrientationForDisplay, false);
+        } else {
+            new RealFrameGrabber(TAG, width, height, cameraOrientation, ignoreOrientationForDisplay, false);
+        }
     }
 
     @Override
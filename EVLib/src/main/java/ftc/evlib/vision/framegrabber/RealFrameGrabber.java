@@ -8,10 +8,13 @@ import org.opencv.core.Core;
 import org.opencv.core.CvType;
 import org.opencv.core.Mat;
 import org.opencv.core.Scalar;
+import org.opencv.core.Size;
 import org.opencv.imgproc.Imgproc;
 
+import ftc.evlib.util.Profiler;
 import ftc.evlib.util.StepTimer;
 import ftc.evlib.vision.ImageUtil;
+import ftc.evlib.vision.processors.FrameContext;
 import ftc.evlib.vision.processors.ImageProcessor;
 import ftc.evlib.vision.processors.ImageProcessorResult;
 
@@ -26,10 +29,11 @@ import static ftc.evlib.vision.framegrabber.GlobalFrameGrabber.frameGrabber;
  * @see GlobalFrameGrabber
  */
 public class RealFrameGrabber implements FrameGrabber {
-    private Mode mode = Mode.STOPPED;
+    private volatile Mode mode = Mode.STOPPED;
 
     private CameraOrientation cameraOrientation;
     private boolean ignoreOrientationForDisplay, saveImages;
+    private boolean pooled = false, displayEnabled = true;
     private final boolean throwAway;
 
     /**
@@ -45,24 +49,58 @@ public class RealFrameGrabber implements FrameGrabber {
     /**
      * temporary images used for flipping
      */
-    private final Mat tmp1, tmp2;
+    private final Mat tmp1, tmp2, displayTmp;
+
+    /**
+     * The preallocated frames
+     * pooledFrame is given to the ImageProcessor in pooled mode, and display is shown on the screen in both modes
+     */
+    private final Mat pooledFrame, display;
+    private final Size displaySize;
+
+    /**
+     * The transform from the output of the ImageProcessor to the display frame in pooled mode
+     * It is only recomputed when the values it was computed from change
+     */
+    private Mat displayTransform = null;
+    private int displayTransformAngle = 0, displayTransformWidth = 0, displayTransformHeight = 0;
+
+    /**
+     * Holds the frame and caches the images derived from it for the ImageProcessor
+     */
+    private final FrameContext frameContext = new FrameContext();
+
+    /**
+     * Holds the scaled frame when the governor lowers the resolution
+     */
+    private final FrameContext scaledFrameContext = new FrameContext();
+
+    /**
+     * Decides which frames to process and at what resolution (null to process every frame at full resolution)
+     */
+    private volatile FrameGovernor governor = null;
+
+    /**
+     * The number of native Mat allocations made while handling the last frame
+     */
+    private int matAllocations = 0;
 
     /**
      * logging tag
      */
     private final String tag;
 
-    private boolean resultReady = false;
+    private volatile boolean resultReady = false;
 
     /**
      * The ImageProcessor to run
      */
-    private ImageProcessor imageProcessor = null;
+    private volatile ImageProcessor imageProcessor = null;
 
     /**
      * The object to store the result from the ImageProcessor
      */
-    private ImageProcessorResult result = null;
+    private volatile ImageProcessorResult result = null;
 
     /**
      * timing variables
@@ -74,6 +112,12 @@ public class RealFrameGrabber implements FrameGrabber {
      */
     private final StepTimer stepTimer;
 
+    /**
+     * The Profiler stages for the time the imageProcessor takes (found once when it is set) and the loop time
+     */
+    private Profiler.Stage processStage = null;
+    private final Profiler.Stage loopStage;
+
     /**
      * Create a FrameGrabber
      *
@@ -91,18 +135,32 @@ public class RealFrameGrabber implements FrameGrabber {
         this.throwAway = throwAway;
 
         stepTimer = new StepTimer(tag);
+        loopStage = Profiler.getStage(tag, "loop");
 
         //create the frame and tmp images
         frame = new Mat(height, width, CvType.CV_8UC4, new Scalar(0, 0, 0));
         blank = new Mat(height, width, CvType.CV_8UC4, new Scalar(0, 0, 0));
         tmp1 = new Mat(height, width, CvType.CV_8UC4);
         tmp2 = new Mat(width, height, CvType.CV_8UC4);
+        displayTmp = new Mat(width, height, CvType.CV_8UC4);
 
+        //create the pooled images
+        //the processed frame is rotated, so its width and height are swapped if the rotation is sideways
+        if ((cameraOrientation.angle + 90) % 180 == 0) {
+            pooledFrame = new Mat(height, width, CvType.CV_8UC4);
+        } else {
+            pooledFrame = new Mat(width, height, CvType.CV_8UC4);
+        }
+        display = new Mat(height, width, CvType.CV_8UC4, new Scalar(0, 0, 0));
+        displaySize = display.size();
 
         if (frameGrabber != null) {
-            imageProcessor = frameGrabber.getImageProcessor();
+            setImageProcessor(frameGrabber.getImageProcessor());
+            governor = frameGrabber.getGovernor();
+            pooled = frameGrabber.isPooled();
+            displayEnabled = frameGrabber.isDisplayEnabled();
         }
-        frameGrabber = this;
+        GlobalFrameGrabber.set(this);
     }
 
     @Override
@@ -120,6 +178,26 @@ public class RealFrameGrabber implements FrameGrabber {
         return saveImages;
     }
 
+    @Override
+    public boolean isPooled() {
+        return pooled;
+    }
+
+    @Override
+    public boolean isDisplayEnabled() {
+        return displayEnabled;
+    }
+
+    @Override
+    public int getMatAllocations() {
+        return matAllocations;
+    }
+
+    @Override
+    public FrameGovernor getGovernor() {
+        return governor;
+    }
+
     @Override
     public ImageProcessor getImageProcessor() {
         return imageProcessor;
@@ -145,8 +223,24 @@ public class RealFrameGrabber implements FrameGrabber {
         this.saveImages = saveImages;
     }
 
+    @Override
+    public void setPooled(boolean pooled) {
+        this.pooled = pooled;
+    }
+
+    @Override
+    public void setDisplayEnabled(boolean displayEnabled) {
+        this.displayEnabled = displayEnabled;
+    }
+
+    @Override
+    public void setGovernor(FrameGovernor governor) {
+        this.governor = governor;
+    }
+
     @Override
     public void setImageProcessor(ImageProcessor imageProcessor) {
+        processStage = imageProcessor == null ? null : Profiler.getStage(imageProcessor.getClass().getSimpleName(), "process");
         this.imageProcessor = imageProcessor;
     }
 
@@ -194,6 +288,10 @@ public class RealFrameGrabber implements FrameGrabber {
 
     @Override
     public ImageProcessorResult getResult() {
+        FrameGovernor governor = this.governor;
+        if (governor != null) {
+            governor.onResultConsumed();
+        }
         return result;
     }
 
@@ -214,9 +312,13 @@ public class RealFrameGrabber implements FrameGrabber {
             stopFrameGrabber(); //and stop grabbing
             resultReady = true;
         } else if (mode == Mode.CONTINUOUS) { //if in continuous mode
-            resultReady = false;
-            processFrame(inputFrame); //process and stay in continuous mode
-            resultReady = true;
+            FrameGovernor governor = this.governor;
+            //the governor can skip frames, which leaves the last result as it was
+            if (governor == null || governor.shouldProcess()) {
+                resultReady = false;
+                processFrame(inputFrame); //process and stay in continuous mode
+                resultReady = true;
+            }
         } else if (mode == Mode.THROWAWAY) { //if throwing away frames
             return blank;
         } else if (mode == Mode.STOPPED) { //if stopped
@@ -234,7 +336,93 @@ public class RealFrameGrabber implements FrameGrabber {
         } else {
             stopFrameGrabber(); //paranoia
         }
-        return frame; //this is displayed on the screen
+        //this is displayed on the screen
+        if (!displayEnabled) {
+            return blank;
+        } else {
+            return display;
+        }
+    }
+
+    /**
+     * Run the imageProcessor on a frame at the resolution chosen by the governor
+     *
+     * @param frameTime the time the frame was taken
+     * @param input     the rotated frame
+     * @return the result from the imageProcessor
+     */
+    private ImageProcessorResult runImageProcessor(long frameTime, Mat input) {
+        frameContext.setFrame(input);
+        FrameGovernor governor = this.governor;
+        FrameContext context = governor == null ? frameContext : governor.getProcessingFrame(frameContext, scaledFrameContext);
+
+        long start = System.nanoTime();
+        ImageProcessorResult result = imageProcessor.process(frameTime, context, saveImages);
+        long nanos = System.nanoTime() - start;
+
+        Profiler.record(processStage, nanos);
+        if (governor != null) {
+            governor.onProcessed(nanos);
+        }
+        return result;
+    }
+
+    /**
+     * Process a single frame using only the preallocated images
+     * The frame is rotated once on the way in and warped once on the way out,
+     * and nothing is logged, so no strings are built for each frame
+     *
+     * @param inputFrame the frame
+     */
+    private void processFramePooled(Mat inputFrame) {
+        int allocations = 0;
+
+        //start the loop timer
+        if (mode == Mode.SINGLE) {
+            loopTimer = System.nanoTime();
+        }
+        long frameTime = System.currentTimeMillis();
+
+        //rotate the input frame into the pooled frame
+        long address = pooledFrame.dataAddr();
+        ImageUtil.rotate(inputFrame, pooledFrame, cameraOrientation.angle + 90);
+        if (pooledFrame.dataAddr() != address) allocations++;
+
+        //process the image using the provided imageProcessor
+        result = runImageProcessor(frameTime, pooledFrame);
+
+        if (displayEnabled && result != null && result.getFrame() != null) {
+            Mat output = result.getFrame();
+            int angle = ignoreOrientationForDisplay ? 0 : -cameraOrientation.angle;
+
+            //only recompute the display transform when the orientation or the output size changes
+            if (displayTransform == null || angle != displayTransformAngle || output.width() != displayTransformWidth || output.height() != displayTransformHeight) {
+                if (displayTransform != null) {
+                    displayTransform.release();
+                }
+                displayTransform = ImageUtil.getRightAngleTransform(output.size(), angle, displaySize);
+                displayTransformAngle = angle;
+                displayTransformWidth = output.width();
+                displayTransformHeight = output.height();
+                allocations++;
+            }
+
+            //rotate and resize the output to the display frame in one step
+            address = display.dataAddr();
+            Imgproc.warpAffine(output, display, displayTransform, displaySize, Imgproc.INTER_NEAREST);
+            if (display.dataAddr() != address) allocations++;
+        }
+
+        matAllocations = allocations;
+
+        //Loop timer
+        long now = System.nanoTime();
+        if (loopTimer > 0) {
+            loopCount++;
+            totalTime += now - loopTimer;
+            Profiler.record(loopStage, now - loopTimer);
+        }
+        loopTimer = now;
     }
 
     /**
@@ -246,6 +434,10 @@ public class RealFrameGrabber implements FrameGrabber {
         if (imageProcessor == null) {
             return;
         }
+        if (pooled) {
+            processFramePooled(inputFrame);
+            return;
+        }
         //start the loop timer
         if (mode == Mode.SINGLE) {
             loopTimer = System.nanoTime();
@@ -254,36 +446,31 @@ public class RealFrameGrabber implements FrameGrabber {
 
         //get the rgb alpha image
         stepTimer.start();
-        Log.i(tag, "frame orientation: " + cameraOrientation);
-
         ImageUtil.rotate(inputFrame, frame, cameraOrientation.angle + 90);
 
         stepTimer.log("rgba conversion");
 
         //process the image using the provided imageProcessor
         stepTimer.start();
-        result = imageProcessor.process(frameTime, frame, saveImages); //process
-        frame = result.getFrame(); //get the output frame
+        result = runImageProcessor(frameTime, frame); //process
+        Mat output = result.getFrame(); //get the output frame
         stepTimer.log("imageProcessor");
-        if (result == null) {
-            Log.i(tag, "Result is null");
-        } else {
-            Log.i(tag, "Result: " + result);
-        }
 
-        stepTimer.start();
-        Log.i(tag, "frame size: " + frame.size());
+        if (displayEnabled) {
+            stepTimer.start();
 
-        if (ignoreOrientationForDisplay) {
-            ImageUtil.rotate(frame, tmp1, 0);
-        } else {
-            ImageUtil.rotate(frame, tmp1, -cameraOrientation.angle);
-        }
-        Core.transpose(tmp1, frame);
-        Imgproc.resize(frame, tmp2, tmp2.size(), 0, 0, 0);
-        Core.transpose(tmp2, frame);
+            if (ignoreOrientationForDisplay) {
+                ImageUtil.rotate(output, tmp1, 0);
+            } else {
+                ImageUtil.rotate(output, tmp1, -cameraOrientation.angle);
+            }
+            //the flipped image goes through its own buffers, so the frame buffer is never reallocated
+            Core.transpose(tmp1, displayTmp);
+            Imgproc.resize(displayTmp, tmp2, tmp2.size(), 0, 0, 0);
+            Core.transpose(tmp2, display);
 
-        stepTimer.log("flipping the image");
+            stepTimer.log("flipping the image");
+        }
 
         //Loop timer
         long now = System.nanoTime();
@@ -291,10 +478,7 @@ public class RealFrameGrabber implements FrameGrabber {
         if (loopTimer > 0) {
             loopCount++;
             totalTime += loopTime;
-            Log.i(tag, "LOOP #" + loopCount);
-            Log.i(tag, "LOOP TIME: " + loopTime / 1000000.0 + " ms");
-            Log.i(tag, "AVERAGE LOOP TIME: " + totalTime / 1000000.0 / loopCount + " ms");
-            Log.i(tag, "ESTIMATED AVERAGE FPS: " + 1000.0 * 1000000.0 * loopCount / totalTime);
+            Profiler.record(loopStage, loopTime);
         }
         loopTimer = now;
     }
@@ -0,0 +1,219 @@
+package ftc.evlib.vision.framegrabber;
+
+import org.opencv.core.Mat;
+
+import java.io.IOException;
+
+import ftc.evlib.vision.processors.FrameContext;
+import ftc.evlib.vision.processors.ImageProcessor;
+import ftc.evlib.vision.processors.ImageProcessorResult;
+
+/**
+ * This file was made by the electronVolts, FTC team 7393
+ * Date Created: 10/18/26
+ *
+ * A FrameGrabber that feeds the frames of a FrameRecording through the ImageProcessor
+ * The frames are given the time they were recorded with, so processors that track over time behave the same.
+ * It can replay at the recorded speed, or as fast as the processor can go for benchmarks and regression tests.
+ * It starts in continuous mode, so every frame that is fed is processed until the mode is changed.
+ * In single frame mode only the next frame is processed, and frames fed while stopped or throwing away frames are skipped.
+ *
+ * @see FrameRecording
+ * @see FrameRecorder
+ */
+public class ReplayFrameGrabber extends FakeFrameGrabber {
+    private final FrameRecording recording;
+    private final boolean recordedSpeed;
+
+    private volatile ImageProcessor imageProcessor = null;
+    private volatile Mode mode = Mode.CONTINUOUS;
+    private volatile boolean resultReady = false;
+    private volatile ImageProcessorResult result = null;
+    private boolean saveImages = false;
+
+    private final Mat frame = new Mat();
+    private final FrameContext frameContext = new FrameContext();
+    private final FrameContext scaledFrameContext = new FrameContext();
+    private volatile FrameGovernor governor = null;
+
+    private int frameIndex = 0, framesProcessed = 0;
+    private long replayStartTime, recordingStartTime;
+
+    /**
+     * @param recording     the recording to replay
+     * @param recordedSpeed true to replay at the speed it was recorded, false to replay as fast as possible
+     */
+    public ReplayFrameGrabber(FrameRecording recording, boolean recordedSpeed) {
+        this.recording = recording;
+        this.recordedSpeed = recordedSpeed;
+    }
+
+    /**
+     * Feed the next frame of the recording through the ImageProcessor (if the mode and governor allow it)
+     *
+     * @return false if there are no frames left
+     * @throws IOException if the frame cannot be read
+     */
+    public boolean feedNextFrame() throws IOException {
+        if (frameIndex >= recording.getNumFrames()) {
+            return false;
+        }
+        long frameTime = recording.getFrameTime(frameIndex);
+
+        if (recordedSpeed) {
+            if (frameIndex == 0) {
+                replayStartTime = System.currentTimeMillis();
+                recordingStartTime = frameTime;
+            } else {
+                //wait until the frame would have arrived
+                long wait = (frameTime - recordingStartTime) - (System.currentTimeMillis() - replayStartTime);
+                if (wait > 0) {
+                    try {
+                        Thread.sleep(wait);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                }
+            }
+        }
+
+        recording.readFrame(frameIndex, frame);
+        frameIndex++;
+        processFrame(frameTime, frame);
+        return true;
+    }
+
+    /**
+     * Feed every remaining frame of the recording through the ImageProcessor
+     *
+     * @return the number of frames the ImageProcessor was run on (fewer than were fed if the mode or governor skipped some)
+     * @throws IOException if a frame cannot be read
+     */
+    public int replay() throws IOException {
+        int start = framesProcessed;
+        while (feedNextFrame()) {
+            //keep feeding until there are no frames left
+        }
+        return framesProcessed - start;
+    }
+
+    /**
+     * Go back to the first frame
+     */
+    public void rewind() {
+        frameIndex = 0;
+    }
+
+    public int getFrameIndex() {
+        return frameIndex;
+    }
+
+    /**
+     * @return the number of frames the ImageProcessor has been run on
+     */
+    public int getFramesProcessed() {
+        return framesProcessed;
+    }
+
+    private void processFrame(long frameTime, Mat inputFrame) {
+        ImageProcessor imageProcessor = this.imageProcessor;
+        if (imageProcessor == null || (mode != Mode.SINGLE && mode != Mode.CONTINUOUS)) {
+            return;
+        }
+        FrameGovernor governor = this.governor;
+        if (governor != null && mode == Mode.CONTINUOUS && !governor.shouldProcess()) {
+            return;
+        }
+        frameContext.setFrame(inputFrame);
+        FrameContext context = governor == null ? frameContext : governor.getProcessingFrame(frameContext, scaledFrameContext);
+        long start = System.nanoTime();
+        result = imageProcessor.process(frameTime, context, saveImages);
+        framesProcessed++;
+        if (governor != null) {
+            governor.onProcessed(System.nanoTime() - start);
+        }
+        resultReady = true;
+        if (mode == Mode.SINGLE) {
+            mode = Mode.STOPPED;
+        }
+    }
+
+    @Override
+    public boolean isSaveImages() {
+        return saveImages;
+    }
+
+    @Override
+    public void setSaveImages(boolean saveImages) {
+        this.saveImages = saveImages;
+    }
+
+    @Override
+    public FrameGovernor getGovernor() {
+        return governor;
+    }
+
+    @Override
+    public ImageProcessor getImageProcessor() {
+        return imageProcessor;
+    }
+
+    @Override
+    public void setGovernor(FrameGovernor governor) {
+        this.governor = governor;
+    }
+
+    @Override
+    public void setImageProcessor(ImageProcessor imageProcessor) {
+        this.imageProcessor = imageProcessor;
+    }
+
+    @Override
+    public Mode getMode() {
+        return mode;
+    }
+
+    @Override
+    public void grabSingleFrame() {
+        mode = Mode.SINGLE;
+        resultReady = false;
+    }
+
+    @Override
+    public void grabContinuousFrames() {
+        mode = Mode.CONTINUOUS;
+        resultReady = false;
+    }
+
+    @Override
+    public void throwAwayFrames() {
+        mode = Mode.THROWAWAY;
+        resultReady = false;
+    }
+
+    @Override
+    public void stopFrameGrabber() {
+        mode = Mode.STOPPED;
+    }
+
+    @Override
+    public boolean isResultReady() {
+        return resultReady;
+    }
+
+    @Override
+    public ImageProcessorResult getResult() {
+        FrameGovernor governor = this.governor;
+        if (governor != null) {
+            governor.onResultConsumed();
+        }
+        return result;
+    }
+
+    @Override
+    public Mat receiveFrame(Mat inputFrame) {
+        processFrame(System.currentTimeMillis(), inputFrame);
+        return inputFrame;
+    }
+}
@@ -1,6 +1,5 @@
 package ftc.evlib.vision.framegrabber;
 
-import android.graphics.Bitmap;
 import android.support.annotation.IdRes;
 
 import com.google.common.collect.ImmutableList;
@@ -19,7 +18,12 @@ import com.vuforia.Vuforia;
 import org.firstinspires.ftc.robotcore.external.navigation.VuforiaTrackable;
 import org.firstinspires.ftc.robotcore.external.navigation.VuforiaTrackables;
 import org.firstinspires.ftc.robotcore.internal.VuforiaLocalizerImpl;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -50,6 +54,16 @@ public class VuforiaFrameFeeder extends VuforiaLocalizerImpl {
 
     private int width, height;
 
+    /**
+     * Buffers reused for every frame to convert the vuforia image to an opencv Mat
+     * rgb565 holds the raw pixels (including any row padding), rgb565Cropped is a view of it without the padding,
+     * rgb565Resized holds them scaled down, and rgba is the converted frame that is passed to the FrameGrabber
+     */
+    private byte[] pixelBytes = new byte[0];
+    private Mat rgb565 = new Mat(), rgb565Cropped = new Mat();
+    private final Mat rgb565Resized = new Mat();
+    private final Mat rgba = new Mat();
+
     /**
      * Initialize vuforia
      * This method quits immediately, but the ResultReceiver takes a few seconds before it has the result
@@ -108,6 +122,7 @@ public class VuforiaFrameFeeder extends VuforiaLocalizerImpl {
 
     private final FrameGrabber.CameraOrientation cameraOrientation;
     private final boolean ignoreOrientationForDisplay;
+    private final boolean async;
 
     public VuforiaFrameFeeder(Parameters params, int widthRequest, int heightRequest) {
         this(params, widthRequest, heightRequest, FrameGrabber.CameraOrientation.PORTRAIT_UP, false);
@@ -157,19 +172,16 @@ public class VuforiaFrameFeeder extends VuforiaLocalizerImpl {
                     //if this is the first frame
                     if (!frameGrabberInitialized) {
                         //initialize the FrameGrabber
-                        new RealFrameGrabber(TAG, widthRequest, heightRequest, cameraOrientation, ignoreOrientationForDisplay, true);
+                        if (async) {
+                            new AsyncFrameGrabber(TAG, widthRequest, heightRequest, cameraOrientation, ignoreOrientationForDisplay, true);
+                        } else {
+                            new RealFrameGrabber(TAG, widthRequest, heightRequest, cameraOrientation, ignoreOrientationForDisplay, true);
+                        }
                         frameGrabberInitialized = true;
                     }
 
-                    //convert the vuforia image into a Bitmap
-                    Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.RGB_565);
-                    bitmap.copyPixelsFromBuffer(rgb.getPixels());
-
-                    //scale the Bitmap to the requested size
-                    Bitmap resized = Bitmap.createScaledBitmap(bitmap, heightRequest, widthRequest, false);
-
-                    //pass the resized Bitmap to the FrameGrabber
-                    frameGrabber.receiveFrame(resized);
+                    //convert the vuforia image into a Mat and pass it to the FrameGrabber
+                    frameGrabber.receiveFrame(convertImage(rgb));
                     //TODO display resulting image on the screen
                 }
             }
@@ -178,6 +190,40 @@ public class VuforiaFrameFeeder extends VuforiaLocalizerImpl {
         }
     }
 
+    /**
+     * Copy the RGB565 pixels of a vuforia image into a Mat, scale it to the requested size, and convert it to RGBA
+     * The same buffers are used for every frame, so no Bitmaps or Mats are allocated unless the image size changes
+     *
+     * @param image the vuforia image in RGB565 format
+     * @return the RGBA Mat scaled to the requested size
+     */
+    private Mat convertImage(Image image) {
+        //the stride is the number of bytes per row, which can include padding
+        int stride = image.getStride();
+        int length = stride * image.getHeight();
+
+        //only reallocate when the image size changes
+        if (pixelBytes.length != length) {
+            pixelBytes = new byte[length];
+            rgb565 = new Mat(image.getHeight(), stride / 2, CvType.CV_8UC2);
+            rgb565Cropped = rgb565.colRange(0, image.getWidth());
+        }
+
+        ByteBuffer pixels = image.getPixels();
+        pixels.rewind();
+        pixels.get(pixelBytes, 0, length);
+        rgb565.put(0, 0, pixelBytes);
+
+        //scale down first so the color conversion runs on fewer pixels
+        //nearest neighbor keeps the 2 bytes of each pixel together
+        Imgproc.resize(rgb565Cropped, rgb565Resized, new Size(heightRequest, widthRequest), 0, 0, Imgproc.INTER_NEAREST);
+
+        //opencv calls the android RGB565 format BGR565
+        Imgproc.cvtColor(rgb565Resized, rgba, Imgproc.COLOR_BGR5652RGBA);
+
+        return rgba;
+    }
+
     public static Vector2D vef2FToVector2D(Vec2F vec2F) {
         return new Vector2D(vec2F.getData()[1], vec2F.getData()[0]);
     }
@@ -239,11 +285,25 @@ public class VuforiaFrameFeeder extends VuforiaLocalizerImpl {
      * @param ignoreOrientationForDisplay whether or not to rotate the output frame to display on the phone
      */
     public VuforiaFrameFeeder(Parameters parameters, int widthRequest, int heightRequest, FrameGrabber.CameraOrientation cameraOrientation, boolean ignoreOrientationForDisplay) {
+        this(parameters, widthRequest, heightRequest, cameraOrientation, ignoreOrientationForDisplay, false);
+    }
+
+    /**
+     * @param parameters                  the vuforia parameters
+     * @param widthRequest                the width to resize the input frame to
+     * @param heightRequest               the height to resize the input frame to
+     * @param cameraOrientation           the orientation of the camera on the robot
+     * @param ignoreOrientationForDisplay whether or not to rotate the output frame to display on the phone
+     * @param async                       whether or not to process the frames on a separate thread so the vuforia callback never waits
+     * @see AsyncFrameGrabber
+     */
+    public VuforiaFrameFeeder(Parameters parameters, int widthRequest, int heightRequest, FrameGrabber.CameraOrientation cameraOrientation, boolean ignoreOrientationForDisplay, boolean async) {
         super(parameters);
         this.widthRequest = widthRequest;
         this.heightRequest = heightRequest;
         this.cameraOrientation = cameraOrientation;
         this.ignoreOrientationForDisplay = ignoreOrientationForDisplay;
+        this.async = async;
         stopAR();
         clearGlSurface();
 
@@ -0,0 +1,108 @@
+package ftc.evlib.vision.processors;
+
+/**
+ * This file was made by the electronVolts, FTC team 7393
+ * Date Created: 10/18/26
+ *
+ * Combines the beacon colors found in many frames into one answer and how sure it is
+ *
+ * A beacon is either red on the left and blue on the right, or the other way around.
+ * Each frame is evidence for one of the two, weighted from 0 to 1 by how good the frame was.
+ * A frame with a weight of 1 is treated as being right FRAME_ACCURACY of the time.
+ * The evidence is added up as log odds, so the state is a few numbers no matter how many frames there are.
+ * Frames where the colors were not found do not change the answer.
+ *
+ * @see VuforiaBeaconColorProcessor
+ */
+public class BeaconColorEstimator {
+    /**
+     * The chance a frame with a weight of 1 has the right colors
+     */
+    private static final double FRAME_ACCURACY = 0.8;
+
+    /**
+     * The log odds added by a frame with a weight of 1
+     */
+    private static final double FRAME_LOG_ODDS = Math.log(FRAME_ACCURACY / (1 - FRAME_ACCURACY));
+
+    /**
+     * The limit on the log odds, so a long run of frames can still be overturned
+     */
+    private static final double MAX_LOG_ODDS = 20;
+
+    //positive for red on the left, negative for blue on the left
+    private double logOdds = 0;
+    private int frames = 0, framesUsed = 0;
+
+    /**
+     * Add the result of one frame
+     *
+     * @param result the colors found in the frame
+     * @param weight how good the frame was, from 0 to 1
+     */
+    public void update(BeaconColorResult result, double weight) {
+        frames++;
+        if (weight <= 0) return;
+        weight = Math.min(weight, 1);
+
+        BeaconColorResult.BeaconColor left = result.getLeftColor();
+        BeaconColorResult.BeaconColor right = result.getRightColor();
+        if (left == BeaconColorResult.BeaconColor.RED && right == BeaconColorResult.BeaconColor.BLUE) {
+            logOdds += weight * FRAME_LOG_ODDS;
+        } else if (left == BeaconColorResult.BeaconColor.BLUE && right == BeaconColorResult.BeaconColor.RED) {
+            logOdds -= weight * FRAME_LOG_ODDS;
+        } else {
+            return;
+        }
+        framesUsed++;
+        logOdds = Math.max(-MAX_LOG_ODDS, Math.min(MAX_LOG_ODDS, logOdds));
+    }
+
+    /**
+     * @return the chance that the colors from getResult() are right, from 0.5 to 1
+     */
+    public double getPosterior() {
+        return 1 / (1 + Math.exp(-Math.abs(logOdds)));
+    }
+
+    /**
+     * @param threshold the chance to reach, from 0.5 to 1
+     * @return whether or not the answer is at least that likely to be right
+     */
+    public boolean isConfident(double threshold) {
+        return framesUsed > 0 && getPosterior() >= threshold;
+    }
+
+    /**
+     * @return the most likely colors, or unknown if there is no evidence either way
+     */
+    public BeaconColorResult getResult() {
+        if (logOdds > 0) {
+            return new BeaconColorResult(BeaconColorResult.BeaconColor.RED, BeaconColorResult.BeaconColor.BLUE, getPosterior());
+        } else if (logOdds < 0) {
+            return new BeaconColorResult(BeaconColorResult.BeaconColor.BLUE, BeaconColorResult.BeaconColor.RED, getPosterior());
+        } else {
+            return new BeaconColorResult();
+        }
+    }
+
+    /**
+     * @return the number of frames added
+     */
+    public int getFrames() {
+        return frames;
+    }
+
+    /**
+     * @return the number of frames that had colors and a weight above 0
+     */
+    public int getFramesUsed() {
+        return framesUsed;
+    }
+
+    public void reset() {
+        logOdds = 0;
+        frames = 0;
+        framesUsed = 0;
+    }
+}
@@ -72,15 +72,25 @@ public class BeaconColorResult {
     }
 
     private final BeaconColor leftColor, rightColor;
+    private final double confidence;
 
     public BeaconColorResult() {
-        this.leftColor = BeaconColor.UNKNOWN;
-        this.rightColor = BeaconColor.UNKNOWN;
+        this(BeaconColor.UNKNOWN, BeaconColor.UNKNOWN, 0);
     }
 
     public BeaconColorResult(BeaconColor leftColor, BeaconColor rightColor) {
+        this(leftColor, rightColor, 1);
+    }
+
+    /**
+     * @param leftColor  the color of the left side
+     * @param rightColor the color of the right side
+     * @param confidence how clearly the colors were separated, from 0 to 1
+     */
+    public BeaconColorResult(BeaconColor leftColor, BeaconColor rightColor, double confidence) {
         this.leftColor = leftColor;
         this.rightColor = rightColor;
+        this.confidence = confidence;
     }
 
     public String toString() {
@@ -94,4 +104,11 @@ public class BeaconColorResult {
     public BeaconColor getRightColor() {
         return rightColor;
     }
+
+    /**
+     * @return how clearly the colors were separated, from 0 to 1
+     */
+    public double getConfidence() {
+        return confidence;
+    }
 }
@@ -5,7 +5,6 @@ import android.util.Log;
 import org.opencv.core.Core;
 import org.opencv.core.Mat;
 import org.opencv.core.MatOfPoint;
-import org.opencv.core.MatOfPoint2f;
 import org.opencv.core.Point;
 import org.opencv.core.RotatedRect;
 import org.opencv.core.Scalar;
@@ -17,7 +16,9 @@ import java.util.Collections;
 import java.util.List;
 
 import ftc.evlib.util.StepTimer;
+import ftc.evlib.vision.ContourAnalyzer;
 import ftc.evlib.vision.ImageUtil;
+import ftc.evlib.vision.MatArena;
 
 /**
  * This file was made by the electronVolts, FTC team 7393
@@ -34,7 +35,7 @@ public class BeaconFinder implements ImageProcessor<BeaconPositionResult> {
     private static final int BLUR_AMOUNT = 3; //used to blur the binary image
     private static final int MAX_BLACK_V_BLUR = 80; //post-blur hsv value threshold
     private static final double MIN_RATIO = .7; //min ratio of ellipse sides to be considered a circle
-    private static final int MAX_NUM_CIRCLES = 20;
+    private static final int MAX_NUM_CIRCLES = 100;
     private static final double MIN_SCORE = 0.84;
     private static final double FRAME_AREA_SCALE = 1E-4; //scaling factor for the frame's area
     private static final double MIN_AREA = 0; //min area for circles to be considered
@@ -51,8 +52,25 @@ public class BeaconFinder implements ImageProcessor<BeaconPositionResult> {
      */
     private final StepTimer stepTimer = new StepTimer(TAG);
 
+    /**
+     * Finds the best pair of circles
+     */
+    private final CircleMatcher circleMatcher = new CircleMatcher(MIN_SCORE);
+
+    /**
+     * The temporary images, reused every frame
+     */
+    private final MatArena arena = new MatArena();
+
+    /**
+     * Decides which contours are circles
+     */
+    private final ContourAnalyzer contourAnalyzer = new ContourAnalyzer(MIN_RATIO);
+
     @Override
-    public ImageProcessorResult<BeaconPositionResult> process(long startTime, Mat rgbaFrame, boolean saveImages) {
+    public ImageProcessorResult<BeaconPositionResult> process(long startTime, FrameContext frame, boolean saveImages) {
+        arena.reset();
+        Mat rgbaFrame = frame.getRgba();
         if (saveImages) {
             stepTimer.start();
             //save the raw camera image for logging
@@ -62,13 +80,12 @@ public class BeaconFinder implements ImageProcessor<BeaconPositionResult> {
 
         stepTimer.start();
         //convert image to hsv
-        Mat hsv = new Mat();
-        Imgproc.cvtColor(rgbaFrame, hsv, Imgproc.COLOR_RGB2HSV);
+        Mat hsv = frame.getHsv();
         stepTimer.log("rgb2hsv");
 
         stepTimer.start();
         //threshold the hsv image to find black regions
-        Mat blackThreshImage = new Mat();
+        Mat blackThreshImage = arena.mat();
         Core.inRange(hsv, new Scalar(0, 0, 0), new Scalar(179, 255, MAX_BLACK_V), blackThreshImage);
 
         //blur the image and re-threshold to "de-bounce" the noisy sections
@@ -86,7 +103,8 @@ public class BeaconFinder implements ImageProcessor<BeaconPositionResult> {
         stepTimer.start();
         //find contours (edges between black and non-black)
         List<MatOfPoint> contours = new ArrayList<>();
-        Imgproc.findContours(blackThreshImage, contours, new Mat(), Imgproc.RETR_LIST, Imgproc.CHAIN_APPROX_SIMPLE);
+        Imgproc.findContours(blackThreshImage, contours, arena.mat(), Imgproc.RETR_LIST, Imgproc.CHAIN_APPROX_SIMPLE);
+        arena.adoptAll(contours);
         Imgproc.drawContours(rgbaFrame, contours, -1, ImageUtil.YELLOW, THICKNESS);
         stepTimer.log("contours");
 
@@ -95,37 +113,12 @@ public class BeaconFinder implements ImageProcessor<BeaconPositionResult> {
         //loop through the contours to find the circular ones
         List<Circle> circles = new ArrayList<>();
         for (int i = 0; i < contours.size(); i++) {
-            //convert MatOfPoint to MatOfPoint2f
-            MatOfPoint2f contour = new MatOfPoint2f();
-            contour.fromList(contours.get(i).toList());
-
-            RotatedRect ellipse = null;
-            boolean isValid = false;
-            //fitting an ellipse requires at least 5 points
-            if (contour.height() >= 5) {
-                //fit an ellipse to the contour points
-                ellipse = Imgproc.fitEllipse(contour);
-                double area = ellipse.size.area() / frameArea;
-//        Log.i(TAG, "Ellipse Area: " + area);
-                //filter out ellipses that are too big or too small
-                if (area >= MIN_AREA && area <= MAX_AREA) {
-                    //find the ratio of the shortest side to the longest side
-                    //by finding the ratio of the width to the height
-                    double ratio = ellipse.size.width / ellipse.size.height;
-
-                    //and inverting it if it is greater than 1
-                    if (ratio > 1) ratio = 1 / ratio;
-
-                    //reject ellipses that are not circular enough
-                    if (ratio >= MIN_RATIO) {
-                        isValid = true;
-                    }
-                }
-            }
+            ContourAnalyzer.Status status = contourAnalyzer.analyze(contours.get(i), frameArea, MIN_AREA, MAX_AREA);
+            RotatedRect ellipse = contourAnalyzer.getEllipse();
 
             //draw the ellipse if it was found
-            if (ellipse != null) {
-                if (isValid) {
+            if (status.hasEllipse) {
+                if (status == ContourAnalyzer.Status.CIRCLE) {
                     //if it is valid, add it to the list of circles
                     circles.add(new Circle(ellipse));
                     //and draw it in green
@@ -155,24 +148,13 @@ public class BeaconFinder implements ImageProcessor<BeaconPositionResult> {
                 circles = circles.subList(0, MAX_NUM_CIRCLES);
             }
 
-            List<CircleMatch> matches = new ArrayList<>();
-            //compare every circle with every other circle exactly once by:
-            //looping through all the circles except the last
-            for (int i = 0; i < circles.size() - 1; i++) {
-                //looping through all the circles after the current one
-                for (int j = i + 1; j < circles.size(); j++) {
-                    matches.add(new CircleMatch(circles.get(i), circles.get(j), hsv.size()));
-                }
-            }
-//      Log.i(TAG, String.valueOf(matches.toArray().getClass()));
-            Collections.sort(matches);
-//      for (CircleMatch match : matches) {
-//        match.log();
-//      }
-            CircleMatch bestMatch = matches.get(matches.size() - 1);
-            bestMatch.log();
-            matchScore = bestMatch.getScore();
-            if (matchScore >= MIN_SCORE) {
+            //find the best pair without scoring every pair
+            circleMatcher.setCircles(circles, hsv.size());
+            List<CircleMatch> matches = circleMatcher.findBestMatches(1);
+            if (!matches.isEmpty()) {
+                CircleMatch bestMatch = matches.get(0);
+                bestMatch.log();
+                matchScore = bestMatch.getScore();
                 p1 = bestMatch.getC1().p;
                 p2 = bestMatch.getC2().p;
             }
@@ -255,4 +237,18 @@ public class BeaconFinder implements ImageProcessor<BeaconPositionResult> {
         Log.i(TAG, "BeaconPositionResult: " + result);
         return new ImageProcessorResult<>(startTime, rgbaFrame, result);
     }
+
+    /**
+     * @return the number of circle pairs that were checked in the last frame
+     */
+    public int getPairsConsidered() {
+        return circleMatcher.getPairsConsidered();
+    }
+
+    /**
+     * @return the number of circle pairs that passed the cheap limits and were fully scored in the last frame
+     */
+    public int getPairsScored() {
+        return circleMatcher.getPairsScored();
+    }
 }
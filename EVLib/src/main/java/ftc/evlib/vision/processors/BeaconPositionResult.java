@@ -12,7 +12,7 @@ import org.opencv.imgproc.Imgproc;
  *
  * Stores the position of the beacon in the field of view
  */
-public class BeaconPositionResult {
+public class BeaconPositionResult implements Location {
     private static final double LENGTH_RATIO_EDGE = .75; //ratio of dist. between buttons to beacon width/2
     private static final double LENGTH_RATIO_INNER = .15; //ratio of dist. between buttons to (middle section width)/2
     private static final double LENGTH_RATIO_TOP = .7; //ratio of dist. between buttons to dist. from button to top
@@ -125,10 +125,35 @@ public class BeaconPositionResult {
         return score;
     }
 
+    @Override
     public double getWidth() {
         return width;
     }
 
+    /**
+     * @return the x position of the midpoint between the buttons
+     */
+    @Override
+    public double getX() {
+        return midpoint.x;
+    }
+
+    /**
+     * @return the y position of the midpoint between the buttons
+     */
+    @Override
+    public double getY() {
+        return midpoint.y;
+    }
+
+    /**
+     * @return the height of the beacon
+     */
+    @Override
+    public double getHeight() {
+        return rect.height;
+    }
+
     /**
      * @return the rotation matrix to rotate the beacon around the midpoint
      */
@@ -76,21 +76,53 @@ public class CircleMatch implements Comparable<CircleMatch> {
         dist = Math.sqrt((c1.p.x - c2.p.x) * (c1.p.x - c2.p.x) + (c1.p.y - c2.p.y) * (c1.p.y - c2.p.y));
 
         //calculate the expected area of each circle based on the distance between the circles
-        expectedArea = (.028 * dist * dist + 2.4 * dist - 12) / imageSize.area(); //(144*176);
+        expectedArea = expectedPixelArea(dist) / imageSize.area(); //(144*176);
 
         //calculate the error from the expected value
         areaError = Math.abs(area - expectedArea) / expectedArea;
 
         //calculate the overall score based on all the factors
         score = Math.sqrt((
-                0.9 * limit01(1 - areaError * areaError) +
-                        1.0 * limit01(1 - diff * diff) +
-                        1.8 * limit01(1 - Math.abs(angle) / 90) +
-                        1.0 * limit01(area / 0.03)
-        ) / (0.9 + 1.0 + 1.8 + 1.0));
+                AREA_ERROR_WEIGHT * areaErrorTerm(areaError) +
+                        DIFF_WEIGHT * diffTerm(diff) +
+                        ANGLE_WEIGHT * angleTerm(angle) +
+                        AREA_WEIGHT * areaTerm(area)
+        ) / TOTAL_WEIGHT);
     }
 
-    private double limit01(double val) {
+    //the weights of the factors in the score
+    static final double AREA_ERROR_WEIGHT = 0.9;
+    static final double DIFF_WEIGHT = 1.0;
+    static final double ANGLE_WEIGHT = 1.8;
+    static final double AREA_WEIGHT = 1.0;
+    static final double TOTAL_WEIGHT = AREA_ERROR_WEIGHT + DIFF_WEIGHT + ANGLE_WEIGHT + AREA_WEIGHT;
+
+    //the factors in the score, each from 0 to 1
+    static double areaErrorTerm(double areaError) {
+        return limit01(1 - areaError * areaError);
+    }
+
+    static double diffTerm(double diff) {
+        return limit01(1 - diff * diff);
+    }
+
+    static double angleTerm(double angle) {
+        return limit01(1 - Math.abs(angle) / 90);
+    }
+
+    static double areaTerm(double area) {
+        return limit01(area / 0.03);
+    }
+
+    /**
+     * @param dist the distance between the circles in pixels
+     * @return the expected area of each circle in pixels
+     */
+    static double expectedPixelArea(double dist) {
+        return .028 * dist * dist + 2.4 * dist - 12;
+    }
+
+    private static double limit01(double val) {
         return Math.min(1, Math.max(0, val));
     }
 
@@ -0,0 +1,294 @@
+package ftc.evlib.vision.processors;
+
+import org.opencv.core.Size;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This file was made by the electronVolts, FTC team 7393
+ * Date Created: 10/18/26
+ *
+ * Finds the pairs of circles with the highest CircleMatch scores without scoring every pair
+ *
+ * The circles are sorted by area, biggest first, and stored in primitive arrays (one array per property).
+ * Each score factor is between 0 and 1, so a pair can only reach the minimum score if the factors together
+ * do not take too much away from the total.
+ * For each circle, the partners are the smaller circles after it, so the circle's own area sets the area factor.
+ * Whatever is left limits how much smaller a partner can be, so the partners are searched until one is too small,
+ * and how far away it can be, from the area error. The size difference and angle are then checked per pair,
+ * so most pairs are rejected before any sqrt or atan2.
+ * Smaller circles have a bigger area factor deficit, so the search stops at the first circle with nothing left.
+ * Only the best k pairs are kept in a heap, and once it is full its worst score is used instead of the min score,
+ * which makes all the limits tighter.
+ *
+ * For example, at a min score of 0.84 a circle with 0.5% of the image area is only compared to circles
+ * at least 26% of its size, and once a pair with a score of 0.9 is found, to circles at least 75% of its size,
+ * and circles under 0.32% of the image area are not searched at all.
+ *
+ * The scores are exactly the same as the ones CircleMatch computes.
+ * The arrays are reused, so one CircleMatcher should not be used by multiple threads.
+ *
+ * @see CircleMatch
+ */
+public class CircleMatcher {
+    //small extra room so rounding errors never reject a pair that CircleMatch would accept
+    private static final double EPSILON = 1E-9;
+
+    private final double minScore;
+
+    //the circles sorted by area, biggest first
+    private final List<Circle> circles = new ArrayList<>();
+    private double imageArea;
+    private int width, height;
+
+    //the circles in structure-of-arrays form, in the same order
+    private double[] x = new double[0], y = new double[0], area = new double[0];
+
+    //the bounded min-heap of the best pairs
+    private double[] heapScore = new double[0];
+    private int[] heapI = new int[0], heapJ = new int[0];
+    private int heapSize;
+
+    //statistics from the last call to findBestMatches
+    private int pairsConsidered, pairsScored;
+
+    /**
+     * @param minScore the minimum score a pair needs to be returned (from 0 to 1)
+     */
+    public CircleMatcher(double minScore) {
+        if (minScore < 0 || minScore > 1) {
+            throw new IllegalArgumentException("minScore must be between 0 and 1");
+        }
+        this.minScore = minScore;
+    }
+
+    /**
+     * Store the circles to match
+     *
+     * @param circles   the circles (the list is not modified)
+     * @param imageSize the size of the image to scale the circle sizes
+     */
+    public void setCircles(List<Circle> circles, Size imageSize) {
+        this.circles.clear();
+        this.circles.addAll(circles);
+        //Circle sorts by area, biggest first
+        Collections.sort(this.circles);
+
+        imageArea = imageSize.area();
+        width = (int) imageSize.width;
+        height = (int) imageSize.height;
+
+        int n = circles.size();
+        if (x.length < n) {
+            x = new double[n];
+            y = new double[n];
+            area = new double[n];
+        }
+        for (int i = 0; i < n; i++) {
+            Circle circle = this.circles.get(i);
+            x[i] = circle.p.x;
+            y[i] = circle.p.y;
+            area[i] = circle.area;
+        }
+    }
+
+    /**
+     * Find the pairs of circles with the highest scores
+     *
+     * @param k the max number of pairs to return
+     * @return up to k pairs with a score of at least minScore, best first
+     */
+    public List<CircleMatch> findBestMatches(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1");
+        }
+        int n = circles.size();
+        pairsConsidered = 0;
+        pairsScored = 0;
+        heapSize = 0;
+        if (heapScore.length < k) {
+            heapScore = new double[k];
+            heapI = new int[k];
+            heapJ = new int[k];
+        }
+
+        for (int i = 0; i < n - 1; i++) {
+            //what the factors other than the area of circle i can take away
+            double budget = getMaxDeficit(k) - CircleMatch.AREA_WEIGHT * (1 - CircleMatch.areaTerm(area[i] / imageArea));
+            //the circles after this one are smaller, so they have even less left
+            if (budget < 0) break;
+
+            //the smallest partner from the size difference
+            double minPartnerArea = 0;
+            if (budget < CircleMatch.DIFF_WEIGHT) {
+                double maxDiff = Math.sqrt(budget / CircleMatch.DIFF_WEIGHT) + EPSILON;
+                minPartnerArea = area[i] * (1 - maxDiff);
+            }
+
+            //the farthest partner from the area error
+            double maxDist = Double.POSITIVE_INFINITY;
+            if (budget < CircleMatch.AREA_ERROR_WEIGHT) {
+                double maxAreaError = Math.sqrt(budget / CircleMatch.AREA_ERROR_WEIGHT) + EPSILON;
+                maxDist = maxDistance(area[i], maxAreaError);
+            }
+
+            for (int j = i + 1; j < n; j++) {
+                if (area[j] < minPartnerArea) break;
+                scorePair(i, j, k, maxDist);
+            }
+        }
+
+        //pop the heap into a list, worst first, then reverse it
+        CircleMatch[] matches = new CircleMatch[heapSize];
+        Size imageSize = new Size(width, height);
+        for (int m = heapSize - 1; m >= 0; m--) {
+            int i = heapI[0], j = heapJ[0];
+            removeMin();
+            matches[m] = new CircleMatch(circles.get(i), circles.get(j), imageSize);
+        }
+        return Arrays.asList(matches);
+    }
+
+    /**
+     * @return the most the weighted factors can be below their max of 1 for a pair to get into the heap
+     */
+    private double getMaxDeficit(int k) {
+        double threshold = minScore;
+        if (heapSize == k && heapScore[0] > threshold) {
+            threshold = heapScore[0];
+        }
+        return CircleMatch.TOTAL_WEIGHT * (1 - threshold * threshold) + EPSILON;
+    }
+
+    /**
+     * Check the pair one factor at a time, stopping as soon as it cannot beat the current kth best score
+     */
+    private void scorePair(int i, int j, int k, double maxDist) {
+        pairsConsidered++;
+
+        double maxDeficit = getMaxDeficit(k);
+
+        //size factors
+        double area1 = area[i] / imageArea;
+        double area2 = area[j] / imageArea;
+        double pairArea = Math.max(area1, area2);
+        double diff = Math.abs(area1 - area2) / pairArea;
+        double deficit = CircleMatch.DIFF_WEIGHT * (1 - CircleMatch.diffTerm(diff))
+                + CircleMatch.AREA_WEIGHT * (1 - CircleMatch.areaTerm(pairArea));
+        if (deficit > maxDeficit) return;
+
+        //distance limit, without a sqrt
+        double dx = x[j] - x[i];
+        double dy = y[j] - y[i];
+        double distSquared = dx * dx + dy * dy;
+        if (distSquared > maxDist * maxDist) return;
+
+        //angle limit, without an atan2
+        double maxAngleDeficit = maxDeficit - deficit;
+        double maxAngle = 90 * maxAngleDeficit / CircleMatch.ANGLE_WEIGHT;
+        if (maxAngle < 90 && Math.abs(dy) > Math.tan(Math.toRadians(maxAngle)) * Math.abs(dx)) return;
+
+        pairsScored++;
+
+        //area error factor
+        double dist = Math.sqrt(distSquared);
+        double expectedArea = CircleMatch.expectedPixelArea(dist) / imageArea;
+        double areaError = Math.abs(pairArea - expectedArea) / expectedArea;
+        deficit += CircleMatch.AREA_ERROR_WEIGHT * (1 - CircleMatch.areaErrorTerm(areaError));
+        //this also rejects the NaN from a distance too small to have an expected area
+        if (!(deficit <= maxDeficit)) return;
+
+        //angle factor, computed the same way as CircleMatch
+        double angle = Math.toDegrees(Math.atan2(dy, dx));
+        if (angle < -90) angle += 180;
+        if (angle > 90) angle -= 180;
+
+        double score = Math.sqrt((
+                CircleMatch.AREA_ERROR_WEIGHT * CircleMatch.areaErrorTerm(areaError) +
+                        CircleMatch.DIFF_WEIGHT * CircleMatch.diffTerm(diff) +
+                        CircleMatch.ANGLE_WEIGHT * CircleMatch.angleTerm(angle) +
+                        CircleMatch.AREA_WEIGHT * CircleMatch.areaTerm(pairArea)
+        ) / CircleMatch.TOTAL_WEIGHT);
+
+        if (!(score >= minScore)) return;
+        if (heapSize < k) {
+            add(score, i, j);
+        } else if (score > heapScore[0]) {
+            removeMin();
+            add(score, i, j);
+        }
+    }
+
+    /**
+     * Find the farthest away a partner of a circle can be
+     * The circle is the bigger one of the pair, and the expected area from the distance
+     * is at most its area divided by (1 - maxAreaError). The expected area increases with the distance.
+     *
+     * @param pixelArea    the area of the bigger circle in pixels
+     * @param maxAreaError the largest area error allowed (less than 1)
+     * @return the max distance in pixels
+     */
+    private static double maxDistance(double pixelArea, double maxAreaError) {
+        if (maxAreaError >= 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double maxExpectedArea = pixelArea / (1 - maxAreaError);
+        //solve .028 * d^2 + 2.4 * d - 12 = maxExpectedArea for d
+        double a = .028, b = 2.4, c = -12 - maxExpectedArea;
+        return (-b + Math.sqrt(b * b - 4 * a * c)) / (2 * a) + EPSILON;
+    }
+
+    private void add(double score, int i, int j) {
+        int child = heapSize++;
+        while (child > 0) {
+            int parent = (child - 1) / 2;
+            if (heapScore[parent] <= score) break;
+            heapScore[child] = heapScore[parent];
+            heapI[child] = heapI[parent];
+            heapJ[child] = heapJ[parent];
+            child = parent;
+        }
+        heapScore[child] = score;
+        heapI[child] = i;
+        heapJ[child] = j;
+    }
+
+    private void removeMin() {
+        heapSize--;
+        double score = heapScore[heapSize];
+        int i = heapI[heapSize], j = heapJ[heapSize];
+        int parent = 0;
+        while (true) {
+            int child = 2 * parent + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && heapScore[child + 1] < heapScore[child]) child++;
+            if (heapScore[child] >= score) break;
+            heapScore[parent] = heapScore[child];
+            heapI[parent] = heapI[child];
+            heapJ[parent] = heapJ[child];
+            parent = child;
+        }
+        if (heapSize > 0) {
+            heapScore[parent] = score;
+            heapI[parent] = i;
+            heapJ[parent] = j;
+        }
+    }
+
+    /**
+     * @return the number of pairs that were close enough to be checked in the last call to findBestMatches
+     */
+    public int getPairsConsidered() {
+        return pairsConsidered;
+    }
+
+    /**
+     * @return the number of pairs that passed the cheap limits and were fully scored
+     */
+    public int getPairsScored() {
+        return pairsScored;
+    }
+}
@@ -13,7 +13,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 import ftc.evlib.util.FileUtil;
+import ftc.evlib.vision.ColorClassifier;
+import ftc.evlib.vision.ColumnHistogram;
 import ftc.evlib.vision.ImageUtil;
+import ftc.evlib.vision.MatArena;
 
 /**
  * This file was made by the electronVolts, FTC team 7393
@@ -32,38 +35,26 @@ public class CloseUpColorProcessor implements ImageProcessor<BeaconColorResult.B
     //red gets 1.5 its actual mass and green gets no mass
     private static final double[] MASS_SCALE = new double[]{1.5, 0, 1};
 
-    private final int minS, minV;
-
-    public CloseUpColorProcessor() {
-        minS = DEFAULT_MIN_S;
-        minV = DEFAULT_MIN_V;
-    }
+    /**
+     * Classifies the pixels into red, green, and blue
+     */
+    private final ColorClassifier classifier;
 
-    public CloseUpColorProcessor(int minS, int minV) {
-        this.minS = minS;
-        this.minV = minV;
-    }
+    /**
+     * Counts the pixels of each color in each column
+     */
+    private final ColumnHistogram columnHistogram = new ColumnHistogram(3);
 
     /**
-     * Convert to hsv
-     * threshold red, green, and blue
-     * find the largest mass
-     *
-     * @param startTime the time the frame was received
-     * @param rgbaFrame the frame
-     * @return a BeaconColorResult.BeaconColor telling what color the beacon is
+     * The temporary images, reused every frame
      */
-    @Override
-    public ImageProcessorResult<BeaconColorResult.BeaconColor> process(long startTime, Mat rgbaFrame, boolean saveImages) {
-        //save the image in the Pictures directory
-        if (saveImages) {
-            ImageUtil.saveImage(TAG, rgbaFrame, Imgproc.COLOR_RGBA2BGR, "1_camera", startTime);
-        }
+    private final MatArena arena = new MatArena();
 
-        //convert image to hsv
-        Mat hsv = new Mat();
-        Imgproc.cvtColor(rgbaFrame, hsv, Imgproc.COLOR_RGB2HSV);
+    public CloseUpColorProcessor() {
+        this(DEFAULT_MIN_S, DEFAULT_MIN_V);
+    }
 
+    public CloseUpColorProcessor(int minS, int minV) {
         //calculate the hsv thresholds
         //the h value goes from 0 to 179
         //the s value goes from 0 to 255
@@ -73,15 +64,6 @@ public class CloseUpColorProcessor implements ImageProcessor<BeaconColorResult.B
         List<Scalar> thresholdMin = new ArrayList<>();
         List<Scalar> thresholdMax = new ArrayList<>();
 
-//        thresholdMin.add(new Scalar((300) / 2, minS, minV));
-//        thresholdMax.add(new Scalar((60) / 2, 255, 255));
-//
-//        thresholdMin.add(new Scalar((60) / 2, minS, minV));
-//        thresholdMax.add(new Scalar((180) / 2, 255, 255));
-//
-//        thresholdMin.add(new Scalar((180) / 2, minS, minV));
-//        thresholdMax.add(new Scalar((300) / 2, 255, 255));
-
         //larger red range
         thresholdMin.add(new Scalar((304) / 2, minS, minV));
         thresholdMax.add(new Scalar((16) / 2, 255, 255));
@@ -93,13 +75,36 @@ public class CloseUpColorProcessor implements ImageProcessor<BeaconColorResult.B
         // large blue range
         thresholdMin.add(new Scalar((150) / 2, minS, minV));
         thresholdMax.add(new Scalar((300) / 2, 255, 255));
+        classifier = new ColorClassifier(thresholdMin, thresholdMax);
+    }
+
+    /**
+     * Convert to hsv
+     * threshold red, green, and blue
+     * find the largest mass
+     *
+     * @param startTime the time the frame was received
+     * @param frame     the frame and the cached images derived from it
+     * @return a BeaconColorResult.BeaconColor telling what color the beacon is
+     */
+    @Override
+    public ImageProcessorResult<BeaconColorResult.BeaconColor> process(long startTime, FrameContext frame, boolean saveImages) {
+        arena.reset();
+        Mat rgbaFrame = frame.getRgba();
+        //save the image in the Pictures directory
+        if (saveImages) {
+            ImageUtil.saveImage(TAG, rgbaFrame, Imgproc.COLOR_RGBA2BGR, "1_camera", startTime);
+        }
+
+        //convert image to hsv
+        Mat hsv = frame.getHsv();
 
         //make a list of channels that are blank (used for combining binary images)
         List<Mat> rgbaChannels = new ArrayList<>();
         rgbaChannels.add(null);
         rgbaChannels.add(null);
         rgbaChannels.add(null);
-        rgbaChannels.add(Mat.zeros(hsv.size(), CvType.CV_8UC1));
+        rgbaChannels.add(arena.zeros(hsv.size(), CvType.CV_8UC1));
 
         //TODO combine common code between different ImageProcessor implementations
 
@@ -108,45 +113,30 @@ public class CloseUpColorProcessor implements ImageProcessor<BeaconColorResult.B
 
         //variables to use inside the loop
         Mat maskedImage;
-        Mat colSum = new Mat();
 
-        int[] data = new int[3];
+        //classify every pixel into red, green, and blue at once
+        Mat labels = arena.mat();
+        classifier.classify(hsv, labels);
 
-        //used for logging the column sum
-        int[][] colSum1 = new int[hsv.width()][4];
-
-        //column
-        for (int x = 0; x < hsv.width(); x++) {
-            colSum1[x][0] = x;
-        }
+        //count the pixels of each color in each column
+        columnHistogram.compute(labels);
 
         //loop through the rgb channels
         for (int i = 0; i < 3; i++) {
             double massScale = MASS_SCALE[i];
             if (massScale == 0) {
-                rgbaChannels.set(i, Mat.zeros(hsv.size(), CvType.CV_8UC1));
-                for (int x = 0; x < hsv.width(); x++) {
-                    colSum1[x][i + 1] = 0;
-                }
+                rgbaChannels.set(i, arena.zeros(hsv.size(), CvType.CV_8UC1));
             } else {
 
-                //apply HSV thresholds
-                maskedImage = new Mat();
-                ImageUtil.hsvInRange(hsv, thresholdMin.get(i), thresholdMax.get(i), maskedImage);
+                //get the binary image for this color
+                maskedImage = arena.mat();
+                classifier.getMask(labels, i, maskedImage);
 
                 //copy the binary image to a channel of rgbaChannels
                 rgbaChannels.set(i, maskedImage);
 
-                //apply a column sum to the (unscaled) binary image
-                Core.reduce(maskedImage, colSum, 0, Core.REDUCE_SUM, 4);
-
-                //loop through the columns to calculate mass
-                double mass = 0;
-                for (int x = 0; x < hsv.width(); x++) {
-                    colSum.get(0, x, data);
-                    mass += data[0];
-                    colSum1[x][i + 1] = data[0];
-                }
+                //calculate the mass of all the columns (each pixel of the binary image is 255)
+                double mass = 255.0 * columnHistogram.getMass(i, 0, hsv.width());
 
                 //scale the mass by the image size
                 mass /= hsv.size().area();
@@ -167,7 +157,7 @@ public class CloseUpColorProcessor implements ImageProcessor<BeaconColorResult.B
         }
 
         //log the column sum to a file
-        ImageUtil.log2DArray(FileUtil.getLogsDir(), "closeUpColSum", startTime, ".csv", ImmutableList.of("column", "red", "green", "blue"), colSum1);
+        columnHistogram.log(FileUtil.getLogsDir(), "closeUpColSum", startTime, ".csv", ImmutableList.of("column", "red", "green", "blue"));
 
         //merge the 3 binary images into one
         Core.merge(rgbaChannels, rgbaFrame);
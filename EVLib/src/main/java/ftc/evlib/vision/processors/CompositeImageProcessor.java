@@ -0,0 +1,120 @@
+package ftc.evlib.vision.processors;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This file was made by the electronVolts, FTC team 7393
+ * Date Created: 10/18/26
+ *
+ * Runs several independent ImageProcessors on the same frame at the same time
+ * Each processor gets its own copy of the frame to draw on, so they do not interfere with each other.
+ * The HSV image is computed once before the processors start and shared between them.
+ * The processors run on a fixed number of threads, and process() returns when all of them are done.
+ *
+ * Each processor object must only be added once, since processors keep state between frames.
+ * The frame displayed on the screen is the first processor's output.
+ * Only the first processor saves images, since the processors save files with the same names
+ * (such as 00_camera) for the same frame, and would overwrite each other's files from different threads.
+ *
+ * @see CompositeResult
+ */
+public class CompositeImageProcessor implements ImageProcessor<CompositeResult> {
+    private final List<ImageProcessor<?>> imageProcessors;
+
+    /**
+     * One context per processor, reused every frame
+     */
+    private final List<FrameContext> frames = new ArrayList<>();
+
+    private final ExecutorService executor;
+
+    /**
+     * Create a CompositeImageProcessor with one thread per processor, up to the number of cores
+     *
+     * @param imageProcessors the processors to run on every frame
+     */
+    public CompositeImageProcessor(List<? extends ImageProcessor<?>> imageProcessors) {
+        this(imageProcessors, Math.min(imageProcessors.size(), Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * @param imageProcessors the processors to run on every frame
+     * @param numThreads      the number of threads to run them on
+     */
+    public CompositeImageProcessor(List<? extends ImageProcessor<?>> imageProcessors, int numThreads) {
+        if (imageProcessors.isEmpty()) {
+            throw new IllegalArgumentException("CompositeImageProcessor needs at least one ImageProcessor");
+        }
+        this.imageProcessors = ImmutableList.<ImageProcessor<?>>copyOf(imageProcessors);
+        for (int i = 0; i < imageProcessors.size(); i++) {
+            frames.add(new FrameContext());
+        }
+
+        executor = Executors.newFixedThreadPool(Math.max(1, numThreads), new ThreadFactory() {
+            //the pool can create threads from any thread that submits work
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "CompositeImageProcessor-" + count.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Stop the threads
+     * The CompositeImageProcessor cannot be used after this
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public ImageProcessorResult<CompositeResult> process(final long startTime, FrameContext frame, boolean saveImages) {
+        //compute the shared HSV image once so the processors do not each compute their own
+        frame.getHsv();
+
+        //give each processor its own copy of the frame
+        List<Callable<ImageProcessorResult<?>>> tasks = new ArrayList<>();
+        for (int i = 0; i < imageProcessors.size(); i++) {
+            final ImageProcessor<?> imageProcessor = imageProcessors.get(i);
+            final FrameContext copy = frames.get(i);
+            copy.setFrameCopy(frame);
+            final boolean save = saveImages && i == 0;
+
+            tasks.add(new Callable<ImageProcessorResult<?>>() {
+                @Override
+                public ImageProcessorResult<?> call() throws Exception {
+                    return imageProcessor.process(startTime, copy, save);
+                }
+            });
+        }
+
+        //run the processors and wait for all of them to finish
+        List<ImageProcessorResult<?>> results = new ArrayList<>();
+        try {
+            for (Future<ImageProcessorResult<?>> future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while waiting for the ImageProcessors", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("an ImageProcessor failed", e.getCause());
+        }
+
+        return new ImageProcessorResult<>(startTime, results.get(0).getFrame(), new CompositeResult(imageProcessors, results));
+    }
+}
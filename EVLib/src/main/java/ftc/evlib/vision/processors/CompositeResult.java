@@ -0,0 +1,64 @@
+package ftc.evlib.vision.processors;
+
+import java.util.List;
+
+/**
+ * This file was made by the electronVolts, FTC team 7393
+ * Date Created: 10/18/26
+ *
+ * Storage class for the results of every ImageProcessor in a CompositeImageProcessor
+ *
+ * @see CompositeImageProcessor
+ */
+public class CompositeResult {
+    private final List<ImageProcessor<?>> imageProcessors;
+    private final List<ImageProcessorResult<?>> results;
+
+    /**
+     * @param imageProcessors the processors that were run
+     * @param results         the result of each processor, in the same order
+     */
+    CompositeResult(List<ImageProcessor<?>> imageProcessors, List<ImageProcessorResult<?>> results) {
+        this.imageProcessors = imageProcessors;
+        this.results = results;
+    }
+
+    /**
+     * Get the result of one of the processors
+     *
+     * @param imageProcessor the processor
+     * @param <ResultType>   the type of result the processor produces
+     * @return the processor's result, or null if it is not part of the composite
+     */
+    @SuppressWarnings("unchecked")
+    public <ResultType> ImageProcessorResult<ResultType> get(ImageProcessor<ResultType> imageProcessor) {
+        int index = imageProcessors.indexOf(imageProcessor);
+        if (index < 0) {
+            return null;
+        }
+        //the result at the same index came from this processor, so it has the same type
+        return (ImageProcessorResult<ResultType>) results.get(index);
+    }
+
+    /**
+     * @param index the index of the processor in the order it was added
+     * @return the processor's result
+     */
+    public ImageProcessorResult<?> get(int index) {
+        return results.get(index);
+    }
+
+    public int size() {
+        return results.size();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < results.size(); i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(results.get(i));
+        }
+        return sb.toString();
+    }
+}
@@ -14,7 +14,10 @@ import java.util.Arrays;
 import java.util.List;
 
 import ftc.evlib.util.FileUtil;
+import ftc.evlib.vision.ColorClassifier;
+import ftc.evlib.vision.ColumnHistogram;
 import ftc.evlib.vision.ImageUtil;
+import ftc.evlib.vision.MatArena;
 
 /**
  * This file was made by the electronVolts, FTC team 7393
@@ -36,38 +39,26 @@ public class CroppedBeaconProcessor implements ImageProcessor<BeaconColorResult>
     //red gets 1.5 its actual mass and green gets no mass
     private static final double[] MASS_SCALE = new double[]{1.5, 0, 1};
 
-    private final int minS, minV;
-
-    public CroppedBeaconProcessor() {
-        minS = DEFAULT_MIN_S;
-        minV = DEFAULT_MIN_V;
-    }
+    /**
+     * Classifies the pixels into red, green, and blue
+     */
+    private final ColorClassifier classifier;
 
-    public CroppedBeaconProcessor(int minS, int minV) {
-        this.minS = minS;
-        this.minV = minV;
-    }
+    /**
+     * Counts the pixels of each color in each column
+     */
+    private final ColumnHistogram columnHistogram = new ColumnHistogram(3);
 
     /**
-     * Convert to hsv
-     * threshold red, green, and blue
-     * find the largest mass on the left and right
-     *
-     * @param startTime the time the frame was received
-     * @param rgbaFrame the frame
-     * @return a BeaconColorResult telling what color the beacon is
+     * The temporary images, reused every frame
      */
-    @Override
-    public ImageProcessorResult<BeaconColorResult> process(long startTime, Mat rgbaFrame, boolean saveImages) {
-        //save the image in the Pictures directory
-        if (saveImages) {
-            ImageUtil.saveImage(TAG, rgbaFrame, Imgproc.COLOR_RGBA2BGR, "1_camera", startTime);
-        }
+    private final MatArena arena = new MatArena();
 
-        //convert image to hsv
-        Mat hsv = new Mat();
-        Imgproc.cvtColor(rgbaFrame, hsv, Imgproc.COLOR_RGB2HSV);
+    public CroppedBeaconProcessor() {
+        this(DEFAULT_MIN_S, DEFAULT_MIN_V);
+    }
 
+    public CroppedBeaconProcessor(int minS, int minV) {
         //calculate the hsv thresholds
         //the h value goes from 0 to 179
         //the s value goes from 0 to 255
@@ -77,15 +68,6 @@ public class CroppedBeaconProcessor implements ImageProcessor<BeaconColorResult>
         List<Scalar> thresholdMin = new ArrayList<>();
         List<Scalar> thresholdMax = new ArrayList<>();
 
-//        thresholdMin.add(new Scalar((300) / 2, minS, minV));
-//        thresholdMax.add(new Scalar((60) / 2, 255, 255));
-//
-//        thresholdMin.add(new Scalar((60) / 2, minS, minV));
-//        thresholdMax.add(new Scalar((180) / 2, 255, 255));
-//
-//        thresholdMin.add(new Scalar((180) / 2, minS, minV));
-//        thresholdMax.add(new Scalar((300) / 2, 255, 255));
-
         //larger red range
         thresholdMin.add(new Scalar((304) / 2, minS, minV));
         thresholdMax.add(new Scalar((16) / 2, 255, 255));
@@ -97,6 +79,29 @@ public class CroppedBeaconProcessor implements ImageProcessor<BeaconColorResult>
         // large blue range
         thresholdMin.add(new Scalar((150) / 2, minS, minV));
         thresholdMax.add(new Scalar((300) / 2, 255, 255));
+        classifier = new ColorClassifier(thresholdMin, thresholdMax);
+    }
+
+    /**
+     * Convert to hsv
+     * threshold red, green, and blue
+     * find the largest mass on the left and right
+     *
+     * @param startTime the time the frame was received
+     * @param frame     the frame and the cached images derived from it
+     * @return a BeaconColorResult telling what color the beacon is
+     */
+    @Override
+    public ImageProcessorResult<BeaconColorResult> process(long startTime, FrameContext frame, boolean saveImages) {
+        arena.reset();
+        Mat rgbaFrame = frame.getRgba();
+        //save the image in the Pictures directory
+        if (saveImages) {
+            ImageUtil.saveImage(TAG, rgbaFrame, Imgproc.COLOR_RGBA2BGR, "1_camera", startTime);
+        }
+
+        //convert image to hsv
+        Mat hsv = frame.getHsv();
 
         //calculate beacon sides from image dimensions
         int leftX = (int) (BEACON_SIDE_RATIO * hsv.width());
@@ -108,7 +113,7 @@ public class CroppedBeaconProcessor implements ImageProcessor<BeaconColorResult>
         rgbaChannels.add(null);
         rgbaChannels.add(null);
         rgbaChannels.add(null);
-        rgbaChannels.add(Mat.zeros(hsv.size(), CvType.CV_8UC1));
+        rgbaChannels.add(arena.zeros(hsv.size(), CvType.CV_8UC1));
 
         double[] max = new double[2];
         int[] maxIndex = new int[2];
@@ -118,54 +123,34 @@ public class CroppedBeaconProcessor implements ImageProcessor<BeaconColorResult>
 
         //variables to use inside the loop
         Mat maskedImage;
-        Mat colSum = new Mat();
-
-        int[] data = new int[3];
 
-        //used for logging the column sum
-        int[][] colSum1 = new int[hsv.width()][4];
+        //classify every pixel into red, green, and blue at once
+        Mat labels = arena.mat();
+        classifier.classify(hsv, labels);
 
-        //column
-        for (int x = 0; x < hsv.width(); x++) {
-            colSum1[x][0] = x;
-        }
+        //count the pixels of each color in each column
+        columnHistogram.compute(labels);
 
         //loop through the rgb channels
         for (int i = 0; i < 3; i++) {
             double massScale = MASS_SCALE[i];
             if (massScale == 0) {
-                rgbaChannels.set(i, Mat.zeros(hsv.size(), CvType.CV_8UC1));
-                for (int x = 0; x < hsv.width(); x++) {
-                    colSum1[x][i + 1] = 0;
-                }
+                rgbaChannels.set(i, arena.zeros(hsv.size(), CvType.CV_8UC1));
             } else {
 
-                //apply HSV thresholds
-                maskedImage = new Mat();
-                ImageUtil.hsvInRange(hsv, thresholdMin.get(i), thresholdMax.get(i), maskedImage);
+                //get the binary image for this color
+                maskedImage = arena.mat();
+                classifier.getMask(labels, i, maskedImage);
 
                 //copy the binary image to a channel of rgbaChannels
                 rgbaChannels.set(i, maskedImage);
 
-                //apply a column sum to the (unscaled) binary image
-                Core.reduce(maskedImage, colSum, 0, Core.REDUCE_SUM, 4);
-
-                //retrieve values to log the column sum
-                for (int x = 0; x < hsv.width(); x++) {
-                    colSum.get(0, x, data);
-                    colSum1[x][i + 1] = data[0];
-                }
-
                 //loop through left and right to calculate mass
                 int start = 0;
                 int end = leftX;
                 for (int j = 0; j < 2; j++) {
-                    //calculate the mass
-                    double mass = 0;
-                    for (int x = start; x < end; x++) {
-                        colSum.get(0, x, data);
-                        mass += data[0];
-                    }
+                    //calculate the mass (each pixel of the binary image is 255)
+                    double mass = 255.0 * columnHistogram.getMass(i, start, end);
 
                     //scale the mass by the image size
                     mass /= hsv.size().area();
@@ -189,7 +174,7 @@ public class CroppedBeaconProcessor implements ImageProcessor<BeaconColorResult>
             }
         }
 
-        ImageUtil.log2DArray(FileUtil.getLogsDir(), "cropColSum", startTime, ".csv", ImmutableList.of("column", "red", "green", "blue"), colSum1);
+        columnHistogram.log(FileUtil.getLogsDir(), "cropColSum", startTime, ".csv", ImmutableList.of("column", "red", "green", "blue"));
 
         //merge the 3 binary images into one
         Core.merge(rgbaChannels, rgbaFrame);
@@ -15,7 +15,8 @@ public class DummyImageProcessor implements ImageProcessor<String> {
     private static final String TAG = "DummyImageProcessor";
 
     @Override
-    public ImageProcessorResult<String> process(long startTime, Mat rgbaFrame, boolean saveImages) {
+    public ImageProcessorResult<String> process(long startTime, FrameContext frame, boolean saveImages) {
+        Mat rgbaFrame = frame.getRgba();
         String result = "Displayed the image.";
         if (saveImages) {
             //save the camera frame in the Pictures directory
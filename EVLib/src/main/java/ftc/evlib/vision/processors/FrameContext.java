@@ -0,0 +1,249 @@
+package ftc.evlib.vision.processors;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This file was made by the electronVolts, FTC team 7393
+ * Date Created: 10/18/26
+ *
+ * Holds a camera frame and the images derived from it (HSV, grayscale, pyramid levels, and single channels)
+ * Each derived image is computed the first time it is asked for and then cached until the next frame,
+ * so several ImageProcessors working on the same frame only convert it once.
+ * The buffers are kept between frames, so nothing is reallocated unless the frame size changes.
+ *
+ * The derived images are computed from the frame when they are first asked for,
+ * so ImageProcessors should get them before drawing on the frame.
+ * They are shared, so ImageProcessors must not modify them.
+ *
+ * @see ImageProcessor
+ */
+public class FrameContext {
+    private static final int NUM_CHANNELS = 4;
+
+    private Mat rgba = null;
+
+    /**
+     * If this context is a region or a copy of another context, the parent and the region (null for a copy)
+     */
+    private FrameContext parent = null;
+    private Rect roi = null;
+
+    //buffers owned by this context
+    private final Mat copyBuffer = new Mat();
+    private final Mat hsvBuffer = new Mat();
+    private final Mat grayBuffer = new Mat();
+    private final List<Mat> pyramid = new ArrayList<>();
+    private final Mat[] rgbaChannels = new Mat[NUM_CHANNELS];
+    private final Mat[] hsvChannels = new Mat[NUM_CHANNELS];
+
+    //the current derived images, which are either the buffers above or views of the parent's images
+    private Mat hsv = null, gray = null;
+    private int pyramidLevelsReady = 0;
+    private final boolean[] rgbaChannelsReady = new boolean[NUM_CHANNELS];
+    private final boolean[] hsvChannelsReady = new boolean[NUM_CHANNELS];
+
+    /**
+     * Create an empty context to be filled with setFrame()
+     */
+    public FrameContext() {
+        for (int i = 0; i < NUM_CHANNELS; i++) {
+            rgbaChannels[i] = new Mat();
+            hsvChannels[i] = new Mat();
+        }
+    }
+
+    /**
+     * @param rgba the frame
+     */
+    public FrameContext(Mat rgba) {
+        this();
+        setFrame(rgba);
+    }
+
+    /**
+     * Start a new frame and forget the images derived from the last one
+     *
+     * @param rgba the new frame
+     */
+    public void setFrame(Mat rgba) {
+        invalidate();
+        releaseRoiView();
+        this.rgba = rgba;
+        this.parent = null;
+        this.roi = null;
+    }
+
+    /**
+     * Start a new frame that is a region of another context's frame
+     * Derived images that the parent already computed are shared as views instead of being computed again
+     *
+     * @param parent the context of the full frame
+     * @param roi    the region of the frame
+     */
+    public void setFrame(FrameContext parent, Rect roi) {
+        invalidate();
+        releaseRoiView();
+        this.rgba = parent.getRgba().submat(roi);
+        this.parent = parent;
+        this.roi = roi;
+    }
+
+    /**
+     * Start a new frame that is a private copy of another context's frame
+     * The copy can be drawn on without changing the parent's frame.
+     * Derived images that the parent already computed are shared instead of being computed again
+     *
+     * @param parent the context of the frame to copy
+     */
+    public void setFrameCopy(FrameContext parent) {
+        invalidate();
+        releaseRoiView();
+        parent.getRgba().copyTo(copyBuffer);
+        this.rgba = copyBuffer;
+        this.parent = parent;
+        this.roi = null;
+    }
+
+    /**
+     * Forget the derived images so they are computed again the next time they are needed
+     * Call this after modifying the frame if the derived images should reflect the change
+     */
+    public void invalidate() {
+        releaseViews();
+        hsv = null;
+        gray = null;
+        pyramidLevelsReady = 0;
+        for (int i = 0; i < NUM_CHANNELS; i++) {
+            rgbaChannelsReady[i] = false;
+            hsvChannelsReady[i] = false;
+        }
+    }
+
+    /**
+     * @return the frame in RGBA format
+     */
+    public Mat getRgba() {
+        return rgba;
+    }
+
+    /**
+     * @return the region of the parent frame this context covers, or null if it is a full frame
+     */
+    public Rect getRoi() {
+        return roi;
+    }
+
+    public int width() {
+        return rgba.width();
+    }
+
+    public int height() {
+        return rgba.height();
+    }
+
+    /**
+     * @return the frame in HSV format (the h value goes from 0 to 179)
+     */
+    public Mat getHsv() {
+        if (hsv == null) {
+            if (parent != null && parent.hsv != null) {
+                hsv = roi == null ? parent.hsv : parent.hsv.submat(roi);
+            } else {
+                Imgproc.cvtColor(rgba, hsvBuffer, Imgproc.COLOR_RGB2HSV);
+                hsv = hsvBuffer;
+            }
+        }
+        return hsv;
+    }
+
+    /**
+     * @return the frame in grayscale
+     */
+    public Mat getGray() {
+        if (gray == null) {
+            if (parent != null && parent.gray != null) {
+                gray = roi == null ? parent.gray : parent.gray.submat(roi);
+            } else {
+                Imgproc.cvtColor(rgba, grayBuffer, Imgproc.COLOR_RGBA2GRAY);
+                gray = grayBuffer;
+            }
+        }
+        return gray;
+    }
+
+    /**
+     * Get a level of the image pyramid, where each level is half the width and height of the one before it
+     *
+     * @param level the level of the pyramid (0 is the frame itself)
+     * @return the frame scaled down by 2^level
+     */
+    public Mat getPyramidLevel(int level) {
+        if (level == 0) {
+            return rgba;
+        }
+        while (pyramid.size() < level) {
+            pyramid.add(new Mat());
+        }
+        while (pyramidLevelsReady < level) {
+            Mat src = pyramidLevelsReady == 0 ? rgba : pyramid.get(pyramidLevelsReady - 1);
+            Imgproc.pyrDown(src, pyramid.get(pyramidLevelsReady));
+            pyramidLevelsReady++;
+        }
+        return pyramid.get(level - 1);
+    }
+
+    /**
+     * @param channel the channel index (0 is red, 1 is green, 2 is blue, 3 is alpha)
+     * @return one channel of the RGBA frame
+     */
+    public Mat getRgbaChannel(int channel) {
+        if (!rgbaChannelsReady[channel]) {
+            Core.extractChannel(rgba, rgbaChannels[channel], channel);
+            rgbaChannelsReady[channel] = true;
+        }
+        return rgbaChannels[channel];
+    }
+
+    /**
+     * @param channel the channel index (0 is hue, 1 is saturation, 2 is value)
+     * @return one channel of the HSV frame
+     */
+    public Mat getHsvChannel(int channel) {
+        if (!hsvChannelsReady[channel]) {
+            Core.extractChannel(getHsv(), hsvChannels[channel], channel);
+            hsvChannelsReady[channel] = true;
+        }
+        return hsvChannels[channel];
+    }
+
+    /**
+     * Release the views of the parent's images
+     * A copy uses the parent's images directly, so there is nothing to release
+     */
+    private void releaseViews() {
+        if (roi == null) {
+            return;
+        }
+        if (hsv != null && hsv != hsvBuffer) {
+            hsv.release();
+        }
+        if (gray != null && gray != grayBuffer) {
+            gray.release();
+        }
+    }
+
+    /**
+     * Release the view of the parent's frame
+     */
+    private void releaseRoiView() {
+        if (roi != null && rgba != null) {
+            rgba.release();
+        }
+    }
+}
@@ -9,6 +9,7 @@ import org.opencv.imgproc.Imgproc;
 
 import ftc.evlib.util.StepTimer;
 import ftc.evlib.vision.ImageUtil;
+import ftc.evlib.vision.MatArena;
 
 /**
  * This file was made by the electronVolts, FTC team 7393
@@ -26,6 +27,15 @@ public class HueBeaconProcessor implements ImageProcessor<BeaconResult> {
     private static final int V_MIN = 100; //150;
 //  private static final Scalar HSV_MAX = new Scalar(179, 255, 255);
 
+    /**
+     * The temporary images, reused every frame
+     */
+    private final MatArena arena = new MatArena();
+
+    //kept between frames so the Profiler stages are only looked up once
+    private final StepTimer stepTimer = new StepTimer(TAG);
+    private final BeaconFinder beaconFinder = new BeaconFinder();
+
     /**
      * Convert to hsv
      * Threshold black in hsv
@@ -35,12 +45,13 @@ public class HueBeaconProcessor implements ImageProcessor<BeaconResult> {
      * Rotate the image so the beacon is upright
      *
      * @param startTime the time the frame was received
-     * @param rgbaFrame the input image
+     * @param frame     the input image and the cached images derived from it
      * @return a BeaconColorResult object which contains info about the beacon position and colors
      */
     @Override
-    public ImageProcessorResult<BeaconResult> process(long startTime, Mat rgbaFrame, boolean saveImages) {
-        StepTimer stepTimer = new StepTimer(TAG);
+    public ImageProcessorResult<BeaconResult> process(long startTime, FrameContext frame, boolean saveImages) {
+        arena.reset();
+        Mat rgbaFrame = frame.getRgba();
 
         if (saveImages) {
             stepTimer.start();
@@ -51,12 +62,10 @@ public class HueBeaconProcessor implements ImageProcessor<BeaconResult> {
 
         stepTimer.start();
         //convert image to hsv
-        Mat hsv = new Mat();
-        Imgproc.cvtColor(rgbaFrame, hsv, Imgproc.COLOR_RGB2HSV);
+        Mat hsv = frame.getHsv();
         stepTimer.log("rgb2hsv");
 
-        BeaconFinder beaconFinder = new BeaconFinder();
-        ImageProcessorResult<BeaconPositionResult> result = beaconFinder.process(startTime, rgbaFrame, saveImages);
+        ImageProcessorResult<BeaconPositionResult> result = beaconFinder.process(startTime, frame, saveImages);
         BeaconPositionResult positionResult = result.getResult();
         rgbaFrame = result.getFrame();
 
@@ -77,7 +86,10 @@ public class HueBeaconProcessor implements ImageProcessor<BeaconResult> {
         //rotate the frame and hsv image
         Mat rotationMatrix2D = positionResult.getRotationMatrix2D(); //Imgproc.getRotationMatrix2D(midpoint, foundAngleDegrees, 1);
         Imgproc.warpAffine(rgbaFrame, rgbaFrame, rotationMatrix2D, rgbaFrame.size());
-        Imgproc.warpAffine(hsv, hsv, rotationMatrix2D, hsv.size());
+        //the hsv image is shared with other ImageProcessors, so it is rotated into a new Mat
+        Mat rotatedHsv = arena.mat();
+        Imgproc.warpAffine(hsv, rotatedHsv, rotationMatrix2D, hsv.size());
+        hsv = rotatedHsv;
 
         stepTimer.log("rotate image");
 
@@ -92,7 +104,7 @@ public class HueBeaconProcessor implements ImageProcessor<BeaconResult> {
 
         for (int i = 0; i < 2; i++) {
             //crop left and right regions
-            subHSV = new Mat(hsv, rects[i]);
+            subHSV = arena.adopt(new Mat(hsv, rects[i]));
 
             Log.i(TAG, "region " + i + ": " + subHSV.width() + "x" + subHSV.height());
 
@@ -1,18 +1,21 @@
 package ftc.evlib.vision.processors;
 
 import org.opencv.core.Mat;
+import org.opencv.core.Rect;
 
 /**
  * This file was made by the electronVolts, FTC team 7393
  * Date Created: 8/27/16.
  *
  * Stores results of an ImageProcessor object,
- * and the time the processing started and ended
+ * the time the processing started and ended,
+ * and the region of interest of the frame that was processed
  */
 public class ImageProcessorResult<ResultType> {
     private final long startTime, endTime;
     private final ResultType result;
     private final Mat frame;
+    private final Rect roi;
 
     /**
      * @param startTime the time the frame was taken
@@ -20,9 +23,20 @@ public class ImageProcessorResult<ResultType> {
      * @param result    the result of your type
      */
     ImageProcessorResult(long startTime, Mat frame, ResultType result) {
+        this(startTime, frame, result, null);
+    }
+
+    /**
+     * @param startTime the time the frame was taken
+     * @param frame     the frame
+     * @param result    the result of your type
+     * @param roi       the region of the frame that was processed, or null if it was the whole frame
+     */
+    ImageProcessorResult(long startTime, Mat frame, ResultType result, Rect roi) {
         this.startTime = startTime;
         this.result = result;
         this.frame = frame;
+        this.roi = roi;
         this.endTime = System.currentTimeMillis();
     }
 
@@ -50,6 +64,20 @@ public class ImageProcessorResult<ResultType> {
         return frame;
     }
 
+    /**
+     * @return whether or not only a region of the frame was processed
+     */
+    public boolean hasRoi() {
+        return roi != null;
+    }
+
+    /**
+     * @return the region of the frame that was processed, or null if it was the whole frame
+     */
+    public Rect getRoi() {
+        return roi;
+    }
+
     @Override
     public String toString() {
         if (isResultNull()) {
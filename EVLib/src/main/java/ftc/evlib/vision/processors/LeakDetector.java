@@ -0,0 +1,94 @@
+package ftc.evlib.vision.processors;
+
+import android.os.Debug;
+import android.util.Log;
+
+/**
+ * This file was made by the electronVolts, FTC team 7393
+ * Date Created: 10/18/26
+ *
+ * Measures how much native memory another ImageProcessor leaves allocated after each frame
+ *
+ * The native heap is measured before and after each call to the inner processor.
+ * The difference is the memory the processor allocated and did not release,
+ * which for OpenCV Mats is usually freed much later by the finalizer, if at all.
+ * Other threads allocate on the native heap too, so one frame is noisy, but the average over many frames is not.
+ *
+ * @see ftc.evlib.vision.MatArena
+ */
+public class LeakDetector<ResultType> implements ImageProcessor<ResultType> {
+    private static final String TAG = "LeakDetector";
+
+    private final ImageProcessor<ResultType> imageProcessor;
+    private final String name;
+    private final long warnBytesPerFrame;
+
+    private long frames = 0;
+    private long outstandingBytes = 0;
+    private long lastBytes = 0;
+
+    /**
+     * @param imageProcessor    the processor to check
+     * @param warnBytesPerFrame log a warning every 100 frames if the average bytes left per frame is more than this (0 to never warn)
+     */
+    public LeakDetector(ImageProcessor<ResultType> imageProcessor, long warnBytesPerFrame) {
+        this.imageProcessor = imageProcessor;
+        this.name = imageProcessor.getClass().getSimpleName();
+        this.warnBytesPerFrame = warnBytesPerFrame;
+    }
+
+    @Override
+    public ImageProcessorResult<ResultType> process(long startTime, FrameContext frame, boolean saveImages) {
+        long before = Debug.getNativeHeapAllocatedSize();
+        ImageProcessorResult<ResultType> result = imageProcessor.process(startTime, frame, saveImages);
+        lastBytes = Debug.getNativeHeapAllocatedSize() - before;
+
+        outstandingBytes += lastBytes;
+        frames++;
+
+        if (warnBytesPerFrame > 0 && frames % 100 == 0 && getAverageBytesPerFrame() > warnBytesPerFrame) {
+            Log.w(TAG, toString());
+        }
+        return result;
+    }
+
+    /**
+     * @return the native bytes left allocated by the last frame
+     */
+    public long getLastBytes() {
+        return lastBytes;
+    }
+
+    /**
+     * @return the total native bytes left allocated by all the frames (memory freed during a frame is subtracted)
+     */
+    public long getOutstandingBytes() {
+        return outstandingBytes;
+    }
+
+    /**
+     * @return the average native bytes left allocated per frame
+     */
+    public double getAverageBytesPerFrame() {
+        return frames == 0 ? 0 : (double) outstandingBytes / frames;
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    /**
+     * Start counting again
+     */
+    public void reset() {
+        frames = 0;
+        outstandingBytes = 0;
+        lastBytes = 0;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": " + outstandingBytes + " native bytes outstanding after " + frames + " frames (" +
+                String.format("%.0f", getAverageBytesPerFrame()) + " per frame)";
+    }
+}
@@ -4,7 +4,8 @@ import android.util.Log;
 
 import org.opencv.core.Mat;
 import org.opencv.core.MatOfPoint;
-import org.opencv.core.MatOfPoint2f;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
 import org.opencv.core.RotatedRect;
 import org.opencv.core.Scalar;
 import org.opencv.core.Size;
@@ -15,13 +16,19 @@ import java.util.Collections;
 import java.util.List;
 
 import ftc.evlib.util.StepTimer;
+import ftc.evlib.vision.ColorClassifier;
+import ftc.evlib.vision.ContourAnalyzer;
 import ftc.evlib.vision.ImageUtil;
+import ftc.evlib.vision.MatArena;
 
 /**
  * This file was made by the electronVolts, FTC team 7393
  * Date Created: 9/26/16
  *
  * An ImageProcessor that finds particles (field object)
+ *
+ * In coarse-to-fine mode, the candidates are found on a smaller level of the image pyramid
+ * and then found again at full resolution only in the windows around them.
  */
 public class ParticleFinder implements ImageProcessor<List<Particle>> {
     private static final String TAG = "ParticleFinder";
@@ -32,30 +39,79 @@ public class ParticleFinder implements ImageProcessor<List<Particle>> {
     private static final int BLUR_AMOUNT = 3; //used to blur the binary image
     private static final int BLUR_MAX_V = 80; //post-blur hsv value threshold
     private static final double FRAME_AREA_SCALE = 1E-4; //scaling factor for the frame's area
-    private static final double MIN_AREA = 50; //min area for circles to be considered
-    private static final double MAX_AREA = 5000; //max area for circles
+    private static final double DEFAULT_MIN_AREA = 50; //min area for circles to be considered
+    private static final double DEFAULT_MAX_AREA = 5000; //max area for circles
     private static final double MIN_RATIO = .7; //min ratio of ellipse sides to be considered a circle
+    private static final double DEFAULT_WINDOW_MARGIN = .5; //fraction of a candidate's size added to each side of its window
+    private static final double DEFAULT_COARSE_AREA_SLACK = 2; //how much wider the area limits are on the pyramid level
     private static final Particle.ParticleColor[] particleColors = {Particle.ParticleColor.RED, Particle.ParticleColor.BLUE};
 
+    //the names of the steps for each color, so no strings are built every frame
+    private static final String[] THRESHOLD_STEPS = {"threshold & blur for red", "threshold & blur for blue"};
+    private static final String[] SAVE_THRESHOLD_STEPS = {"save 01: red", "save 01: blue"};
+    private static final String[] CONTOURS_STEPS = {"contours for red", "contours for blue"};
+    private static final String[] THRESHOLD_IMAGE_NAMES = {"01_threshold0", "01_threshold2"};
+
     private final StepTimer stepTimer = new StepTimer(TAG);
     private static final double MIN_S = 50;
     private static final double MIN_V = 1;
 
-    @Override
-    public ImageProcessorResult<List<Particle>> process(long startTime, Mat rgbaFrame, boolean saveImages) {
-        if (saveImages) {
-            stepTimer.start();
-            //save the raw camera image for logging
-            ImageUtil.saveImage(TAG, rgbaFrame, Imgproc.COLOR_RGBA2BGR, "00_camera", startTime);
-            stepTimer.log("save 00");
-        }
+    /**
+     * Classifies the pixels into red and blue
+     */
+    private final ColorClassifier classifier;
+
+    //the pyramid level to find candidates on, and the area limits
+    private final int pyramidLevel;
+    private final double minArea, maxArea;
+
+    private double windowMargin = DEFAULT_WINDOW_MARGIN;
+    private double coarseAreaSlack = DEFAULT_COARSE_AREA_SLACK;
+
+    /**
+     * The contexts for the pyramid level and the full resolution windows, reused every frame
+     */
+    private final FrameContext coarseFrame = new FrameContext();
+    private final FrameContext windowFrame = new FrameContext();
+
+    /**
+     * The temporary images, reused every frame
+     */
+    private final MatArena arena = new MatArena();
+
+    /**
+     * Decides which contours are circles
+     */
+    private final ContourAnalyzer contourAnalyzer = new ContourAnalyzer(MIN_RATIO);
+
+    /**
+     * Find particles on the full frame
+     */
+    public ParticleFinder() {
+        this(0);
+    }
 
-        stepTimer.start();
-        //convert image to hsv
-        Mat hsv = new Mat();
-        Imgproc.cvtColor(rgbaFrame, hsv, Imgproc.COLOR_RGB2HSV);
-        stepTimer.log("rgb2hsv");
+    /**
+     * @param pyramidLevel the pyramid level to find candidates on before refining them at full resolution
+     *                     (0 to search the full frame, 2 to search a 1/4 scale image)
+     */
+    public ParticleFinder(int pyramidLevel) {
+        this(pyramidLevel, DEFAULT_MIN_AREA, DEFAULT_MAX_AREA);
+    }
 
+    /**
+     * @param pyramidLevel the pyramid level to find candidates on before refining them at full resolution
+     *                     (0 to search the full frame, 2 to search a 1/4 scale image)
+     * @param minArea      min area for circles, relative to the frame's area
+     * @param maxArea      max area for circles, relative to the frame's area
+     */
+    public ParticleFinder(int pyramidLevel, double minArea, double maxArea) {
+        if (pyramidLevel < 0) {
+            throw new IllegalArgumentException("pyramidLevel must not be negative");
+        }
+        this.pyramidLevel = pyramidLevel;
+        this.minArea = minArea;
+        this.maxArea = maxArea;
 
         //calculate the hsv thresholds
         //the h value goes from 0 to 179
@@ -66,120 +122,116 @@ public class ParticleFinder implements ImageProcessor<List<Particle>> {
         List<Scalar> thresholdMin = new ArrayList<>();
         List<Scalar> thresholdMax = new ArrayList<>();
 
-//        thresholdMin.add(new Scalar((300) / 2, MIN_S, MIN_V));
-//        thresholdMax.add(new Scalar((60) / 2, 255, 255));
-//
-//        thresholdMin.add(new Scalar((60) / 2, MIN_S, MIN_V));
-//        thresholdMax.add(new Scalar((180) / 2, 255, 255));
-//
-//        thresholdMin.add(new Scalar((180) / 2, MIN_S, MIN_V));
-//        thresholdMax.add(new Scalar((300) / 2, 255, 255));
-
         //larger red range
         thresholdMin.add(new Scalar((304) / 2, MIN_S, MIN_V));
         thresholdMax.add(new Scalar((16) / 2, 255, 255));
 
-        //1-value green range
-//        thresholdMin.add(new Scalar((60) / 2, 255, 255));
-//        thresholdMax.add(new Scalar((60) / 2, 255, 255));
-
         // large blue range
         thresholdMin.add(new Scalar((150) / 2, MIN_S, MIN_V));
         thresholdMax.add(new Scalar((300) / 2, 255, 255));
 
+        classifier = new ColorClassifier(thresholdMin, thresholdMax);
+    }
 
-        List<Particle> particles = new ArrayList<>();
+    /**
+     * @param windowMargin the fraction of a candidate's size added to each side of its full resolution window
+     */
+    public void setWindowMargin(double windowMargin) {
+        this.windowMargin = windowMargin;
+    }
 
-        Mat maskedImage;
-        //loop through red, blue
-        for (int c = 0; c < 2; c++) {
-            int channel = 0;
-            if (c == 1) { //skip green
-                channel = 2;
-            }
+    /**
+     * @param coarseAreaSlack how much wider the area limits are on the pyramid level, so that no particles are missed
+     */
+    public void setCoarseAreaSlack(double coarseAreaSlack) {
+        this.coarseAreaSlack = coarseAreaSlack;
+    }
+
+    @Override
+    public ImageProcessorResult<List<Particle>> process(long startTime, FrameContext frame, boolean saveImages) {
+        arena.reset();
+        Mat rgbaFrame = frame.getRgba();
+        if (saveImages) {
             stepTimer.start();
-            //apply HSV thresholds to get binary image
-            maskedImage = new Mat();
-            ImageUtil.hsvInRange(hsv, thresholdMin.get(c), thresholdMax.get(c), maskedImage);
+            //save the raw camera image for logging
+            ImageUtil.saveImage(TAG, rgbaFrame, Imgproc.COLOR_RGBA2BGR, "00_camera", startTime);
+            stepTimer.log("save 00");
+        }
 
-            //blur the image and re-threshold to "de-bounce" the noisy sections
-            Imgproc.blur(maskedImage, maskedImage, new Size(BLUR_AMOUNT, BLUR_AMOUNT));
-            Imgproc.threshold(maskedImage, maskedImage, BLUR_MAX_V, 255, Imgproc.THRESH_BINARY_INV);
-            stepTimer.log("threshold & blur for channel " + channel);
+        double frameArea = FRAME_AREA_SCALE * rgbaFrame.size().area();
+        List<Particle> particles = new ArrayList<>();
 
+        if (pyramidLevel == 0) {
             stepTimer.start();
-            //find contours (edges between red/blue and not red/blue)
-            List<MatOfPoint> contours = new ArrayList<>();
-            Imgproc.findContours(maskedImage, contours, new Mat(), Imgproc.RETR_LIST, Imgproc.CHAIN_APPROX_SIMPLE);
-            Imgproc.drawContours(rgbaFrame, contours, -1, ImageUtil.YELLOW, THICKNESS);
-            stepTimer.log("contours for channel " + channel);
-
-            if (saveImages) {
-                stepTimer.start();
-                //save the threshold image for logging
-                ImageUtil.saveImage(TAG, maskedImage, Imgproc.COLOR_GRAY2BGR, "01_threshold" + channel, startTime);
-                stepTimer.log("save 01:" + channel + " " + particleColors[c]);
+            //convert image to hsv
+            Mat hsv = frame.getHsv();
+            stepTimer.log("rgb2hsv");
+
+            //classify every pixel into red and blue at once
+            Mat labels = arena.mat();
+            classifier.classify(hsv, labels);
+
+            //loop through red, blue
+            for (int c = 0; c < 2; c++) {
+                List<RotatedRect> ellipses = new ArrayList<>();
+                findEllipses(labels, c, rgbaFrame, frameArea, minArea, maxArea, ellipses, saveImages, startTime);
+                for (RotatedRect ellipse : ellipses) {
+                    particles.add(new Particle(ellipse, particleColors[c]));
+                }
             }
-
+        } else {
             stepTimer.start();
-            double frameArea = FRAME_AREA_SCALE * rgbaFrame.size().area();
-            //loop through the contours to find the circular ones
-            for (int i = 0; i < contours.size(); i++) {
-                //convert MatOfPoint to MatOfPoint2f
-                MatOfPoint2f contour = new MatOfPoint2f();
-                contour.fromList(contours.get(i).toList());
-
-                RotatedRect ellipse = null;
-                boolean isValid = false;
-                //fitting an ellipse requires at least 5 points
-                if (contour.height() >= 5) {
-                    //fit an ellipse to the contour points
-                    ellipse = Imgproc.fitEllipse(contour);
-                    double area = ellipse.size.area() / frameArea;
-//                    Log.i(TAG, "Ellipse Area: " + area);
-                    //filter out ellipses that are too big or too small
-                    if (area >= MIN_AREA && area <= MAX_AREA) {
-                        //find the ratio of the shortest side to the longest side
-                        //by finding the ratio of the width to the height
-                        double ratio = ellipse.size.width / ellipse.size.height;
-
-                        //and inverting it if it is greater than 1
-                        if (ratio > 1) ratio = 1 / ratio;
-
-                        //reject ellipses that are not circular enough
-                        if (ratio >= MIN_RATIO) {
-                            isValid = true;
-                        }
-                    }
+            //find the candidates on a smaller image
+            coarseFrame.setFrame(frame.getPyramidLevel(pyramidLevel));
+            Mat coarseLabels = arena.mat();
+            classifier.classify(coarseFrame.getHsv(), coarseLabels);
+            stepTimer.log("pyramid level");
+
+            //the area is relative to the frame area, so it does not change with the scale
+            int scale = 1 << pyramidLevel;
+            double coarseFrameArea = frameArea / (scale * scale);
+
+            //turn each candidate into a window of the full frame
+            List<Rect> windows = new ArrayList<>();
+            for (int c = 0; c < 2; c++) {
+                List<RotatedRect> candidates = new ArrayList<>();
+                findEllipses(coarseLabels, c, null, coarseFrameArea, minArea / coarseAreaSlack, maxArea * coarseAreaSlack, candidates, saveImages, startTime);
+                for (RotatedRect candidate : candidates) {
+                    Rect r = candidate.boundingRect();
+                    Rect window = new Rect(r.x * scale, r.y * scale, r.width * scale, r.height * scale);
+                    windows.add(ImageUtil.expandRect(window, windowMargin, frame.width(), frame.height()));
                 }
+            }
 
-                //draw the ellipse if it was found
-                if (ellipse != null) {
-                    if (isValid) {
-                        //if it is valid, add it to the list of circles
-                        particles.add(new Particle(ellipse, particleColors[c]));
-                        //and draw it in green
-                        Imgproc.ellipse(rgbaFrame, ellipse, colorChannels[channel], THICKNESS);
-                    } else {
-                        //if it is not valid, draw it in red
-                        Imgproc.ellipse(rgbaFrame, ellipse, ImageUtil.BROWN, THICKNESS);
-
+            //merge the overlapping windows so every pixel is only searched once,
+            //and nothing drawn in one window is seen by another
+            mergeOverlapping(windows);
+
+            //look for the particles at full resolution inside the windows
+            for (Rect window : windows) {
+                if (window.width <= 0 || window.height <= 0) continue;
+
+                windowFrame.setFrame(frame, window);
+                Mat windowLabels = arena.mat();
+                classifier.classify(windowFrame.getHsv(), windowLabels);
+
+                for (int c = 0; c < 2; c++) {
+                    List<RotatedRect> ellipses = new ArrayList<>();
+                    findEllipses(windowLabels, c, windowFrame.getRgba(), frameArea, minArea, maxArea, ellipses, false, startTime);
+                    for (RotatedRect ellipse : ellipses) {
+                        //convert from window coordinates to frame coordinates
+                        RotatedRect shifted = new RotatedRect(new Point(ellipse.center.x + window.x, ellipse.center.y + window.y), ellipse.size, ellipse.angle);
+                        particles.add(new Particle(shifted, particleColors[c]));
                     }
                 }
+                Imgproc.rectangle(rgbaFrame, window.tl(), window.br(), ImageUtil.AZURE, THICKNESS);
             }
-//            stepTimer.log("finding circles");
-//            if (saveImages) {
-//                stepTimer.start();
-//                //save the raw camera image for logging
-//                ImageUtil.saveImage(TAG, maskedImage, Imgproc.COLOR_RGBA2BGR, "02_"+colorNames[channel], startTime);
-//                stepTimer.log("save 02");
-//            }
-
         }
+
         if (saveImages) {
             stepTimer.start();
             //save the threshold image for logging
-            ImageUtil.saveImage(TAG, rgbaFrame, Imgproc.COLOR_GRAY2BGR, "03_final", startTime);
+            ImageUtil.saveImage(TAG, rgbaFrame, Imgproc.COLOR_RGBA2BGR, "03_final", startTime);
             stepTimer.log("save 03");
         }
 
@@ -197,4 +249,95 @@ public class ParticleFinder implements ImageProcessor<List<Particle>> {
 //            return new ImageProcessorResult<>(startTime, rgbaFrame, null);
 //        }
     }
+
+    /**
+     * Find the circular blobs of one color in a label image
+     *
+     * @param labels     the label image from the ColorClassifier
+     * @param c          the index of the color (0 is red, 1 is blue)
+     * @param drawFrame  the image to draw the contours and ellipses on, or null to not draw
+     * @param frameArea  the frame's area multiplied by FRAME_AREA_SCALE
+     * @param minArea    min area for circles, relative to the frame's area
+     * @param maxArea    max area for circles, relative to the frame's area
+     * @param ellipses   the list to add the circular ellipses to
+     * @param saveImages whether or not to save the threshold image
+     * @param startTime  the time the frame was taken, used to name the saved images
+     */
+    private void findEllipses(Mat labels, int c, Mat drawFrame, double frameArea, double minArea, double maxArea, List<RotatedRect> ellipses, boolean saveImages, long startTime) {
+        int channel = 0;
+        if (c == 1) { //skip green
+            channel = 2;
+        }
+        stepTimer.start();
+        //get the binary image for this color
+        Mat maskedImage = arena.mat();
+        classifier.getMask(labels, c, maskedImage);
+
+        //blur the image and re-threshold to "de-bounce" the noisy sections
+        Imgproc.blur(maskedImage, maskedImage, new Size(BLUR_AMOUNT, BLUR_AMOUNT));
+        Imgproc.threshold(maskedImage, maskedImage, BLUR_MAX_V, 255, Imgproc.THRESH_BINARY_INV);
+        stepTimer.log(THRESHOLD_STEPS[c]);
+
+        if (saveImages) {
+            stepTimer.start();
+            //save the threshold image for logging (before findContours modifies it)
+            ImageUtil.saveImage(TAG, maskedImage, Imgproc.COLOR_GRAY2BGR, THRESHOLD_IMAGE_NAMES[c], startTime);
+            stepTimer.log(SAVE_THRESHOLD_STEPS[c]);
+        }
+
+        stepTimer.start();
+        //find contours (edges between red/blue and not red/blue)
+        List<MatOfPoint> contours = new ArrayList<>();
+        Imgproc.findContours(maskedImage, contours, arena.mat(), Imgproc.RETR_LIST, Imgproc.CHAIN_APPROX_SIMPLE);
+        arena.adoptAll(contours);
+        if (drawFrame != null) {
+            Imgproc.drawContours(drawFrame, contours, -1, ImageUtil.YELLOW, THICKNESS);
+        }
+        stepTimer.log(CONTOURS_STEPS[c]);
+
+        //loop through the contours to find the circular ones
+        for (int i = 0; i < contours.size(); i++) {
+            ContourAnalyzer.Status status = contourAnalyzer.analyze(contours.get(i), frameArea, minArea, maxArea);
+            RotatedRect ellipse = contourAnalyzer.getEllipse();
+
+            //draw the ellipse if it was found
+            if (status.hasEllipse) {
+                if (status == ContourAnalyzer.Status.CIRCLE) {
+                    //if it is valid, add it to the list of circles
+                    ellipses.add(ellipse);
+                    //and draw it in green
+                    if (drawFrame != null) {
+                        Imgproc.ellipse(drawFrame, ellipse, colorChannels[channel], THICKNESS);
+                    }
+                } else if (drawFrame != null) {
+                    //if it is not valid, draw it in red
+                    Imgproc.ellipse(drawFrame, ellipse, ImageUtil.BROWN, THICKNESS);
+                }
+            }
+        }
+    }
+
+    /**
+     * Combine rectangles that overlap into the rectangle that contains both of them until none overlap
+     *
+     * @param rects the list of rectangles, which is modified
+     */
+    private static void mergeOverlapping(List<Rect> rects) {
+        boolean merged = true;
+        while (merged) {
+            merged = false;
+            for (int i = 0; i < rects.size() - 1 && !merged; i++) {
+                for (int j = i + 1; j < rects.size() && !merged; j++) {
+                    Rect a = rects.get(i), b = rects.get(j);
+                    if (a.x < b.x + b.width && b.x < a.x + a.width && a.y < b.y + b.height && b.y < a.y + a.height) {
+                        int minX = Math.min(a.x, b.x), minY = Math.min(a.y, b.y);
+                        int maxX = Math.max(a.x + a.width, b.x + b.width), maxY = Math.max(a.y + a.height, b.y + b.height);
+                        rects.set(i, new Rect(minX, minY, maxX - minX, maxY - minY));
+                        rects.remove(j);
+                        merged = true;
+                    }
+                }
+            }
+        }
+    }
 }
@@ -16,7 +16,10 @@ import java.util.List;
 
 import ftc.evlib.util.FileUtil;
 import ftc.evlib.util.StepTimer;
+import ftc.evlib.vision.ColorClassifier;
+import ftc.evlib.vision.ColumnHistogram;
 import ftc.evlib.vision.ImageUtil;
+import ftc.evlib.vision.MatArena;
 
 /**
  * This file was made by the electronVolts, FTC team 7393
@@ -30,6 +33,25 @@ public class RGBBeaconProcessor implements ImageProcessor<BeaconResult> {
     private static final double RELATIVE_BAR_HEIGHT = .03;
     private static final double MIN_MASS = 150; //minimum mass for column sum
 
+    /**
+     * Classifies the pixels into red, green, and blue using the color wheel thresholds
+     */
+    private final ColorClassifier classifier = new ColorClassifier(ImageUtil.hsvThresholdMin, ImageUtil.hsvThresholdMax);
+
+    /**
+     * Counts the pixels of each color in each column
+     */
+    private final ColumnHistogram columnHistogram = new ColumnHistogram(3);
+
+    /**
+     * The temporary images, reused every frame
+     */
+    private final MatArena arena = new MatArena();
+
+    //kept between frames so the Profiler stages are only looked up once
+    private final StepTimer stepTimer = new StepTimer(TAG);
+    private final BeaconFinder beaconFinder = new BeaconFinder();
+
     /**
      * Convert to hsv
      * Threshold black in hsv
@@ -39,12 +61,13 @@ public class RGBBeaconProcessor implements ImageProcessor<BeaconResult> {
      * Rotate the image so the beacon is upright
      *
      * @param startTime the time the frame was received
-     * @param rgbaFrame the input image
+     * @param frame     the input image and the cached images derived from it
      * @return a BeaconColorResult object which contains info about the beacon position and colors
      */
     @Override
-    public ImageProcessorResult<BeaconResult> process(long startTime, Mat rgbaFrame, boolean saveImages) {
-        StepTimer stepTimer = new StepTimer(TAG);
+    public ImageProcessorResult<BeaconResult> process(long startTime, FrameContext frame, boolean saveImages) {
+        arena.reset();
+        Mat rgbaFrame = frame.getRgba();
 
         if (saveImages) {
             stepTimer.start();
@@ -55,12 +78,10 @@ public class RGBBeaconProcessor implements ImageProcessor<BeaconResult> {
 
         stepTimer.start();
         //convert image to hsv
-        Mat hsv = new Mat();
-        Imgproc.cvtColor(rgbaFrame, hsv, Imgproc.COLOR_RGB2HSV);
+        Mat hsv = frame.getHsv();
         stepTimer.log("rgb2hsv");
 
-        BeaconFinder beaconFinder = new BeaconFinder();
-        ImageProcessorResult<BeaconPositionResult> result = beaconFinder.process(startTime, rgbaFrame, saveImages);
+        ImageProcessorResult<BeaconPositionResult> result = beaconFinder.process(startTime, frame, saveImages);
         BeaconPositionResult positionResult = result.getResult();
         rgbaFrame = result.getFrame();
 
@@ -89,7 +110,10 @@ public class RGBBeaconProcessor implements ImageProcessor<BeaconResult> {
         //rotate the frame and hsv image
         Mat rotationMatrix2D = positionResult.getRotationMatrix2D(); //Imgproc.getRotationMatrix2D(midpoint, foundAngleDegrees, 1);
         Imgproc.warpAffine(rgbaFrame, rgbaFrame, rotationMatrix2D, rgbaFrame.size());
-        Imgproc.warpAffine(hsv, hsv, rotationMatrix2D, hsv.size());
+        //the hsv image is shared with other ImageProcessors, so it is rotated into a new Mat
+        Mat rotatedHsv = arena.mat();
+        Imgproc.warpAffine(hsv, rotatedHsv, rotationMatrix2D, hsv.size());
+        hsv = rotatedHsv;
 
         //find start and end columns for the mass calculation
         int[] start = {
@@ -124,45 +148,28 @@ public class RGBBeaconProcessor implements ImageProcessor<BeaconResult> {
 
         //variables to use inside the loop
         Mat maskedImage;
-        Mat colSum = new Mat();
         double mass;
 
-        int[] data = new int[3];
+        //classify every pixel into red, green, and blue at once
+        Mat labels = arena.mat();
+        classifier.classify(hsv, labels);
 
-        //used for logging the column sum
-        int[][] colSum1 = new int[hsv.width()][4];
-
-        //column
-        for (int x = 0; x < hsv.width(); x++) {
-            colSum1[x][0] = x;
-        }
+        //count the pixels of each color in each column
+        columnHistogram.compute(labels);
 
         //loop through the rgb channels
         for (int i = 0; i < 3; i++) {
-            //apply HSV thresholds
-            maskedImage = new Mat();
-            ImageUtil.hsvInRange(hsv, ImageUtil.hsvThresholdMin.get(i), ImageUtil.hsvThresholdMax.get(i), maskedImage);
+            //get the binary image for this color
+            maskedImage = arena.mat();
+            classifier.getMask(labels, i, maskedImage);
 
             //add the binary image to rgbaChannels
             rgbaChannels.add(maskedImage);
 
-            //apply a column sum to the (unscaled) binary image
-            Core.reduce(maskedImage, colSum, 0, Core.REDUCE_SUM, 4);
-
-            //retrieve values to log the column sum
-            for (int x = 0; x < hsv.width(); x++) {
-                colSum.get(0, x, data);
-                colSum1[x][i + 1] = data[0];
-            }
-
             //loop through left and right to calculate mass and center of mass
             for (int j = 0; j < 2; j++) {
-                //calculate the mass
-                mass = 0;
-                for (int x = start[j]; x < end[j]; x++) {
-                    colSum.get(0, x, data);
-                    mass += data[0];
-                }
+                //calculate the mass (each pixel of the binary image is 255)
+                mass = 255.0 * columnHistogram.getMass(i, start[j], end[j]);
 
                 if (start[j] == end[j]) {
                     mass = 0;
@@ -182,10 +189,10 @@ public class RGBBeaconProcessor implements ImageProcessor<BeaconResult> {
             }
         }
 
-        ImageUtil.log2DArray(FileUtil.getLogsDir(), "RGBColSum", startTime, ".csv", ImmutableList.of("column", "red", "green", "blue"), colSum1);
+        columnHistogram.log(FileUtil.getLogsDir(), "RGBColSum", startTime, ".csv", ImmutableList.of("column", "red", "green", "blue"));
 
         //merge the 3 binary images into one
-        rgbaChannels.add(Mat.zeros(hsv.size(), CvType.CV_8UC1));
+        rgbaChannels.add(arena.zeros(hsv.size(), CvType.CV_8UC1));
         Core.merge(rgbaChannels, rgbaFrame);
         stepTimer.log("beacon color detection");
 
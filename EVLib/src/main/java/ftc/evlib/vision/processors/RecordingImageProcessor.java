@@ -0,0 +1,34 @@
+package ftc.evlib.vision.processors;
+
+import ftc.evlib.vision.framegrabber.FrameRecorder;
+
+/**
+ * This file was made by the electronVolts, FTC team 7393
+ * Date Created: 10/18/26
+ *
+ * Records every frame and result of another ImageProcessor with a FrameRecorder
+ * The frame is recorded before the inner processor draws on it.
+ *
+ * @see FrameRecorder
+ */
+public class RecordingImageProcessor<ResultType> implements ImageProcessor<ResultType> {
+    private final ImageProcessor<ResultType> imageProcessor;
+    private final FrameRecorder recorder;
+
+    /**
+     * @param imageProcessor the processor to record
+     * @param recorder       the recorder to write the frames and results to
+     */
+    public RecordingImageProcessor(ImageProcessor<ResultType> imageProcessor, FrameRecorder recorder) {
+        this.imageProcessor = imageProcessor;
+        this.recorder = recorder;
+    }
+
+    @Override
+    public ImageProcessorResult<ResultType> process(long startTime, FrameContext frame, boolean saveImages) {
+        recorder.recordFrame(startTime, frame.getRgba());
+        ImageProcessorResult<ResultType> result = imageProcessor.process(startTime, frame, saveImages);
+        recorder.recordResult(result);
+        return result;
+    }
+}
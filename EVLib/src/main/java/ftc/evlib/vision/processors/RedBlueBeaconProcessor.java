@@ -15,7 +15,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 import ftc.evlib.util.FileUtil;
+import ftc.evlib.vision.ColorClassifier;
+import ftc.evlib.vision.ColumnHistogram;
 import ftc.evlib.vision.ImageUtil;
+import ftc.evlib.vision.MatArena;
 
 /**
  * This file was made by the electronVolts, FTC team 7393
@@ -32,6 +35,7 @@ public class RedBlueBeaconProcessor implements ImageProcessor<BeaconColorResult>
     private static final String TAG = "RedBlueBeaconProcessor";
     private static final double MIN_MASS = 10; //minimum mass for column sum
     private static final double MIN_CM_DIFF = 0.1; //the minimum difference between the red and blue centers of mass
+    private static final double FULL_CONFIDENCE_CM_DIFF = 0.4; //the difference between the centers of mass that gives a confidence of 1
 
     private static final int DEFAULT_MIN_S = 50;
     private static final int DEFAULT_MIN_V = 150;
@@ -45,12 +49,22 @@ public class RedBlueBeaconProcessor implements ImageProcessor<BeaconColorResult>
 
     //variables to use inside the loop
     Mat maskedImage;
-    Mat colSum = new Mat();
-    int[] data = new int[3];
 
 
-    private final List<Scalar> thresholdMin;
-    private final List<Scalar> thresholdMax;
+    /**
+     * Classifies the pixels into red, green, and blue
+     */
+    private final ColorClassifier classifier;
+
+    /**
+     * Counts the pixels of each color in each column
+     */
+    private final ColumnHistogram columnHistogram = new ColumnHistogram(3);
+
+    /**
+     * The temporary images, reused every frame
+     */
+    private final MatArena arena = new MatArena();
 
     public RedBlueBeaconProcessor() {
         this(DEFAULT_MIN_S, DEFAULT_MIN_V);
@@ -63,8 +77,8 @@ public class RedBlueBeaconProcessor implements ImageProcessor<BeaconColorResult>
         //the v value goes from 0 to 255
 
         //the values are stored as a list of min HSV and a list of max HSV
-        thresholdMin = new ArrayList<>();
-        thresholdMax = new ArrayList<>();
+        List<Scalar> thresholdMin = new ArrayList<>();
+        List<Scalar> thresholdMax = new ArrayList<>();
 
         //larger red range
         thresholdMin.add(new Scalar((304) / 2, minS, minV));
@@ -77,74 +91,63 @@ public class RedBlueBeaconProcessor implements ImageProcessor<BeaconColorResult>
         //large blue range
         thresholdMin.add(new Scalar((150) / 2, minS, minV));
         thresholdMax.add(new Scalar((300) / 2, 255, 255));
+
+        classifier = new ColorClassifier(thresholdMin, thresholdMax);
     }
 
     /**
      * @param startTime the time the frame was received
-     * @param rgbaFrame the frame
+     * @param frame     the frame and the cached images derived from it
      * @return a BeaconColorResult telling what color the beacon is
      */
     @Override
-    public ImageProcessorResult<BeaconColorResult> process(long startTime, Mat rgbaFrame, boolean saveImages) {
+    public ImageProcessorResult<BeaconColorResult> process(long startTime, FrameContext frame, boolean saveImages) {
+        arena.reset();
+        Mat rgbaFrame = frame.getRgba();
         //save the image in the Pictures directory
         if (saveImages) {
             ImageUtil.saveImage(TAG, rgbaFrame, Imgproc.COLOR_RGBA2BGR, "0_camera", startTime);
         }
 
         //convert image to hsv
-        Mat hsv = new Mat();
-        Imgproc.cvtColor(rgbaFrame, hsv, Imgproc.COLOR_RGB2HSV);
+        Mat hsv = frame.getHsv();
 
         //make a list of channels that are blank (used for combining binary images)
         List<Mat> rgbaChannels = new ArrayList<>();
         rgbaChannels.add(null);
         rgbaChannels.add(null);
         rgbaChannels.add(null);
-        rgbaChannels.add(Mat.zeros(hsv.size(), CvType.CV_8UC1));
+        rgbaChannels.add(arena.zeros(hsv.size(), CvType.CV_8UC1));
 
         double[] centerOfMass = new double[3];
 //        Arrays.fill(centerOfMass, Double.MIN_VALUE);
 
-        //used for logging the column sum
-        int[][] colSum1 = new int[hsv.width()][4];
+        //classify every pixel into red, green, and blue at once
+        Mat labels = arena.mat();
+        classifier.classify(hsv, labels);
 
-        //column
-        for (int x = 0; x < hsv.width(); x++) {
-            colSum1[x][0] = x;
-        }
+        //count the pixels of each color in each column
+        columnHistogram.compute(labels);
 
         //loop through the rgb channels
         for (int i = 0; i < 3; i++) {
             double massScaleFactor = MASS_SCALE_FACTORS[i];
             if (massScaleFactor == 0) {
-                rgbaChannels.set(i, Mat.zeros(hsv.size(), CvType.CV_8UC1));
-                for (int x = 0; x < hsv.width(); x++) {
-                    colSum1[x][i + 1] = 0;
-                }
+                rgbaChannels.set(i, arena.zeros(hsv.size(), CvType.CV_8UC1));
             } else {
 
-                //apply HSV thresholds
-                maskedImage = new Mat();
-                ImageUtil.hsvInRange(hsv, thresholdMin.get(i), thresholdMax.get(i), maskedImage);
+                //get the binary image for this color
+                maskedImage = arena.mat();
+                classifier.getMask(labels, i, maskedImage);
 
                 //copy the binary image to a channel of rgbaChannels
                 rgbaChannels.set(i, maskedImage);
 
-                //apply a column sum to the (unscaled) binary image
-                Core.reduce(maskedImage, colSum, 0, Core.REDUCE_SUM, 4);
-
-                //retrieve values to log the column sum
-                for (int x = 0; x < hsv.width(); x++) {
-                    colSum.get(0, x, data);
-                    colSum1[x][i + 1] = data[0];
-                }
-
-                //calculate the mass
-                double totalMass = 0;
+                //calculate the mass (each pixel of the binary image is 255)
+                int[] columnSums = columnHistogram.getColumnSums(i);
+                double totalMass = 255.0 * columnHistogram.getMass(i, 0, hsv.width());
                 for (int x = 0; x < hsv.width(); x++) {
-                    colSum.get(0, x, data);
-                    totalMass += data[0];
-                    centerOfMass[i] += data[0] * x;
+                    centerOfMass[i] += 255.0 * columnSums[x] * x;
                 }
 
                 //scale the mass by the image size and scale factor for each channel
@@ -159,13 +162,14 @@ public class RedBlueBeaconProcessor implements ImageProcessor<BeaconColorResult>
             }
         }
 
-        ImageUtil.log2DArray(FileUtil.getLogsDir(), "RedBlueColSum", startTime, ".csv", ImmutableList.of("column", "red", "green", "blue"), colSum1);
+        columnHistogram.log(FileUtil.getLogsDir(), "RedBlueColSum", startTime, ".csv", ImmutableList.of("column", "red", "green", "blue"));
 
         //merge the 3 binary images into one
         Core.merge(rgbaChannels, rgbaFrame);
 
         BeaconColorResult.BeaconColor left = BeaconColorResult.BeaconColor.UNKNOWN;
         BeaconColorResult.BeaconColor right = BeaconColorResult.BeaconColor.UNKNOWN;
+        double confidence = 0;
 
         double difference = (centerOfMass[2] - centerOfMass[0]) / hsv.width();
         Log.i(TAG, "difference: " + difference);
@@ -178,6 +182,8 @@ public class RedBlueBeaconProcessor implements ImageProcessor<BeaconColorResult>
                 left = BeaconColorResult.BeaconColor.BLUE;
                 right = BeaconColorResult.BeaconColor.RED;
             }
+            //the farther apart the colors are, the more sure the result is
+            confidence = Math.min(1, Math.abs(difference) / FULL_CONFIDENCE_CM_DIFF);
         }
 
         //draw the color result bars
@@ -189,6 +195,6 @@ public class RedBlueBeaconProcessor implements ImageProcessor<BeaconColorResult>
             ImageUtil.saveImage(TAG, rgbaFrame, Imgproc.COLOR_RGBA2BGR, "1_binary", startTime);
         }
 
-        return new ImageProcessorResult<>(startTime, rgbaFrame, new BeaconColorResult(left, right));
+        return new ImageProcessorResult<>(startTime, rgbaFrame, new BeaconColorResult(left, right, confidence));
     }
 }
@@ -0,0 +1,108 @@
+package ftc.evlib.vision.processors;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+
+import ftc.evlib.vision.ImageUtil;
+
+/**
+ * This file was made by the electronVolts, FTC team 7393
+ * Date Created: 10/18/26
+ *
+ * Runs another ImageProcessor on only a region of interest (ROI) of the frame
+ * The region is passed as a submat, which is a view of the frame and does not copy any pixels,
+ * so the HSV conversion, thresholding, and column sums only run on the pixels inside it.
+ * If the HSV image of the full frame was already computed, the region uses a view of it instead.
+ * Anything the inner processor draws on the region shows up in the full frame.
+ *
+ * The ROI that was used is stored in the ImageProcessorResult, so it can be fed back in with setRoi()
+ * on the next frame to track an object.
+ *
+ * @see VuforiaBeaconColorProcessor
+ */
+public class RoiImageProcessor<ResultType> implements ImageProcessor<ResultType> {
+    private final ImageProcessor<ResultType> imageProcessor;
+    private Rect roi = null;
+    private double margin;
+
+    /**
+     * The context for the region, reused every frame
+     */
+    private final FrameContext roiFrame = new FrameContext();
+
+    /**
+     * @param imageProcessor the processor to run on the region of interest
+     * @param margin         the fraction of the ROI's width and height to add to each side
+     */
+    public RoiImageProcessor(ImageProcessor<ResultType> imageProcessor, double margin) {
+        this.imageProcessor = imageProcessor;
+        this.margin = margin;
+    }
+
+    /**
+     * @param imageProcessor the processor to run on the region of interest
+     */
+    public RoiImageProcessor(ImageProcessor<ResultType> imageProcessor) {
+        this(imageProcessor, 0);
+    }
+
+    /**
+     * @param roi the region of interest before the margin is added, or null to process the whole frame
+     */
+    public void setRoi(Rect roi) {
+        this.roi = roi;
+    }
+
+    /**
+     * @return the region of interest before the margin is added, or null if the whole frame is processed
+     */
+    public Rect getRoi() {
+        return roi;
+    }
+
+    /**
+     * @param margin the fraction of the ROI's width and height to add to each side
+     */
+    public void setMargin(double margin) {
+        this.margin = margin;
+    }
+
+    public double getMargin() {
+        return margin;
+    }
+
+    /**
+     * @return the processor that is run on the region of interest
+     */
+    public ImageProcessor<ResultType> getImageProcessor() {
+        return imageProcessor;
+    }
+
+    /**
+     * Process the region of interest of a frame
+     *
+     * @param startTime  the time the frame was taken
+     * @param frame      the frame and the cached images derived from it
+     * @param saveImages whether or not ot save the images for logging
+     * @return the result of the inner processor, with the full frame and the ROI that was used (in full frame coordinates)
+     */
+    @Override
+    public ImageProcessorResult<ResultType> process(long startTime, FrameContext frame, boolean saveImages) {
+        if (roi == null) {
+            return imageProcessor.process(startTime, frame, saveImages);
+        }
+        Mat rgbaFrame = frame.getRgba();
+
+        Rect expanded = ImageUtil.expandRect(roi, margin, rgbaFrame.width(), rgbaFrame.height());
+
+        //the ROI is outside the frame
+        if (expanded.width <= 0 || expanded.height <= 0) {
+            return new ImageProcessorResult<>(startTime, rgbaFrame, null, expanded);
+        }
+
+        roiFrame.setFrame(frame, expanded);
+        ImageProcessorResult<ResultType> result = imageProcessor.process(startTime, roiFrame, saveImages);
+
+        return new ImageProcessorResult<>(startTime, rgbaFrame, result.getResult(), expanded);
+    }
+}
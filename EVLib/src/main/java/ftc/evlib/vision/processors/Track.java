@@ -0,0 +1,88 @@
+package ftc.evlib.vision.processors;
+
+/**
+ * This file was made by the electronVolts, FTC team 7393
+ * Date Created: 10/18/26
+ *
+ * The filtered position, size, and velocity of an object followed by a TrackingImageProcessor
+ * All the values are in pixels of the full frame.
+ *
+ * @see TrackingImageProcessor
+ */
+public class Track implements Location {
+    private final double x, y, width, height;
+    private final double velocityX, velocityY;
+    private final int misses;
+
+    /**
+     * @param x         the x position of the center
+     * @param y         the y position of the center
+     * @param width     the width
+     * @param height    the height
+     * @param velocityX the x velocity in pixels per second
+     * @param velocityY the y velocity in pixels per second
+     * @param misses    the number of frames in a row the object was not found
+     */
+    Track(double x, double y, double width, double height, double velocityX, double velocityY, int misses) {
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.velocityX = velocityX;
+        this.velocityY = velocityY;
+        this.misses = misses;
+    }
+
+    @Override
+    public double getX() {
+        return x;
+    }
+
+    @Override
+    public double getY() {
+        return y;
+    }
+
+    @Override
+    public double getWidth() {
+        return width;
+    }
+
+    @Override
+    public double getHeight() {
+        return height;
+    }
+
+    /**
+     * @return the x velocity in pixels per second
+     */
+    public double getVelocityX() {
+        return velocityX;
+    }
+
+    /**
+     * @return the y velocity in pixels per second
+     */
+    public double getVelocityY() {
+        return velocityY;
+    }
+
+    /**
+     * @return the number of frames in a row the object was not found
+     */
+    public int getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return whether or not the position is only a prediction because the object was not found in this frame
+     */
+    public boolean isPredicted() {
+        return misses > 0;
+    }
+
+    @Override
+    public String toString() {
+        return "(" + (int) (x + 0.5) + "," + (int) (y + 0.5) + ")" + (int) (width + 0.5) + "x" + (int) (height + 0.5) + (misses > 0 ? " predicted" : "");
+    }
+}
@@ -0,0 +1,287 @@
+package ftc.evlib.vision.processors;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.Collections;
+import java.util.List;
+
+import ftc.electronvolts.util.Utility;
+import ftc.evlib.vision.ImageUtil;
+
+/**
+ * This file was made by the electronVolts, FTC team 7393
+ * Date Created: 10/18/26
+ *
+ * Follows an object from frame to frame so a detector only has to search a small window of each frame
+ *
+ * The position of the object is predicted with a constant velocity model (an alpha-beta filter),
+ * and the detector is run only on a window around the prediction.
+ * The detection closest to the prediction updates the position, velocity, and size.
+ * If the object is not found for a few frames in a row, the track is lost
+ * and the detector goes back to searching the whole frame.
+ *
+ * Use forLocation() for detectors that find one object (such as BeaconFinder)
+ * and forLocations() for detectors that find a list (such as ParticleFinder).
+ *
+ * @see Track
+ */
+public class TrackingImageProcessor implements ImageProcessor<Track> {
+    private static final int THICKNESS = 2;
+
+    private static final double DEFAULT_ALPHA = 0.6; //how much of the position error is corrected each frame
+    private static final double DEFAULT_BETA = 0.2; //how much of the position error is added to the velocity
+    private static final double DEFAULT_GATE_SCALE = 1.5; //size of the search window around the object, as a multiple of the object size
+    private static final int DEFAULT_MAX_MISSES = 3; //number of frames the object can be missing before the track is lost
+    private static final double MAX_SIZE_CHANGE = 2; //max ratio between the size of a detection and the size of the track
+
+    /**
+     * Runs the detector and gives the locations it found
+     */
+    private interface Detector {
+        List<? extends Location> detect(long startTime, FrameContext frame, boolean saveImages);
+    }
+
+    /**
+     * Track an object found by a detector that gives one location, or null if it found nothing
+     *
+     * @param imageProcessor the detector
+     * @return the created TrackingImageProcessor
+     */
+    public static TrackingImageProcessor forLocation(final ImageProcessor<? extends Location> imageProcessor) {
+        return new TrackingImageProcessor(new Detector() {
+            @Override
+            public List<? extends Location> detect(long startTime, FrameContext frame, boolean saveImages) {
+                Location location = imageProcessor.process(startTime, frame, saveImages).getResult();
+                if (location == null) {
+                    return Collections.emptyList();
+                }
+                return Collections.singletonList(location);
+            }
+        });
+    }
+
+    /**
+     * Track an object found by a detector that gives a list of locations
+     * When the track is lost, it starts over from the first location in the list
+     *
+     * @param imageProcessor the detector
+     * @return the created TrackingImageProcessor
+     */
+    public static TrackingImageProcessor forLocations(final ImageProcessor<? extends List<? extends Location>> imageProcessor) {
+        return new TrackingImageProcessor(new Detector() {
+            @Override
+            public List<? extends Location> detect(long startTime, FrameContext frame, boolean saveImages) {
+                List<? extends Location> locations = imageProcessor.process(startTime, frame, saveImages).getResult();
+                if (locations == null) {
+                    return Collections.emptyList();
+                }
+                return locations;
+            }
+        });
+    }
+
+    private final Detector detector;
+
+    private double alpha = DEFAULT_ALPHA;
+    private double beta = DEFAULT_BETA;
+    private double gateScale = DEFAULT_GATE_SCALE;
+    private int maxMisses = DEFAULT_MAX_MISSES;
+
+    /**
+     * The context for the search window, reused every frame
+     */
+    private final FrameContext windowFrame = new FrameContext();
+
+    //the state of the track
+    private boolean tracking = false;
+    private double x, y, width, height, velocityX, velocityY;
+    private int misses = 0;
+    private long lastTime;
+
+    //statistics
+    private int windowedFrames = 0, fullFrames = 0;
+
+    private TrackingImageProcessor(Detector detector) {
+        this.detector = detector;
+    }
+
+    /**
+     * @param alpha how much of the position error is corrected each frame (0 to 1)
+     * @param beta  how much of the position error is added to the velocity each frame (0 to 1)
+     */
+    public void setGains(double alpha, double beta) {
+        if (alpha <= 0 || alpha > 1 || beta < 0 || beta > 1) {
+            throw new IllegalArgumentException("alpha must be in (0, 1] and beta must be in [0, 1]");
+        }
+        this.alpha = alpha;
+        this.beta = beta;
+    }
+
+    /**
+     * @param gateScale the size of the search window around the object, as a multiple of the object size
+     */
+    public void setGateScale(double gateScale) {
+        this.gateScale = gateScale;
+    }
+
+    /**
+     * @param maxMisses the number of frames the object can be missing before the track is lost
+     */
+    public void setMaxMisses(int maxMisses) {
+        this.maxMisses = maxMisses;
+    }
+
+    /**
+     * Forget the track and search the whole frame on the next frame
+     */
+    public void reset() {
+        tracking = false;
+        misses = 0;
+    }
+
+    /**
+     * @return whether or not an object is being tracked
+     */
+    public boolean isTracking() {
+        return tracking;
+    }
+
+    /**
+     * @return the number of frames where only the search window was processed
+     */
+    public int getWindowedFrames() {
+        return windowedFrames;
+    }
+
+    /**
+     * @return the number of frames where the whole frame was processed
+     */
+    public int getFullFrames() {
+        return fullFrames;
+    }
+
+    /**
+     * @param startTime  the time the frame was taken
+     * @param frame      the frame and the cached images derived from it
+     * @param saveImages whether or not ot save the images for logging
+     * @return the Track, or null if there is no object being tracked
+     */
+    @Override
+    public ImageProcessorResult<Track> process(long startTime, FrameContext frame, boolean saveImages) {
+        Mat rgbaFrame = frame.getRgba();
+
+        //predict where the object is now
+        double dt = tracking ? (startTime - lastTime) / 1000.0 : 0;
+        double predictedX = x + velocityX * dt;
+        double predictedY = y + velocityY * dt;
+
+        List<? extends Location> locations;
+        Rect window = null;
+        if (tracking) {
+            //search a window around the prediction that grows each frame the object is missing
+            double scale = gateScale * (1 + misses);
+            double halfWidth = width * scale, halfHeight = height * scale;
+            int minX = (int) Utility.limit(predictedX - halfWidth, 0, frame.width());
+            int minY = (int) Utility.limit(predictedY - halfHeight, 0, frame.height());
+            int maxX = (int) Utility.limit(predictedX + halfWidth, 0, frame.width());
+            int maxY = (int) Utility.limit(predictedY + halfHeight, 0, frame.height());
+            window = new Rect(minX, minY, maxX - minX, maxY - minY);
+
+            if (window.width > 0 && window.height > 0) {
+                windowFrame.setFrame(frame, window);
+                locations = detector.detect(startTime, windowFrame, saveImages);
+            } else {
+                //the prediction left the frame
+                locations = Collections.emptyList();
+            }
+            windowedFrames++;
+        } else {
+            locations = detector.detect(startTime, frame, saveImages);
+            fullFrames++;
+        }
+
+        //find the detection closest to the prediction
+        Location match = null;
+        double matchX = 0, matchY = 0;
+        double minDistance = Double.MAX_VALUE;
+        for (Location location : locations) {
+            double locationX = location.getX(), locationY = location.getY();
+            //convert from window coordinates to frame coordinates
+            if (window != null) {
+                locationX += window.x;
+                locationY += window.y;
+            }
+            if (!tracking) {
+                //without a prediction, take the first location
+                match = location;
+                matchX = locationX;
+                matchY = locationY;
+                break;
+            }
+            //reject detections that are much bigger or smaller than the object
+            double sizeRatio = Math.max(location.getWidth(), 1) / Math.max(width, 1);
+            if (sizeRatio > MAX_SIZE_CHANGE || sizeRatio < 1 / MAX_SIZE_CHANGE) {
+                continue;
+            }
+            double distance = Math.hypot(locationX - predictedX, locationY - predictedY);
+            if (distance < minDistance) {
+                minDistance = distance;
+                match = location;
+                matchX = locationX;
+                matchY = locationY;
+            }
+        }
+
+        if (match != null) {
+            if (tracking) {
+                //correct the prediction with the measurement
+                double errorX = matchX - predictedX;
+                double errorY = matchY - predictedY;
+                x = predictedX + alpha * errorX;
+                y = predictedY + alpha * errorY;
+                if (dt > 0) {
+                    velocityX += beta * errorX / dt;
+                    velocityY += beta * errorY / dt;
+                }
+                width += alpha * (match.getWidth() - width);
+                height += alpha * (match.getHeight() - height);
+            } else {
+                //start a new track
+                x = matchX;
+                y = matchY;
+                width = match.getWidth();
+                height = match.getHeight();
+                velocityX = 0;
+                velocityY = 0;
+                tracking = true;
+            }
+            misses = 0;
+            lastTime = startTime;
+        } else if (tracking) {
+            misses++;
+            if (misses > maxMisses) {
+                //the track is lost, so search the whole frame next time
+                reset();
+            } else {
+                //keep going with the prediction
+                x = predictedX;
+                y = predictedY;
+                lastTime = startTime;
+            }
+        }
+
+        //draw the search window and the track
+        if (window != null) {
+            Imgproc.rectangle(rgbaFrame, window.tl(), window.br(), ImageUtil.AZURE, THICKNESS);
+        }
+        if (!tracking) {
+            return new ImageProcessorResult<>(startTime, rgbaFrame, null);
+        }
+        Imgproc.circle(rgbaFrame, new Point(x, y), THICKNESS, misses > 0 ? ImageUtil.ORANGE : ImageUtil.MAGENTA, THICKNESS);
+
+        return new ImageProcessorResult<>(startTime, rgbaFrame, new Track(x, y, width, height, velocityX, velocityY, misses));
+    }
+}
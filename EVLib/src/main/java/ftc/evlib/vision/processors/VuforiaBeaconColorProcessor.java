@@ -13,9 +13,7 @@ import org.opencv.imgproc.Imgproc;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import ftc.electronvolts.util.Utility;
 import ftc.electronvolts.util.Vector2D;
@@ -33,8 +31,17 @@ public class VuforiaBeaconColorProcessor implements ImageProcessor<BeaconColorRe
     private static final String TAG = "VuforiaBeaconColor";
     private final VuforiaFrameFeeder vuforia;
     private final RedBlueBeaconProcessor beaconProcessor = new RedBlueBeaconProcessor(50, 100); //(5, 25); //(15, 15); //(51, 76);
+    //the thresholds were tuned on the tight crop, so there is no margin by default
+    private final RoiImageProcessor<BeaconColorResult> roiProcessor = new RoiImageProcessor<>(beaconProcessor);
     private int resultsFound = 0;
-    private final List<BeaconColorResult> results = new ArrayList<>();
+
+    private static final double DEFAULT_CONFIDENCE_THRESHOLD = 0.95;
+    private static final double FIRST_FRAME_STABILITY = 0.5; //the weight of a frame with no frame before it to compare to
+    private static final double STABILITY_SCALE = 0.1; //the movement (as a fraction of the beacon size) that lowers the weight to 1/e
+
+    private final BeaconColorEstimator estimator = new BeaconColorEstimator();
+    private double confidenceThreshold = DEFAULT_CONFIDENCE_THRESHOLD;
+    private double lastCenterX, lastCenterY, lastSize = 0;
 
     //the units are "beacon picture widths"         tl     tr     bl     br
     private static final double[] beaconXOffset = {+0.00, +0.00, +0.00, +0.00};
@@ -47,9 +54,17 @@ public class VuforiaBeaconColorProcessor implements ImageProcessor<BeaconColorRe
         this.beaconName = beaconName;
     }
 
+    /**
+     * @param margin the fraction of the beacon's width and height to add to each side of the region that is processed
+     */
+    public void setRoiMargin(double margin) {
+        roiProcessor.setMargin(margin);
+    }
+
     public void reset() {
         resultsFound = 0;
-        results.clear();
+        estimator.reset();
+        lastSize = 0;
     }
 
     public VuforiaBeaconColorProcessor(VuforiaFrameFeeder vuforia) {
@@ -60,58 +75,61 @@ public class VuforiaBeaconColorProcessor implements ImageProcessor<BeaconColorRe
         return resultsFound;
     }
 
+    /**
+     * @return the most likely colors from all the frames since the last reset
+     */
     public BeaconColorResult getAverageResult() {
-        //TODO simplify VuforiaBeaconColorProcessor.getAverageResult()
-        Map<BeaconColorResult.BeaconColor, Integer> leftColors = new HashMap<>();
-        Map<BeaconColorResult.BeaconColor, Integer> rightColors = new HashMap<>();
-
-        for (BeaconColorResult result : results) {
-            BeaconColorResult.BeaconColor leftColor = result.getLeftColor();
-            BeaconColorResult.BeaconColor rightColor = result.getRightColor();
-            int num = 0;
-            if (leftColors.containsKey(leftColor)) {
-                num = leftColors.get(leftColor);
-            }
-            leftColors.put(leftColor, num + 1);
-
-            num = 0;
-            if (rightColors.containsKey(rightColor)) {
-                num = rightColors.get(rightColor);
-            }
-            rightColors.put(rightColor, num + 1);
-        }
+        return estimator.getResult();
+    }
 
-        int leftMax = 0;
-        BeaconColorResult.BeaconColor leftMaxColor = BeaconColorResult.BeaconColor.UNKNOWN;
-        for (Map.Entry<BeaconColorResult.BeaconColor, Integer> entry : leftColors.entrySet()) {
-            BeaconColorResult.BeaconColor color = entry.getKey();
-            int quantity = entry.getValue();
-
-            if (quantity > 0) {
-                if (leftMax * 1.0 / quantity < 0.9) {
-                    leftMax = quantity;
-                    leftMaxColor = color;
-                }
-            }
-        }
-        int rightMax = 0;
-        BeaconColorResult.BeaconColor rightMaxColor = BeaconColorResult.BeaconColor.UNKNOWN;
-        for (Map.Entry<BeaconColorResult.BeaconColor, Integer> entry : rightColors.entrySet()) {
-            BeaconColorResult.BeaconColor color = entry.getKey();
-            int quantity = entry.getValue();
-
-            if (quantity > 0) {
-                if (rightMax * 1.0 / quantity < 0.9) {
-                    rightMax = quantity;
-                    rightMaxColor = color;
-                }
-            }
+    /**
+     * @return whether or not the colors are known well enough to stop looking
+     */
+    public boolean isConfident() {
+        return estimator.isConfident(confidenceThreshold);
+    }
+
+    /**
+     * @param confidenceThreshold the chance of being right that isConfident() waits for, from 0.5 to 1
+     */
+    public void setConfidenceThreshold(double confidenceThreshold) {
+        this.confidenceThreshold = confidenceThreshold;
+    }
+
+    public BeaconColorEstimator getEstimator() {
+        return estimator;
+    }
+
+    /**
+     * Compare the region of the beacon with the one from the last frame
+     * The colors are more likely to be right when the camera and the pose estimate are not moving
+     *
+     * @param rect the region of the beacon in this frame
+     * @return 1 if it did not move, getting closer to 0 the more it moved
+     */
+    private double getPoseStability(Rect rect) {
+        double centerX = rect.x + rect.width / 2.0;
+        double centerY = rect.y + rect.height / 2.0;
+        double size = Math.max(rect.width, rect.height);
+
+        double stability;
+        if (lastSize <= 0 || size <= 0) {
+            stability = FIRST_FRAME_STABILITY;
+        } else {
+            //the movement and the change in size as fractions of the size
+            double shift = Math.hypot(centerX - lastCenterX, centerY - lastCenterY) / size + Math.abs(size - lastSize) / size;
+            stability = Math.exp(-shift / STABILITY_SCALE);
         }
-        return new BeaconColorResult(leftMaxColor, rightMaxColor);
+
+        lastCenterX = centerX;
+        lastCenterY = centerY;
+        lastSize = size;
+        return stability;
     }
 
     @Override
-    public ImageProcessorResult<BeaconColorResult> process(long startTime, Mat rgbaFrame, boolean saveImages) {
+    public ImageProcessorResult<BeaconColorResult> process(long startTime, FrameContext frame, boolean saveImages) {
+        Mat rgbaFrame = frame.getRgba();
         VuforiaTrackable beacon = beacons.get(beaconName);
 
         Log.i(TAG, beaconName.name());
@@ -120,6 +138,8 @@ public class VuforiaBeaconColorProcessor implements ImageProcessor<BeaconColorRe
         OpenGLMatrix pose = ((VuforiaTrackableDefaultListener) beacon.getListener()).getRawPose();
 
         if (pose == null) {
+            //the tracking was lost, so the next pose cannot be compared to the last one
+            lastSize = 0;
             return new ImageProcessorResult<>(startTime, rgbaFrame, new BeaconColorResult());
         }
 
@@ -198,9 +218,18 @@ public class VuforiaBeaconColorProcessor implements ImageProcessor<BeaconColorRe
             ImageUtil.saveImage(TAG, rgbaFrame, Imgproc.COLOR_RGBA2BGR, "0_full_picture", startTime);
         }
 
-        Mat crop = new Mat(rgbaFrame, rectCrop);
-        ImageProcessorResult<BeaconColorResult> result = beaconProcessor.process(startTime, crop, saveImages);
-        results.add(result.getResult());
+        //only process the region of the frame that contains the beacon
+        roiProcessor.setRoi(rectCrop);
+        ImageProcessorResult<BeaconColorResult> result = roiProcessor.process(startTime, frame, saveImages);
+        if (result.isResultNull()) {
+            //the beacon is outside the frame
+            resultsFound--;
+            lastSize = 0;
+            return new ImageProcessorResult<>(startTime, rgbaFrame, new BeaconColorResult(), result.getRoi());
+        }
+        //weight the frame by how still the beacon was and how clearly the colors were separated
+        double stability = getPoseStability(rectCrop);
+        estimator.update(result.getResult(), stability * result.getResult().getConfidence());
 
         Log.i(TAG, "result: " + result.getResult());
         return result;